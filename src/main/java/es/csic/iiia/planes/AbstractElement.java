@@ -43,6 +43,7 @@ package es.csic.iiia.planes;
  * @author Marc Pujol <mpujol at iiia.csic.es>
  */
 public abstract class AbstractElement implements Element {
+    private static final long serialVersionUID = 1L;
 
     private World world;
 
@@ -52,6 +52,8 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public abstract class AbstractFactory implements Factory {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(AbstractFactory.class.getName());
 
     private final Configuration config;
@@ -66,6 +68,15 @@ public abstract class AbstractFactory implements Factory {
      */
     protected World world;
 
+    /**
+     * Constructors of the configured element classes, resolved when the first
+     * plane is built (and again after restoring a checkpoint).
+     */
+    private transient Constructor<? extends Plane> planeConstructor;
+    private transient Constructor<? extends EvaluationStrategy<Plane>> evaluationConstructor;
+    private transient Constructor<? extends IdleStrategy> idleConstructor;
+    private transient Constructor<? extends Battery> batteryConstructor;
+
     public AbstractFactory(Configuration config) {
         this.config = config;
     }
@@ -87,17 +98,22 @@ public abstract class AbstractFactory implements Factory {
     public Plane buildPlane(Location location) {
         Plane p = null;
         try {
-            Constructor<? extends Plane> c = config.getPlanesClass().getConstructor(Location.class);
-            p = c.newInstance(location);
-            EvaluationStrategy strategy = config.getEvaluationClass().newInstance();
+            if (planeConstructor == null) {
+                planeConstructor = config.getPlanesClass().getConstructor(Location.class);
+                evaluationConstructor = config.getEvaluationClass().getConstructor();
+                idleConstructor = config.getIdleClass().getConstructor();
+            }
+            p = planeConstructor.newInstance(location);
+            EvaluationStrategy<Plane> strategy = evaluationConstructor.newInstance();
             p.setEvaluationStrategy(strategy);
-            IdleStrategy idle = config.getIdleClass().newInstance();
+            IdleStrategy idle = idleConstructor.newInstance();
             p.setIdleStrategy(idle);
         } catch (Exception ex) {
             throw new RuntimeException("Unable to build the planes", ex);
         }
-        initialize(p);
+        // Add the plane before initializing it, so that it already has its id
         world.addPlane(p);
+        initialize(p);
         p.setAngle(location.getAngle(world.getNearestOperator(location).getLocation()));
         return p;
     }
@@ -106,7 +122,10 @@ public abstract class AbstractFactory implements Factory {
     public Battery buildBattery(Plane p) {
         Battery b = null;
         try {
-            b = config.getBatteryClass().newInstance();
+            if (batteryConstructor == null) {
+                batteryConstructor = config.getBatteryClass().getConstructor();
+            }
+            b = batteryConstructor.newInstance();
         } catch (Exception ex) {
             throw new RuntimeException("Unable to build the battery", ex);
         }
@@ -37,6 +37,10 @@
 package es.csic.iiia.planes;
 
 import es.csic.iiia.planes.behaviors.Behavior;
+import es.csic.iiia.planes.messaging.Message;
+import es.csic.iiia.planes.util.RandomStream;
+import java.util.Collections;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
@@ -50,6 +54,8 @@ import java.util.logging.Logger;
 public abstract class AbstractMessagingAgent extends AbstractPositionedElement
     implements MessagingAgent
 {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(AbstractMessagingAgent.class.getName());
 
     /**
@@ -57,6 +63,11 @@ public abstract class AbstractMessagingAgent extends AbstractPositionedElement
      */
     private double communicationRange;
 
+    /**
+     * Random number stream of this agent.
+     */
+    private RandomStream random;
+
     public AbstractMessagingAgent(Location location) {
         super(location);
     }
@@ -71,4 +82,60 @@ public abstract class AbstractMessagingAgent extends AbstractPositionedElement
         this.communicationRange = range;
     }
 
+    @Override
+    public RandomStream getRandom() {
+        return random;
+    }
+
+    @Override
+    public void setRandom(RandomStream random) {
+        this.random = random;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * By default, any message is accepted.
+     */
+    @Override
+    public boolean accepts(Message message) {
+        return true;
+    }
+
+    /**
+     * Do nothing, because this agent does not hold any message by default.
+     */
+    @Override
+    public void clearMessages() {}
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * By default, any message wakes the agent up.
+     */
+    @Override
+    public boolean isWakeUpMessage(Message message) {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * By default, agents do not send any beacon.
+     */
+    @Override
+    public List<Message> getBeacons() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * By default, agents do not send any beacon.
+     */
+    @Override
+    public long getNextBeaconTime() {
+        return Long.MAX_VALUE;
+    }
+
 }
\ No newline at end of file
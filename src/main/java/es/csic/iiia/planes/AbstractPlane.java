@@ -40,14 +40,10 @@ package es.csic.iiia.planes;
 import es.csic.iiia.planes.behaviors.AbstractBehaviorAgent;
 import es.csic.iiia.planes.evaluation.EvaluationStrategy;
 import es.csic.iiia.planes.evaluation.IndependentDistanceEvaluation;
-import es.csic.iiia.planes.gui.Drawable;
-import es.csic.iiia.planes.gui.PlaneDrawer;
 import es.csic.iiia.planes.idle.IdleStrategy;
 import es.csic.iiia.planes.util.RotatingList;
-import java.awt.Color;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -59,17 +55,14 @@ import java.util.logging.Logger;
  */
 public abstract class AbstractPlane extends AbstractBehaviorAgent
     implements Plane {
-    private static final Logger LOG = Logger.getLogger(AbstractPlane.class.getName());
+    private static final long serialVersionUID = 1L;
 
-    /**
-     * ID Generator
-     */
-    final private static AtomicInteger idGenerator = new AtomicInteger();
+    private static final Logger LOG = Logger.getLogger(AbstractPlane.class.getName());
 
     /**
      * Plane id
      */
-    final int id = idGenerator.incrementAndGet();
+    private int id;
 
     /**
      * Current plane state
@@ -127,13 +120,23 @@ public abstract class AbstractPlane extends AbstractBehaviorAgent
     private int[] color;
 
     /**
-     * Total flight distance of this plane.
+     * Number of ticks that this plane has been flying (at its constant
+     * speed).
      */
-    private double flightDistance;
+    private long flightTicks;
 
     private Location.MoveStep currentDestination;
 
-    private PlaneDrawer drawer = null;
+    /**
+     * Scheduler where this plane sleeps while flying, and index of the plane
+     * in it, or <em>null</em> if the plane is not such a sleeping mover.
+     * <p/>
+     * Sleeping movers are not moved at every tick. Instead, their location,
+     * battery and flight distance are brought up to date when read, and the
+     * world's {@link PlaneStates} compute their location from their plan.
+     */
+    private AgentScheduler mover;
+    private int moverIndex;
 
     /**
      * Default constructor
@@ -147,17 +150,13 @@ public abstract class AbstractPlane extends AbstractBehaviorAgent
     }
 
     @Override
-    public void initialize() {
-        super.initialize();
-
-        if (drawer != null) {
-            drawer.initialize();
-        }
+    public int getId() {
+        return id;
     }
 
     @Override
-    public int getId() {
-        return id;
+    public void setId(int id) {
+        this.id = id;
     }
 
     @Override
@@ -172,9 +171,49 @@ public abstract class AbstractPlane extends AbstractBehaviorAgent
 
     @Override
     public Battery getBattery() {
+        syncMover();
         return battery;
     }
 
+    @Override
+    public Location getLocation() {
+        syncMover();
+        return super.getLocation();
+    }
+
+    /**
+     * Sets the scheduler where this plane sleeps while flying.
+     *
+     * @param scheduler scheduler where the plane sleeps, or <em>null</em> when
+     *                  it wakes up.
+     * @param index index of the plane in that scheduler.
+     */
+    void setMover(AgentScheduler scheduler, int index) {
+        mover = scheduler;
+        moverIndex = index;
+        getWorld().getPlaneStates().setMover(this,
+                scheduler == null ? null : currentDestination, scheduler, index);
+    }
+
+    /**
+     * Get the plan that this plane follows to reach its destination.
+     *
+     * @return current flight plan, or <em>null</em> if the plane has never
+     *         been given a destination.
+     */
+    Location.MoveStep getMoveStep() {
+        return currentDestination;
+    }
+
+    /**
+     * Brings this plane up to date if it is flying while sleeping.
+     */
+    private void syncMover() {
+        if (mover != null) {
+            mover.sync(moverIndex);
+        }
+    }
+
     @Override
     public EvaluationStrategy getEvaluationStrategy() {
         return evaluationStrategy;
@@ -315,6 +354,110 @@ public abstract class AbstractPlane extends AbstractBehaviorAgent
         idleAction();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Planes are idle when they are neither flying nor charging, and their
+     * idle strategy keeps them where they are. Charging planes only need to
+     * act once their battery gets full, because recharging is linear.
+     * Flying planes keep moving while they sleep, so they only need to act
+     * when they arrive at their destination or when they may be running out
+     * of battery.
+     */
+    @Override
+    public long getNextEventTime() {
+        final long next = getWorld().getTime() + 1;
+
+        long wakeup;
+        if (state == State.CHARGING) {
+            final long missing = battery.getCapacity() - battery.getEnergy();
+            if (missing <= rechargeRatio) {
+                return next;
+            }
+            wakeup = next + (missing - 1) / rechargeRatio;
+        } else if (state == State.TO_CHARGE) {
+            wakeup = getArrivalTime();
+        } else if (nextTask != null) {
+            wakeup = Math.min(getArrivalTime(), getBatteryCheckTime());
+        } else {
+            wakeup = idleStrategy.getNextActionTime(this);
+        }
+
+        return Math.min(wakeup, super.getNextEventTime());
+    }
+
+    /**
+     * Get the tick at which this plane will reach its current destination.
+     *
+     * @return arrival time, or the next tick if the plane has no destination.
+     */
+    private long getArrivalTime() {
+        final long now = getWorld().getTime();
+        if (currentDestination == null || currentDestination.steps < 1) {
+            return now + 1;
+        }
+        return now + currentDestination.steps;
+    }
+
+    /**
+     * Get the first tick at which this plane may decide to go recharge,
+     * assuming that it keeps flying towards its destination.
+     * <p/>
+     * Planes go recharge when their remaining energy is not greater than the
+     * time it takes to fly to the nearest station. The former decreases by one
+     * each tick, and the latter can not increase by more than one each tick,
+     * so this can not happen until half of their difference has elapsed.
+     *
+     * @return earliest time of the next battery check that may trigger.
+     */
+    private long getBatteryCheckTime() {
+        final long now = getWorld().getTime();
+        final Station st = getWorld().getNearestStation(getLocation());
+        final double slack = battery.getEnergy()
+                - getLocation().getDistance(st.getLocation())/getSpeed();
+
+        // Keep a safety margin against rounding errors
+        final double safe = Math.floor(slack / 2) - 1;
+        if (!(safe >= 0)) {
+            return now + 1;
+        }
+        if (safe >= Long.MAX_VALUE / 2) {
+            return Long.MAX_VALUE;
+        }
+        return now + (long)safe + 2;
+    }
+
+    @Override
+    public boolean isFlying() {
+        return state == State.TO_CHARGE || (state == State.NORMAL && nextTask != null);
+    }
+
+    @Override
+    public void fastForward(long ticks) {
+        super.fastForward(ticks);
+        if (state == State.CHARGING) {
+            battery.recharge(rechargeRatio * ticks);
+        } else if (ticks > 0 && isFlying()) {
+            // Sleeping movers wake up before their last step, which they
+            // take by themselves
+            flightTicks += ticks;
+            battery.consume(ticks);
+            super.getLocation().move(currentDestination, (int)ticks);
+            getWorld().planeMoved(this);
+        }
+    }
+
+    /**
+     * Writes the state of this plane through to the world's plane states.
+     *
+     * @see PlaneStates
+     */
+    private void updateState() {
+        if (getWorld() != null) {
+            getWorld().getPlaneStates().update(this);
+        }
+    }
+
     /**
      * Action done by the plane whenever it is ready to handle tasks but no
      * task has been assigned to it.
@@ -333,13 +476,24 @@ public abstract class AbstractPlane extends AbstractBehaviorAgent
     @Override
     public void setSpeed(double speed) {
         this.speed = speed;
+        updateState();
     }
 
     @Override
     public boolean move() {
-        flightDistance += getSpeed();
+        flightTicks++;
         battery.consume(1);
-        return getLocation().move(currentDestination);
+        final boolean reached = getLocation().move(currentDestination);
+        getWorld().planeMoved(this);
+        return reached;
+    }
+
+    @Override
+    public void setLocation(Location location) {
+        super.setLocation(location);
+        if (getWorld() != null) {
+            getWorld().planeMoved(this);
+        }
     }
 
     /**
@@ -411,6 +565,9 @@ public abstract class AbstractPlane extends AbstractBehaviorAgent
 
     @Override
     public void addTask(Task task) {
+        if (getWorld() != null) {
+            getWorld().wakeUp(this);
+        }
         tasks.add(task);
 
         taskAdded(task);
@@ -435,34 +592,14 @@ public abstract class AbstractPlane extends AbstractBehaviorAgent
         return tasks;
     }
 
-    @Override
-    public Drawable getDrawer() {
-        return drawer;
-    }
-
-    @Override
-    public void setDrawer(PlaneDrawer drawer) {
-        this.drawer = drawer;
-    }
-
     @Override
     public List<Location> getCompletedLocations() {
         return completedLocations;
     }
 
-    /* Horrible HACK:
-     * This is to avoid creating java.awt.Color objects when running without
-     * GUI, because creating a single Color object makes java think that this
-     * is a GUI application, launch the GUI Thread, etc...
-     */
-    private Color cachedColor = null;
-
     @Override
-    public Color getColor() {
-        if (cachedColor == null) {
-            cachedColor = new Color(color[0], color[1], color[2]);
-        }
-        return cachedColor;
+    public int[] getColor() {
+        return color;
     }
 
     @Override
@@ -472,7 +609,8 @@ public abstract class AbstractPlane extends AbstractBehaviorAgent
 
     @Override
     public double getTotalDistance() {
-        return flightDistance;
+        syncMover();
+        return flightTicks * getSpeed();
     }
 
     @Override
@@ -45,6 +45,7 @@ package es.csic.iiia.planes;
 public abstract class AbstractPositionedElement extends AbstractElement
     implements Positioned
 {
+    private static final long serialVersionUID = 1L;
 
     /**
      * The element's location.
@@ -37,13 +37,27 @@
  */
 package es.csic.iiia.planes;
 
+import es.csic.iiia.planes.PhaseExecutor.Phase;
+import es.csic.iiia.planes.behaviors.AbstractBehaviorAgent;
+import es.csic.iiia.planes.cli.Configuration;
 import es.csic.iiia.planes.definition.DOperator;
 import es.csic.iiia.planes.definition.DPlane;
 import es.csic.iiia.planes.definition.DProblem;
 import es.csic.iiia.planes.definition.DStation;
 import es.csic.iiia.planes.messaging.Message;
+import es.csic.iiia.planes.util.IndexedSet;
+import es.csic.iiia.planes.util.RandomStream;
+import es.csic.iiia.planes.util.SpatialGrid;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -53,12 +67,14 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol at iiia.csic.es>
  */
 public abstract class AbstractWorld implements World {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(AbstractWorld.class.getName());
 
     private Space space = null;
     private List<Agent> agents = new ArrayList<Agent>();
     private List<Plane> planes = new ArrayList<Plane>();
-    private List<Task> tasks = new ArrayList<Task>();
+    private IndexedSet<Task> tasks = new IndexedSet<Task>();
     private List<Station> stations = new ArrayList<Station>();
 
     /**
@@ -71,21 +87,145 @@ public abstract class AbstractWorld implements World {
      */
     private ArrayList<Operator> operators = new ArrayList<Operator>();
 
+    /**
+     * Identifier of the last task added to this world.
+     */
+    private int lastTaskId = 0;
+
+    /**
+     * Random number stream of this world, from which the streams of its
+     * agents are split.
+     */
+    private RandomStream random = new RandomStream(0L);
+
     /**
      * Current simulation time.
      */
     private long time = 0;
 
     /**
-     * Duration of this simulation in tenths of second.
+     * Duration of this simulation in ticks.
      */
     protected long duration;
 
+    /**
+     * Length of each tick in tenths of second.
+     */
+    private long tickLength = 1;
+
     /**
      * Factory used to create elements for this simulation.
      */
     private final Factory factory;
 
+    /**
+     * Spatial index of the planes, used to find the recipients of messages
+     * without checking every plane.
+     */
+    private SpatialGrid<Plane> planeGrid = null;
+
+    /**
+     * Kinematic state of the planes, kept as a structure of arrays for the
+     * queries that scan all of them.
+     */
+    private final PlaneStates planeStates = new PlaneStates();
+
+    /**
+     * Neighbors of the planes, when the world computes them (built at the
+     * first step).
+     */
+    private transient NeighborOracle neighborOracle = null;
+
+    /**
+     * True while the messages being sent must be held in the {@link #outbox}
+     * until the end of the current step.
+     */
+    private boolean deferMessages = false;
+
+    /**
+     * Executor used to run the step phases in parallel, or <em>null</em> when
+     * running sequentially.
+     */
+    private transient PhaseExecutor executor = null;
+
+    /**
+     * Scheduler that puts idle agents to sleep, or <em>null</em> when all the
+     * agents are stepped at every tick.
+     */
+    private AgentScheduler scheduler = null;
+
+    /**
+     * Watchdog that aborts the simulation when it stalls or exceeds its
+     * budgets, or <em>null</em> when the simulation is not running.
+     */
+    private Watchdog watchdog = null;
+
+    /**
+     * Reason why the simulation was aborted, or <em>null</em> if it finished
+     * normally.
+     */
+    private Watchdog.Reason abortReason = null;
+
+    /**
+     * Tick at which the planes will be sorted spatially again.
+     */
+    private transient long nextSpatialSort = 0;
+
+    /**
+     * Scratch buffers used to run the agents in spatial order.
+     */
+    private transient int[] executionOrder = null;
+    private transient int[] positionBySlot = null;
+
+    /**
+     * Tick after which the next checkpoint will be written, or 0 if
+     * checkpoints are disabled.
+     */
+    private long nextCheckpoint = 0;
+
+    /**
+     * Log where the state digests are written, or <em>null</em> if digests
+     * are disabled.
+     */
+    private transient DigestLog.Writer digests = null;
+
+    /**
+     * Tick at which the simulation must be paused, or {@link Long#MAX_VALUE}
+     * if it must run until the end.
+     */
+    private long pauseAt = Long.MAX_VALUE;
+
+    /**
+     * Messages sent during the current step whose delivery has been deferred.
+     */
+    private final ArrayList<Message> outbox = new ArrayList<Message>();
+
+    /**
+     * Scratch buffers used when delivering messages.
+     */
+    private final ArrayList<Plane> candidates = new ArrayList<Plane>();
+    private long[] sortKeys = new long[0];
+    private int[] recipientsFrom = new int[0];
+    private int[] recipientsTo = new int[0];
+    private int[] recipientsShard = new int[0];
+
+    /**
+     * Shards that compute the recipients of the broadcasts, built when the
+     * first messages are delivered.
+     */
+    private transient Shard[] shards = null;
+
+    /**
+     * Default minimum number of broadcasts handled by each shard. Below it,
+     * shards cost more to coordinate than what they save.
+     */
+    private static final int MIN_SHARD_BROADCASTS = 64;
+
+    /**
+     * Minimum number of broadcasts handled by each shard.
+     */
+    private int minShardBroadcasts = MIN_SHARD_BROADCASTS;
+
     /**
      * Builds a new world.
      *
@@ -95,6 +235,32 @@ public abstract class AbstractWorld implements World {
         this.factory = f;
     }
 
+    /**
+     * Writes this world, and then the state of its agents.
+     * <p/>
+     * Agents do not serialize the state that references other agents, or the
+     * serialization would recurse from one agent to the next one (needing a
+     * stack as deep as the number of agents). Instead, that state is written
+     * here once all the agents have been written.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (Agent a : agents) {
+            if (a instanceof AbstractBehaviorAgent) {
+                ((AbstractBehaviorAgent)a).writeState(out);
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        for (Agent a : agents) {
+            if (a instanceof AbstractBehaviorAgent) {
+                ((AbstractBehaviorAgent)a).readState(in);
+            }
+        }
+    }
+
     @Override
     public Factory getFactory() {
         return factory;
@@ -116,12 +282,18 @@ public abstract class AbstractWorld implements World {
      */
     public void addOperator(Operator operator) {
         operators.add(operator);
+        operator.id = operators.size();
+        operator.setRandom(random.split("operator").split(operator.id));
         agents.add(operator);
+        if (scheduler != null) {
+            scheduler.add(operator);
+        }
     }
 
     @Override
     public void addStation(Station station) {
         stations.add(station);
+        station.id = stations.size();
     }
 
     /**
@@ -134,8 +306,12 @@ public abstract class AbstractWorld implements World {
 
     @Override
     public void init(DProblem d) {
+        // The problem is defined in tenths of second, so everything that
+        // depends on time must be scaled to the length of our ticks.
+        tickLength = factory.getConfiguration().getTickLength();
+        random = new RandomStream(factory.getConfiguration().getSeed());
         space = new Space(d.getWidth(), d.getHeight());
-        setDuration(d.getDuration());
+        setDuration((d.getDuration() + tickLength - 1) / tickLength);
 
         for (DOperator o : d.getOperators()) {
             Location l = new Location(o.getX(), o.getY());
@@ -148,9 +324,9 @@ public abstract class AbstractWorld implements World {
             Location l = new Location(pd.getX(), pd.getY());
             Plane p = factory.buildPlane(l);
             Battery b = factory.buildBattery(p);
-            p.setSpeed(pd.getSpeed());
-            b.setEnergy(pd.getInitialBattery());
-            b.setCapacity(pd.getBatteryCapacity());
+            p.setSpeed(pd.getSpeed() * tickLength);
+            b.setEnergy(pd.getInitialBattery() / tickLength);
+            b.setCapacity(pd.getBatteryCapacity() / tickLength);
             p.setCommunicationRange(pd.getCommunicationRange());
             p.setColor(pd.getColor());
         }
@@ -171,6 +347,11 @@ public abstract class AbstractWorld implements World {
         return time;
     }
 
+    @Override
+    public long getTickLength() {
+        return tickLength;
+    }
+
     @Override
     public Space getSpace() {
         return space;
@@ -178,34 +359,300 @@ public abstract class AbstractWorld implements World {
 
     @Override
     public void run() {
+        pauseAt = Long.MAX_VALUE;
+        start();
+        simulate();
+    }
+
+    @Override
+    public void resume() {
+        if (watchdog == null) {
+            throw new IllegalStateException("This world is not a running simulation.");
+        }
 
+        pauseAt = Long.MAX_VALUE;
+        time++;
+        simulate();
+    }
+
+    @Override
+    public boolean runUntil(long tick) {
+        pauseAt = tick;
+        if (watchdog == null) {
+            start();
+        } else {
+            time++;
+        }
+        return simulate();
+    }
+
+    /**
+     * Prepares the agents and the internal structures of this world to start
+     * simulating from the first tick.
+     */
+    private void start() {
         for (Agent a : agents) {
             a.initialize();
         }
+        // Planes may have been set up after being added to this world
+        for (Plane p : planes) {
+            planeStates.update(p);
+        }
+        buildPlaneGrid();
+
+        final Configuration config = factory.getConfiguration();
+        if (isFastForwardEnabled()) {
+            scheduler = new AgentScheduler(agents, time - 1);
+            scheduler.setGrid(planeGrid);
+        }
+        watchdog = new Watchdog(time, config.getStallTimeout(), duration, config.getMaxTicks(),
+                config.getMaxWallTime());
+        nextCheckpoint = config.getCheckpointEvery();
+
+        time = 0;
+    }
+
+    /**
+     * Runs the simulation from the current tick until it finishes, and then
+     * displays its results.
+     *
+     * @return true if the simulation has been paused before finishing.
+     */
+    private boolean simulate() {
+        final Configuration config = factory.getConfiguration();
+        if (config.getEngine() != Configuration.Engine.SEQUENTIAL) {
+            executor = new PhaseExecutor(config.getEngineThreads(),
+                    config.getEngine() == Configuration.Engine.ACTORS);
+        }
+        shards = null;
+        positionBySlot = null;
+        nextSpatialSort = time;
 
-        for (time=0; time<duration || tasks.size() > 0; time++) {
-            LOG.fine("----------     TICK     ----------");
-            computeStep();
-            displayStep();
+        final long digestEvery = config.getDigestEvery();
+        if (digestEvery > 0) {
+            // Resumed simulations keep appending to the log of the original run
+            openDigests(config.getDigestFile(), time > 0);
+        }
 
-            // TODO: Replace this maximum duration factor by something that detects if tasks are
-            // being completed or not.
-            if (time > duration*10) {
-                System.err.println("It looks like some tasks will never be completed: ");
-                for (Task t : tasks) {
-                    System.err.println("\t" + t);
+        long end = time;
+        long digested = -1;
+        boolean paused = false;
+        stats.startGcReport(time);
+        try {
+            for (; time<duration || tasks.size() > 0; time++) {
+                LOG.fine("----------     TICK     ----------");
+                final long sortEvery = config.getSpatialSortEvery();
+                if (sortEvery > 0 && time >= nextSpatialSort) {
+                    sortSpatially();
+                    nextSpatialSort = time + sortEvery;
+                }
+                computeStep();
+                displayStep();
+
+                abortReason = watchdog.check(time, tasks.size());
+                if (abortReason != null) {
+                    System.err.println("Aborting the simulation at tick " + time
+                            + " (" + abortReason + "), with " + tasks.size()
+                            + " pending tasks: ");
+                    for (Task t : tasks) {
+                        System.err.println("\t" + t);
+                    }
+                    end = time + 1;
+                    break;
+                }
+
+                if (digests != null && (time + 1) % digestEvery == 0) {
+                    digest(time);
+                    digested = time;
+                }
+
+                if (scheduler != null) {
+                    fastForward();
+                }
+                end = time + 1;
+
+                if (nextCheckpoint > 0 && end >= nextCheckpoint) {
+                    // Resumed simulations must report the memory used so far
+                    stats.stopGcReport(end);
+                    checkpoint(config.getCheckpointFile());
+                    stats.startGcReport(end);
+                    nextCheckpoint = end + config.getCheckpointEvery();
+                }
+
+                if (end >= pauseAt && (end < duration || tasks.size() > 0)) {
+                    paused = true;
+                    break;
                 }
-                break;
             }
 
+            if (digests != null && !paused && digested != end - 1) {
+                digest(end - 1);
+            }
+        } finally {
+            // Measured before shutting down the executor, to include the
+            // allocations of its threads
+            stats.stopGcReport(end);
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+            if (!paused) {
+                watchdog = null;
+            }
+            closeDigests();
+        }
+        if (paused) {
+            return true;
+        }
+
+        if (scheduler != null) {
+            scheduler.finish(end);
+            scheduler = null;
         }
 
         for (Plane p : planes) {
             stats.collect(p);
         }
+        displayResults();
+        return false;
+    }
+
+    /**
+     * Writes a checkpoint of this world to the given file.
+     * <p/>
+     * Failing to write a checkpoint does not stop the simulation.
+     *
+     * @param file path of the checkpoint file.
+     */
+    private void checkpoint(String file) {
+        final long start = System.nanoTime();
+        try {
+            Checkpoint.write(this, file);
+            LOG.log(Level.FINE, "Checkpoint written at tick {0} in {1} ms",
+                    new Object[]{time, (System.nanoTime() - start) / 1e6});
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, "Unable to write the checkpoint file \"" + file + "\"", ex);
+        }
+    }
+
+    /**
+     * Opens the log where the state digests are written.
+     * <p/>
+     * Failing to open the log disables the digests, but does not stop the
+     * simulation.
+     *
+     * @param file path of the log.
+     * @param append true to append to an existing log.
+     */
+    private void openDigests(String file, boolean append) {
+        try {
+            digests = new DigestLog.Writer(file, append);
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, "Unable to open the digest log \"" + file + "\"", ex);
+        }
+    }
+
+    /**
+     * Logs the digest of the current state of this world.
+     *
+     * @param tick last tick simulated.
+     */
+    private void digest(long tick) {
+        // Sleeping agents must be brought up to date to get their actual state
+        if (scheduler != null) {
+            scheduler.catchUp(tick + 1);
+        }
+        try {
+            digests.write(tick, planes, tasks.asList());
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, "Unable to write the state digest", ex);
+            closeDigests();
+        }
+    }
+
+    private void closeDigests() {
+        if (digests == null) {
+            return;
+        }
+        try {
+            digests.close();
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, "Unable to close the digest log", ex);
+        }
+        digests = null;
+    }
+
+    /**
+     * Displays the final statistics of the simulation.
+     */
+    protected void displayResults() {
         stats.display();
     }
 
+    @Override
+    public Map<String, Number> getResults() {
+        return stats.getResults();
+    }
+
+    @Override
+    public String getAbortReason() {
+        return abortReason == null ? null : abortReason.toString();
+    }
+
+    @Override
+    public RandomStream getRandom() {
+        return random;
+    }
+
+    /**
+     * Skips all the upcoming ticks in which no agent has anything to do.
+     *
+     * When every agent is sleeping, the simulation time is advanced up to the
+     * tick right before the earliest wake up, so that the next step computed
+     * is that of the wake up itself. This is not possible while some plane
+     * keeps flying in its sleep and sending beacons at every tick, because it
+     * must send them from its new location. The simulation never jumps beyond
+     * its end, nor beyond the next beacon of the sleeping agents that only
+     * send them from time to time, the point where the watchdog would abort
+     * it, where it must be paused or where the next state digest must be
+     * logged.
+     */
+    private void fastForward() {
+        if (!scheduler.getActive().isEmpty() || scheduler.hasBeaconingMovers()) {
+            return;
+        }
+
+        long next = tasks.isEmpty() ? duration : Long.MAX_VALUE;
+        next = Math.min(next, watchdog.getDeadline(tasks.size()));
+        next = Math.min(next, scheduler.getNextWakeUpTime());
+        next = Math.min(next, scheduler.getNextBeaconTime());
+        next = Math.min(next, pauseAt);
+        if (digests != null) {
+            final long every = factory.getConfiguration().getDigestEvery();
+            next = Math.min(next, ((time + 1) / every + 1) * every - 1);
+        }
+        if (next <= time + 1 || next == Long.MAX_VALUE) {
+            return;
+        }
+
+        final long ticks = next - time - 1;
+        LOG.log(Level.FINE, "Fast-forwarding {0} ticks", ticks);
+        time += ticks;
+    }
+
+    /**
+     * Check whether this world may skip the agents (or ticks) that have
+     * nothing to do.
+     *
+     * Skipping idle agents does not change the outcome of the simulation, but
+     * worlds that display every step may want to avoid it.
+     *
+     * @return true if idle agents can be skipped, false otherwise.
+     */
+    protected boolean isFastForwardEnabled() {
+        return true;
+    }
+
     /**
      * Computes a single simulation step (tenths of second).
      *
@@ -214,14 +661,151 @@ public abstract class AbstractWorld implements World {
      */
     protected void computeStep() {
 
-        for (Agent a : agents) {
-            a.preStep();
+        if (scheduler != null) {
+            scheduler.beginStep(time);
         }
-        for (Agent a : agents) {
-            a.step();
+
+        // Planes only know about each other's locations at the end of the
+        // previous tick
+        if (factory.getConfiguration().getNeighborMode() == Configuration.NeighborMode.ORACLE) {
+            if (neighborOracle == null) {
+                neighborOracle = new NeighborOracle(planes);
+            }
+            neighborOracle.update(planeStates, planeGrid);
         }
-        for (Agent a : agents) {
-            a.postStep();
+
+        // Nobody moves during the pre-step and post-step phases, so the
+        // messages sent in them can be delivered all at once at the end of
+        // each phase. This also allows running them in parallel.
+        runPhase(Phase.PRE_STEP);
+
+        if (scheduler == null) {
+            for (Agent a : agents) {
+                a.step();
+            }
+        } else {
+            scheduler.step();
+        }
+
+        runPhase(Phase.POST_STEP);
+
+        if (scheduler != null) {
+            scheduler.endStep();
+        }
+    }
+
+    /**
+     * Runs the given phase for all the agents, and then delivers all the
+     * messages sent by them.
+     *
+     * @param phase phase to run.
+     */
+    private void runPhase(Phase phase) {
+        final List<Agent> running = scheduler == null ? agents : scheduler.getActive();
+
+        deferMessages = true;
+        if (executor == null) {
+            for (Agent a : running) {
+                phase.run(a);
+            }
+        } else {
+            executor.execute(running, phase, getExecutionOrder(running));
+            executor.drainOutboxes(outbox);
+        }
+        deferMessages = false;
+
+        if (phase == Phase.POST_STEP && scheduler != null) {
+            scheduler.collectBeacons(outbox);
+        }
+        flushMessages();
+    }
+
+    /**
+     * Get the order in which the given agents must be run by the executor.
+     * <p/>
+     * Once the planes have been sorted spatially, they are run in that same
+     * order (after all the other agents), so that each chunk handles the
+     * planes of a compact region of the space.
+     *
+     * @param running agents to run.
+     * @return positions of the agents in the order they must be run, or
+     *         <em>null</em> to run them in their current order.
+     */
+    private int[] getExecutionOrder(List<Agent> running) {
+        if (positionBySlot == null) {
+            return null;
+        }
+
+        final int n = running.size();
+        if (executionOrder == null || executionOrder.length < n) {
+            executionOrder = new int[n * 2];
+        }
+        if (positionBySlot.length < planes.size()) {
+            positionBySlot = new int[planes.size() * 2];
+        }
+
+        // Positions are stored plus one, so that zero marks empty slots
+        int k = 0;
+        for (int j=0; j<n; j++) {
+            final Agent a = running.get(j);
+            if (a instanceof Plane) {
+                positionBySlot[planeStates.getSlot(PlaneStates.indexOf((Plane)a))] = j + 1;
+            } else {
+                executionOrder[k++] = j;
+            }
+        }
+        for (int s=0; s<planes.size(); s++) {
+            if (positionBySlot[s] > 0) {
+                executionOrder[k++] = positionBySlot[s] - 1;
+                positionBySlot[s] = 0;
+            }
+        }
+        return executionOrder;
+    }
+
+    /**
+     * Sorts the state of the planes and the spatial index along a Morton
+     * curve, so that nearby planes are also close in memory.
+     * <p/>
+     * Planes are still stepped in order of their ids, and messages are still
+     * delivered in the order they are sent, so this does not change the
+     * outcome of the simulation.
+     */
+    private void sortSpatially() {
+        planeStates.sortSpatially(space);
+        buildPlaneGrid();
+        if (executor != null && positionBySlot == null) {
+            positionBySlot = new int[planes.size()];
+        }
+    }
+
+    /**
+     * Builds the spatial index of planes.
+     *
+     * The cells of the index are as large as the longest communication range,
+     * so that messages only need to be checked against the planes in the
+     * sender's and the neighboring cells. The planes are added in the same
+     * order they are stored in the {@link PlaneStates}, at the locations
+     * given there (so that planes flying while sleeping are not moved).
+     */
+    private void buildPlaneGrid() {
+        double cellSize = 0;
+        for (Plane p : planes) {
+            cellSize = Math.max(cellSize, p.getCommunicationRange());
+        }
+        if (cellSize <= 0) {
+            cellSize = Math.max(1, Math.max(space.getWidth(), space.getHeight()));
+        }
+
+        planeGrid = new SpatialGrid<Plane>(space.getWidth(), space.getHeight(), cellSize);
+        final Location l = new Location(0, 0);
+        for (int s=0; s<planeStates.size(); s++) {
+            final int i = planeStates.getIndex(s);
+            l.setLocation(planeStates.getX(i), planeStates.getY(i));
+            planeGrid.add(planes.get(i), l);
+        }
+        if (scheduler != null) {
+            scheduler.setGrid(planeGrid);
         }
     }
 
@@ -236,7 +820,24 @@ public abstract class AbstractWorld implements World {
     @Override
     public void addPlane(Plane p) {
         planes.add(p);
+        p.setId(planes.size());
+        p.setRandom(random.split("plane").split(p.getId()));
+        planeStates.add(p);
         agents.add(p);
+        if (planeGrid != null) {
+            planeGrid.add(p);
+        }
+        if (scheduler != null) {
+            scheduler.add(p);
+        }
+    }
+
+    @Override
+    public void planeMoved(Plane p) {
+        planeStates.update(p);
+        if (planeGrid != null) {
+            planeGrid.update(p);
+        }
     }
 
     @Override
@@ -244,22 +845,55 @@ public abstract class AbstractWorld implements World {
         return planes;
     }
 
+    @Override
+    public PlaneStates getPlaneStates() {
+        return planeStates;
+    }
+
+    /**
+     * Get the spatial index of the planes.
+     *
+     * @return spatial index of the planes, or <em>null</em> if the
+     *         simulation has not started yet.
+     */
+    SpatialGrid<Plane> getPlaneGrid() {
+        return planeGrid;
+    }
+
+    /**
+     * Get the ids of the threads running the simulation, that is, the
+     * calling thread and the workers of the engine (if any).
+     *
+     * @return ids of the threads running the simulation.
+     */
+    long[] getThreadIds() {
+        final long[] workers = executor == null ? new long[0] : executor.getThreadIds();
+        final long[] ids = Arrays.copyOf(workers, workers.length + 1);
+        ids[workers.length] = Thread.currentThread().getId();
+        return ids;
+    }
+
+    @Override
+    public NeighborOracle getNeighborOracle() {
+        return neighborOracle;
+    }
+
     /**
      * Get the list of tasks.
      *
-     * @return list of pending tasks in this world.
+     * @return read-only list of pending tasks in this world.
      */
     @Override
     public List<Task> getTasks() {
-        return tasks;
+        return tasks.asList();
     }
 
     @Override
     public void addTask(Task task) {
-        if (tasks.contains(task)) {
+        if (!tasks.add(task)) {
             throw new RuntimeException("This task already exists!");
         }
-        tasks.add(task);
+        task.setId(++lastTaskId);
     }
 
     @Override
@@ -267,8 +901,11 @@ public abstract class AbstractWorld implements World {
         // Check if it has been removed before tracking the stats. Sometimes two
         // planes may think that they complete a pending task, whereas in
         // reality another plane has already completed it before (split brain).
-        while (tasks.remove(t)) {
+        if (tasks.remove(t)) {
             stats.collect(t);
+            if (watchdog != null) {
+                watchdog.taskCompleted(time);
+            }
         }
     }
 
@@ -302,15 +939,329 @@ public abstract class AbstractWorld implements World {
 
     @Override
     public void sendMessage(Message message) {
-        final Location origin = message.getSender().getLocation();
-        final double range = message.getSender().getCommunicationRange();
+        if (deferMessages) {
+            defer(message);
+            return;
+        }
 
-        for (Plane p : planes) {
-            if (  origin.distance(p.getLocation()) <= range
-               && (p == message.getRecipient() || message.getRecipient() == null))
-            {
-                p.receive(message);
+        final List<Plane> ps;
+        if (message.getRecipient() != null) {
+            candidates.clear();
+            collectAddressed(message, candidates);
+            ps = candidates;
+        } else if (planeGrid == null) {
+            ps = planes;
+        } else {
+            final MessagingAgent sender = message.getSender();
+            candidates.clear();
+            planeGrid.collect(sender.getLocation(), sender.getCommunicationRange(), candidates);
+            ps = candidates;
+        }
+
+        for (Plane p : ps) {
+            if (isRecipient(message, p)) {
+                deliver(message, p);
+            }
+        }
+    }
+
+    @Override
+    public void sendMessage(Message message, Collection<? extends MessagingAgent> group) {
+        final MulticastMessage multicast = new MulticastMessage(message, group);
+        if (deferMessages) {
+            defer(multicast);
+            return;
+        }
+
+        candidates.clear();
+        collectAddressed(multicast, candidates);
+        for (Plane p : candidates) {
+            deliver(message, p);
+        }
+    }
+
+    /**
+     * Holds the given message in the outbox until the end of the current
+     * step.
+     *
+     * @param message message to hold.
+     */
+    private void defer(Message message) {
+        final List<Message> box = executor == null ? null : executor.getOutbox();
+        (box == null ? outbox : box).add(message);
+    }
+
+    @Override
+    public void wakeUp(Agent agent) {
+        if (scheduler != null) {
+            scheduler.wakeUp(agent);
+        }
+    }
+
+    /**
+     * Wakes up all the sleeping agents at the next tick, so that they
+     * reconsider their next events (for instance, because the configuration
+     * of a forked world has changed).
+     */
+    void wakeUpAll() {
+        if (scheduler == null) {
+            return;
+        }
+        for (Agent a : agents) {
+            scheduler.wakeUp(a);
+        }
+    }
+
+    /**
+     * Delivers a message to the given plane, or holds it if the plane is
+     * sleeping. Messages that the plane does not accept are dropped.
+     *
+     * @param message message to deliver.
+     * @param p recipient.
+     */
+    private void deliver(Message message, Plane p) {
+        if (!p.accepts(message)) {
+            return;
+        }
+        if (scheduler == null || !scheduler.hold(p, message)) {
+            p.receive(message);
+        }
+    }
+
+    /**
+     * Check if the given plane must receive the given message.
+     *
+     * @param message message being delivered.
+     * @param p candidate recipient.
+     * @return True if the plane is in range of the sender and the message is
+     *         either a broadcast or addressed to it.
+     */
+    private boolean isRecipient(Message message, Plane p) {
+        return isInRange(message, p)
+            && (p == message.getRecipient() || message.getRecipient() == null);
+    }
+
+    /**
+     * Check if the given plane is in range of the sender of a message.
+     *
+     * @param message message being delivered.
+     * @param p candidate recipient.
+     * @return True if the plane is in range of the sender.
+     */
+    private boolean isInRange(Message message, Plane p) {
+        final MessagingAgent sender = message.getSender();
+        return planeStates.isInRange(PlaneStates.indexOf(p), sender.getLocation(),
+                sender.getCommunicationRange());
+    }
+
+    /**
+     * Collects the recipients of a message addressed to a specific agent or
+     * group of agents.
+     * <p/>
+     * These recipients are checked directly, without looking them up in the
+     * spatial index.
+     *
+     * @param message message being delivered.
+     * @param out list where to add the recipients.
+     * @return True if the message is addressed, or false if it is a broadcast
+     *         (and hence nothing has been collected).
+     */
+    private boolean collectAddressed(Message message, List<Plane> out) {
+        if (message instanceof MulticastMessage) {
+            final MessagingAgent sender = message.getSender();
+            for (MessagingAgent a : ((MulticastMessage)message).getGroup()) {
+                if (a != sender && a instanceof Plane && isInRange(message, (Plane)a)) {
+                    out.add((Plane)a);
+                }
+            }
+            return true;
+        }
+
+        final MessagingAgent recipient = message.getRecipient();
+        if (recipient == null) {
+            return false;
+        }
+        if (recipient instanceof Plane && isInRange(message, (Plane)recipient)) {
+            out.add((Plane)recipient);
+        }
+        return true;
+    }
+
+    /**
+     * Delivers all the messages held in the outbox.
+     * <p/>
+     * Messages addressed to specific agents are checked against them right
+     * away. Broadcasts are processed sorted by the grid cell of their
+     * senders, so that the candidate recipients are looked up only once per
+     * cell. However, all messages are actually delivered in the same order
+     * they were sent, so every plane receives exactly the same sequence of
+     * messages as if they had been delivered immediately.
+     * <p/>
+     * When running in parallel, the recipients of the broadcasts are computed
+     * by several {@link Shard}s at once.
+     */
+    private void flushMessages() {
+        final int n = outbox.size();
+        if (n == 0) {
+            return;
+        }
+
+        if (sortKeys.length < n) {
+            sortKeys = new long[n*2];
+            recipientsFrom = new int[n*2];
+            recipientsTo = new int[n*2];
+            recipientsShard = new int[n*2];
+        }
+        if (shards == null) {
+            shards = new Shard[executor == null ? 1 : executor.getChunks()];
+            for (int i=0; i<shards.length; i++) {
+                shards[i] = new Shard();
+            }
+        }
+
+        // Compute the recipients of addressed messages, and sort broadcasts
+        final List<Plane> recipients = shards[0].recipients;
+        int nBroadcasts = 0;
+        for (int i=0; i<n; i++) {
+            final Message m = outbox.get(i);
+            recipientsShard[i] = 0;
+            recipientsFrom[i] = recipients.size();
+            if (!collectAddressed(m, recipients)) {
+                final Location origin = m.getSender().getLocation();
+                sortKeys[nBroadcasts++] = ((long)planeGrid.getCell(origin) << 32) | i;
+            }
+            recipientsTo[i] = recipients.size();
+        }
+        Arrays.sort(sortKeys, 0, nBroadcasts);
+
+        // Compute the recipients of each broadcast, one band of rows at a time
+        final int nShards = executor == null ? 1
+                : Math.min(shards.length, nBroadcasts / minShardBroadcasts);
+        if (nShards <= 1) {
+            shards[0].setRange(0, nBroadcasts, 0);
+            shards[0].call();
+        } else {
+            final int columns = planeGrid.getColumns();
+            final List<Shard> running = new ArrayList<Shard>(nShards);
+            int from = 0;
+            for (int k=1; k<=nShards && from < nBroadcasts; k++) {
+                int to = (int)((long)nBroadcasts * k / nShards);
+                // Shards hold whole rows of cells
+                while (to > from && to < nBroadcasts && row(to, columns) == row(to - 1, columns)) {
+                    to++;
+                }
+                if (to > from) {
+                    final Shard shard = shards[running.size()];
+                    shard.setRange(from, to, running.size());
+                    running.add(shard);
+                    from = to;
+                }
+            }
+            executor.run(running);
+        }
+
+        // Deliver them in order
+        for (int i=0; i<n; i++) {
+            Message m = outbox.get(i);
+            if (m instanceof MulticastMessage) {
+                m = ((MulticastMessage)m).getMessage();
+            }
+            final List<Plane> rs = shards[recipientsShard[i]].recipients;
+            for (int j=recipientsFrom[i]; j<recipientsTo[i]; j++) {
+                deliver(m, rs.get(j));
+            }
+        }
+        outbox.clear();
+        for (Shard shard : shards) {
+            shard.recipients.clear();
+        }
+    }
+
+    /**
+     * Sets the minimum number of broadcasts handled by each shard, so that
+     * small worlds can also be sharded.
+     *
+     * @param n minimum number of broadcasts per shard.
+     */
+    void setMinShardBroadcasts(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Shards must handle some broadcast.");
+        }
+        minShardBroadcasts = n;
+    }
+
+    /**
+     * Get the row of the grid cell of the sender of a sorted broadcast.
+     *
+     * @param k position of the broadcast in the sorted keys.
+     * @param columns number of columns of the grid.
+     * @return row of the sender's cell.
+     */
+    private int row(int k, int columns) {
+        return (int)(sortKeys[k] >>> 32) / columns;
+    }
+
+    /**
+     * Horizontal band of the space, in which the recipients of the broadcasts
+     * sent from it are computed.
+     * <p/>
+     * Each shard looks up the candidate recipients of its broadcasts in its
+     * own rows and in those within communication range of them (its ghost
+     * zone), so broadcasts are forwarded to the planes of neighboring shards
+     * too. Planes belong to the shard that holds their current location, so
+     * they migrate between shards as they fly. Shards only read the state of
+     * the world, and their results are then delivered sequentially, so they
+     * can run in parallel without changing the outcome of the simulation.
+     */
+    private class Shard implements Callable<Void> {
+
+        private final ArrayList<Plane> candidates = new ArrayList<Plane>();
+        private final ArrayList<Plane> recipients = new ArrayList<Plane>();
+        private int from;
+        private int to;
+        private int index;
+
+        /**
+         * Set the broadcasts processed by this shard.
+         *
+         * @param from first position (in the sorted keys) of its broadcasts.
+         * @param to position after its last broadcast.
+         * @param index index of this shard.
+         */
+        void setRange(int from, int to, int index) {
+            this.from = from;
+            this.to = to;
+            this.index = index;
+        }
+
+        @Override
+        public Void call() {
+            for (int start=from; start<to;) {
+                final int cell = (int)(sortKeys[start] >>> 32);
+                int end = start, span = 0;
+                while (end < to && (int)(sortKeys[end] >>> 32) == cell) {
+                    final Message m = outbox.get((int)sortKeys[end]);
+                    span = Math.max(span, planeGrid.getSpan(m.getSender().getCommunicationRange()));
+                    end++;
+                }
+
+                candidates.clear();
+                planeGrid.collect(cell, span, candidates);
+                for (int k=start; k<end; k++) {
+                    final int i = (int)sortKeys[k];
+                    final Message m = outbox.get(i);
+                    recipientsShard[i] = index;
+                    recipientsFrom[i] = recipients.size();
+                    for (Plane p : candidates) {
+                        if (isRecipient(m, p)) {
+                            recipients.add(p);
+                        }
+                    }
+                    recipientsTo[i] = recipients.size();
+                }
+                start = end;
             }
+            return null;
         }
     }
 
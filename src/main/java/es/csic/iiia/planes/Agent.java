@@ -37,6 +37,8 @@
  */
 package es.csic.iiia.planes;
 
+import es.csic.iiia.planes.util.RandomStream;
+
 /**
  * Represents an Agent: an {@link Element} that performs some action(s)
  * during the simulation.
@@ -73,4 +75,49 @@ public interface Agent extends Element {
      */
     public void postStep();
 
-}
\ No newline at end of file
+    /**
+     * Get the earliest time at which this agent may need to act again.
+     * <p/>
+     * The answer assumes that nothing else happens to this agent until then.
+     * That is, that it receives no wake-up messages (see
+     * {@link MessagingAgent#isWakeUpMessage}) and no other element changes its
+     * state (see {@link World#wakeUp(Agent)}). The world uses this to put the
+     * agent to sleep, skipping all of its steps until then. Agents that can
+     * not predict their next action must return the next tick (current
+     * time + 1).
+     *
+     * @return earliest time at which this agent may need to act again.
+     */
+    public long getNextEventTime();
+
+    /**
+     * Advance this agent through the given number of ticks, in which it has
+     * been sleeping because it had nothing to do according to
+     * {@link #getNextEventTime()}.
+     * <p/>
+     * After this call, the agent's state must be exactly the same as if it had
+     * been stepped through all those ticks.
+     *
+     * @param ticks number of ticks to skip.
+     */
+    public void fastForward(long ticks);
+
+    /**
+     * Get the random number stream of this agent.
+     * <p/>
+     * Each agent draws from its own stream, split from the stream of its
+     * world, so that the numbers it draws do not depend on the order in which
+     * the agents are run.
+     *
+     * @return random number stream of this agent.
+     */
+    public RandomStream getRandom();
+
+    /**
+     * Set the random number stream of this agent.
+     *
+     * @param random random number stream of this agent.
+     */
+    public void setRandom(RandomStream random);
+
+}
@@ -0,0 +1,765 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import es.csic.iiia.planes.messaging.Message;
+import es.csic.iiia.planes.util.IndexedSet;
+import es.csic.iiia.planes.util.SpatialGrid;
+import es.csic.iiia.planes.util.TimingWheel;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the agents that are awake, putting the other ones to sleep
+ * until they need to act again.
+ * <p/>
+ * At the end of every step, each awake agent is asked for the next time at
+ * which it may need to act (see {@link Agent#getNextEventTime()}). Agents
+ * that have nothing to do at the next tick are put to sleep in a
+ * {@link TimingWheel} until then, and are not stepped at all in the
+ * meantime. Sleeping agents are woken up early when they receive a
+ * wake-up message (see {@link MessagingAgent#isWakeUpMessage(Message)}), or
+ * when another element changes their state (see {@link World#wakeUp(Agent)}).
+ * <p/>
+ * While an agent sleeps, its incoming messages are held here and its beacons
+ * are sent on its behalf, at the times it asks for (see
+ * {@link MessagingAgent#getNextBeaconTime()}). When it wakes up, it is
+ * fast-forwarded through the ticks it has slept, and it receives the messages
+ * held from the previous step, so that it ends up in exactly the same state as
+ * if it had been stepped all along.
+ * <p/>
+ * Planes that fall asleep while flying (see {@link Plane#isFlying()}) are
+ * not moved at every tick either. They fly in a straight line at a constant
+ * speed, so their location can be computed at any time from the number of
+ * ticks flown (see {@link #getPendingMoves(int)}), taking into account whether
+ * their turn in the stepping order has passed. The {@link PlaneStates} compute
+ * it that way, and the planes themselves are only brought up to date when
+ * their own state is read (see {@link #sync(int)}), or when they may cross
+ * into another cell of the world's spatial index. Hence, the other agents
+ * always see them exactly where they would be otherwise.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+class AgentScheduler implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of slots of the timing wheel.
+     */
+    private static final int WHEEL_SLOTS = 1024;
+
+    private final List<Agent> agents;
+    private final Map<Agent, Integer> indices = new IdentityHashMap<Agent, Integer>();
+    private final TimingWheel wheel;
+
+    /**
+     * Sleeping agents that send beacons only from time to time, scheduled at
+     * their next one.
+     */
+    private final TimingWheel beacons;
+
+    /**
+     * Sleeping planes that keep flying, scheduled at the first tick in which
+     * they may leave their cell of the spatial index.
+     */
+    private final TimingWheel crossings;
+    private SpatialGrid<Plane> grid = null;
+
+    /**
+     * Planes that may leave their cell during the current step, in
+     * increasing order, and how many of them have already been moved.
+     */
+    private int[] crossing = new int[16];
+    private int nCrossing = 0;
+    private int crossed = 0;
+
+    /**
+     * Sleeping state of each agent, or <em>null</em> if it is awake.
+     */
+    private Sleeper[] sleepers;
+    private int nSleeping = 0;
+
+    /**
+     * Sleeping agents that send beacons at every tick.
+     */
+    private IndexedSet<Sleeper> beaconing = new IndexedSet<Sleeper>();
+
+    /**
+     * Number of sleeping planes that keep flying and send beacons at every
+     * tick.
+     */
+    private int nBeaconingMovers = 0;
+
+    /**
+     * Indices of the awake agents, in the same order as the list of agents.
+     */
+    private int[] active;
+    private int nActive;
+    private final List<Agent> activeView = new ActiveList();
+
+    /**
+     * Indices of the agents woken up at the beginning of the current step,
+     * and of those whose beacons are due.
+     */
+    private int[] woken = new int[16];
+    private int[] due = new int[16];
+
+    /**
+     * Current time and step number (steps skipped by the world do not count).
+     */
+    private long time;
+    private long step = 0;
+
+    /**
+     * Position of the agent being stepped, or -1 outside the step phase.
+     */
+    private int cursor = -1;
+
+    /**
+     * Index of the agent being stepped. Before the step phase it is -1, and
+     * after it, {@link Integer#MAX_VALUE}. Hence, the agents with a lower
+     * index have already had their turn in the current step.
+     */
+    private int turn = Integer.MAX_VALUE;
+
+    /**
+     * Builds a new scheduler, with all the given agents awake.
+     *
+     * @param agents agents of the world, in stepping order.
+     * @param time current simulation time.
+     */
+    public AgentScheduler(List<Agent> agents, long time) {
+        this.agents = agents;
+        this.time = time;
+        wheel = new TimingWheel(WHEEL_SLOTS, time);
+        beacons = new TimingWheel(WHEEL_SLOTS, time);
+        crossings = new TimingWheel(WHEEL_SLOTS, time);
+        sleepers = new Sleeper[agents.size()];
+        active = new int[agents.size()];
+        for (Agent a : agents) {
+            add(a);
+        }
+    }
+
+    /**
+     * Register an agent added to the world after this scheduler was built.
+     *
+     * @param a agent to register (awake).
+     */
+    public final void add(Agent a) {
+        final int i = indices.size();
+        indices.put(a, i);
+        if (i >= sleepers.length) {
+            sleepers = Arrays.copyOf(sleepers, i * 2 + 1);
+        }
+        if (nActive == active.length) {
+            active = Arrays.copyOf(active, nActive * 2 + 1);
+        }
+        active[nActive++] = i;
+    }
+
+    /**
+     * Get the agents that are awake, in stepping order.
+     *
+     * @return read-only list of the awake agents.
+     */
+    public List<Agent> getActive() {
+        return activeView;
+    }
+
+    /**
+     * Get the earliest time at which some sleeping agent will wake up.
+     *
+     * @return earliest wake up time, or {@link Long#MAX_VALUE} if no agent
+     *         is scheduled to wake up.
+     */
+    public long getNextWakeUpTime() {
+        return wheel.getNextTime();
+    }
+
+    /**
+     * Get the earliest time at which some sleeping agent that does not send
+     * beacons at every tick must send one.
+     *
+     * @return earliest beacon time, or {@link Long#MAX_VALUE} if no such
+     *         beacon is scheduled.
+     */
+    public long getNextBeaconTime() {
+        return beacons.getNextTime();
+    }
+
+    /**
+     * Sets the spatial index where the world keeps the planes, which must
+     * hold the sleeping planes that keep flying in the cells of their current
+     * locations (as given by the {@link PlaneStates}).
+     *
+     * @param grid spatial index of the planes.
+     */
+    public void setGrid(SpatialGrid<Plane> grid) {
+        this.grid = grid;
+        for (int i=0; i<sleepers.length; i++) {
+            if (sleepers[i] != null && sleepers[i].moving) {
+                scheduleCrossing(i);
+            }
+        }
+    }
+
+    /**
+     * Starts a new step, waking up the agents that must act on it.
+     *
+     * @param time time of the step.
+     */
+    public void beginStep(long time) {
+        this.time = time;
+        step++;
+        turn = -1;
+
+        int n = 0;
+        for (int i = wheel.poll(time); i >= 0; i = wheel.poll(time)) {
+            if (n == woken.length) {
+                woken = Arrays.copyOf(woken, n * 2);
+            }
+            woken[n++] = i;
+        }
+        if (n > 0) {
+            resumeWoken(n);
+        }
+
+        // Planes that may have changed cells during the ticks skipped by the
+        // world are moved right away, and the others during the step phase.
+        for (int i = crossings.poll(time - 1); i >= 0; i = crossings.poll(time - 1)) {
+            cross(i);
+        }
+        nCrossing = 0;
+        crossed = 0;
+        for (int i = crossings.poll(time); i >= 0; i = crossings.poll(time)) {
+            if (nCrossing == crossing.length) {
+                crossing = Arrays.copyOf(crossing, nCrossing * 2);
+            }
+            crossing[nCrossing++] = i;
+        }
+        Arrays.sort(crossing, 0, nCrossing);
+    }
+
+    /**
+     * Resume the agents woken up at the beginning of the step, adding them to
+     * the list of active ones.
+     *
+     * @param n number of woken agents.
+     */
+    private void resumeWoken(int n) {
+        Arrays.sort(woken, 0, n);
+        for (int k=0; k<n; k++) {
+            resume(woken[k], false);
+        }
+
+        // Merge the woken agents into the (ordered) list of active ones
+        int[] merged = new int[Math.max(active.length, nActive + n)];
+        int i = 0, j = 0, k = 0;
+        while (i < nActive || j < n) {
+            if (j == n || (i < nActive && active[i] < woken[j])) {
+                merged[k++] = active[i++];
+            } else {
+                merged[k++] = woken[j++];
+            }
+        }
+        active = merged;
+        nActive = k;
+    }
+
+    /**
+     * Runs the step phase of all the awake agents.
+     * <p/>
+     * Agents woken up by {@link #wakeUp(Agent)} during this phase are stepped
+     * too, if their turn has not passed yet. Sleeping planes that may leave
+     * their cell in this step are moved as soon as their turn has passed.
+     */
+    public void step() {
+        try {
+            for (cursor=0; cursor<nActive; cursor++) {
+                turn = active[cursor];
+                crossBefore(turn);
+                agents.get(turn).step();
+            }
+            turn = Integer.MAX_VALUE;
+            crossBefore(turn);
+        } finally {
+            cursor = -1;
+            turn = Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Move the planes that may leave their cell in the current step, and
+     * whose turn is before the given one.
+     *
+     * @param limit index of the agent whose turn has come.
+     */
+    private void crossBefore(int limit) {
+        for (; crossed < nCrossing && crossing[crossed] < limit; crossed++) {
+            cross(crossing[crossed]);
+        }
+    }
+
+    /**
+     * Bring a sleeping plane up to date, so that the world moves it to the
+     * cell of its current location, and schedule its next possible change of
+     * cell.
+     *
+     * @param i index of the plane.
+     */
+    private void cross(int i) {
+        final Sleeper s = sleepers[i];
+        if (s == null || !s.moving) {
+            return;
+        }
+        sync(i);
+        scheduleCrossing(i);
+    }
+
+    /**
+     * Schedule the first tick in which a sleeping plane may leave the cell
+     * of its current location.
+     *
+     * @param i index of the plane.
+     */
+    private void scheduleCrossing(int i) {
+        if (grid == null) {
+            crossings.cancel(i);
+            return;
+        }
+
+        final Location.MoveStep plan = ((AbstractPlane)agents.get(i)).getMoveStep();
+        final int pending = getPendingMoves(i);
+        final long stay = grid.getStepsInCell(plan.getXAfter(pending),
+                plan.getYAfter(pending), plan.incx, plan.incy);
+
+        // First tick whose move has not been accounted for yet
+        final long next = sleepers[i].since + pending;
+        if (stay < Long.MAX_VALUE - next) {
+            crossings.schedule(i, next + stay);
+        } else {
+            crossings.cancel(i);
+        }
+    }
+
+    /**
+     * Get the number of moves that a sleeping plane that keeps flying has
+     * made since it was last brought up to date. This includes the move of
+     * the current step if its turn in the step phase has passed.
+     *
+     * @param i index of the plane.
+     * @return number of moves not applied to the plane yet.
+     */
+    public int getPendingMoves(int i) {
+        final Sleeper s = sleepers[i];
+        if (s == null) {
+            return 0;
+        }
+        final long end = i < turn ? time + 1 : time;
+        return end > s.since ? (int)(end - s.since) : 0;
+    }
+
+    /**
+     * Brings the given agent up to date if it is a sleeping plane that keeps
+     * flying, moving it through all the ticks that it has skipped. This
+     * includes the current one if its turn in the step phase has passed.
+     *
+     * @param i index of the agent.
+     */
+    public void sync(int i) {
+        final Sleeper s = sleepers[i];
+        if (s == null || !s.moving) {
+            return;
+        }
+
+        final long end = i < turn ? time + 1 : time;
+        if (s.since < end) {
+            final long ticks = end - s.since;
+            s.since = end;
+            agents.get(i).fastForward(ticks);
+        }
+    }
+
+    /**
+     * Check whether some sleeping planes keep flying and sending beacons
+     * from their new locations at every tick, and hence the world can not
+     * skip any tick.
+     *
+     * @return True if there are sleeping planes that keep flying and send
+     *         beacons at every tick.
+     */
+    public boolean hasBeaconingMovers() {
+        return nBeaconingMovers > 0;
+    }
+
+    /**
+     * Ends the current step, putting to sleep the agents that have nothing to
+     * do at the next tick.
+     */
+    public void endStep() {
+        int k = 0;
+        for (int j=0; j<nActive; j++) {
+            final int i = active[j];
+            final Agent a = agents.get(i);
+            final boolean flying = a instanceof Plane && ((Plane)a).isFlying();
+            final long next = a.getNextEventTime();
+            if (next <= time + 1 || (flying && !(a instanceof AbstractPlane))) {
+                // Only the planes that know how to catch up with their
+                // flight can sleep while flying
+                active[k++] = i;
+                continue;
+            }
+
+            final Sleeper s = sleep(i, a, next);
+            if (flying) {
+                s.moving = true;
+                ((AbstractPlane)a).setMover(this, i);
+                if (s.repeating) {
+                    nBeaconingMovers++;
+                }
+                scheduleCrossing(i);
+            }
+        }
+        nActive = k;
+    }
+
+    /**
+     * Wake up the given agent, because some other element has changed its
+     * state.
+     * <p/>
+     * If the agent has not had its turn in the current step phase yet, it is
+     * woken up right away. Otherwise, it will be woken up at the next tick.
+     *
+     * @param a agent to wake up.
+     */
+    public void wakeUp(Agent a) {
+        if (nSleeping == 0) {
+            return;
+        }
+        final Integer i = indices.get(a);
+        if (i == null || sleepers[i] == null) {
+            return;
+        }
+
+        if (cursor >= 0 && active[cursor] < i) {
+            wheel.cancel(i);
+            resume(i, true);
+            int pos = Arrays.binarySearch(active, cursor + 1, nActive, i);
+            pos = -pos - 1;
+            if (nActive == active.length) {
+                active = Arrays.copyOf(active, nActive * 2 + 1);
+            }
+            System.arraycopy(active, pos, active, pos + 1, nActive - pos);
+            active[pos] = i;
+            nActive++;
+        } else if (wheel.getTime(i) > time + 1) {
+            wheel.schedule(i, time + 1);
+        }
+    }
+
+    /**
+     * Hold the given message if its recipient is sleeping, waking it up at
+     * the next tick if the message requires so.
+     *
+     * @param recipient recipient of the message.
+     * @param m message being delivered.
+     * @return true if the message has been held, or false if the recipient
+     *         is awake and the message must be delivered to it.
+     */
+    public boolean hold(MessagingAgent recipient, Message m) {
+        if (nSleeping == 0) {
+            return false;
+        }
+        final Integer i = indices.get(recipient);
+        if (i == null || sleepers[i] == null) {
+            return false;
+        }
+
+        final Sleeper s = sleepers[i];
+        s.roll(step);
+        s.current.add(m);
+        if (wheel.getTime(i) > time + 1 && recipient.isWakeUpMessage(m)) {
+            wheel.schedule(i, time + 1);
+        }
+        return true;
+    }
+
+    /**
+     * Add the beacons that the sleeping agents send at this tick to the given
+     * list of messages.
+     *
+     * @param messages list where to append the beacons.
+     */
+    public void collectBeacons(List<Message> messages) {
+        for (Sleeper s : beaconing) {
+            addAll(((MessagingAgent)agents.get(s.index)).getBeacons(), messages);
+        }
+
+        int n = 0;
+        for (int i = beacons.poll(time); i >= 0; i = beacons.poll(time)) {
+            if (n == due.length) {
+                due = Arrays.copyOf(due, n * 2);
+            }
+            due[n++] = i;
+        }
+        Arrays.sort(due, 0, n);
+        for (int k=0; k<n; k++) {
+            final MessagingAgent a = (MessagingAgent)agents.get(due[k]);
+            addAll(a.getBeacons(), messages);
+            final long next = a.getNextBeaconTime();
+            if (next != Long.MAX_VALUE) {
+                beacons.schedule(due[k], Math.max(next, time + 1));
+            }
+        }
+    }
+
+    private static void addAll(List<Message> from, List<Message> to) {
+        for (int i=0, len=from.size(); i<len; i++) {
+            to.add(from.get(i));
+        }
+    }
+
+    /**
+     * Wake up all the sleeping agents at the end of the simulation, so that
+     * their state is up to date.
+     *
+     * @param end time at which the simulation has ended.
+     */
+    public void finish(long end) {
+        time = end;
+        for (int i=0; i<sleepers.length; i++) {
+            final Sleeper s = sleepers[i];
+            if (s != null) {
+                wheel.cancel(i);
+                beacons.cancel(i);
+                crossings.cancel(i);
+                sleepers[i] = null;
+                if (s.moving) {
+                    ((AbstractPlane)agents.get(i)).setMover(null, 0);
+                }
+                if (s.since < end) {
+                    agents.get(i).fastForward(end - s.since);
+                }
+            }
+        }
+        nSleeping = 0;
+        beaconing = new IndexedSet<Sleeper>();
+        nBeaconingMovers = 0;
+        nCrossing = 0;
+    }
+
+    /**
+     * Bring the state of all the sleeping agents up to date, without waking
+     * them up.
+     *
+     * @param end time up to which (not included) the agents are brought up
+     *            to date.
+     */
+    public void catchUp(long end) {
+        if (nSleeping == 0) {
+            return;
+        }
+        for (int i=0; i<sleepers.length; i++) {
+            final Sleeper s = sleepers[i];
+            if (s != null && s.since < end) {
+                // Planes read while moving must already see the new time
+                final long ticks = end - s.since;
+                s.since = end;
+                agents.get(i).fastForward(ticks);
+            }
+        }
+    }
+
+    private Sleeper sleep(int i, Agent a, long until) {
+        final Sleeper s = new Sleeper(i, time + 1, step);
+        if (a instanceof MessagingAgent) {
+            final long beacon = ((MessagingAgent)a).getNextBeaconTime();
+            if (beacon <= time + 1) {
+                s.repeating = true;
+                beaconing.add(s);
+            } else if (beacon != Long.MAX_VALUE) {
+                beacons.schedule(i, beacon);
+            }
+        }
+        sleepers[i] = s;
+        nSleeping++;
+        wheel.schedule(i, until);
+        return s;
+    }
+
+    /**
+     * Bring a sleeping agent up to date and mark it as awake.
+     *
+     * @param i index of the agent.
+     * @param late true if the agent is woken up during the step phase, hence
+     *             after missing its pre-step.
+     */
+    private void resume(int i, boolean late) {
+        final Sleeper s = sleepers[i];
+        sleepers[i] = null;
+        nSleeping--;
+        if (s.repeating) {
+            beaconing.remove(s);
+        } else {
+            beacons.cancel(i);
+        }
+
+        final Agent a = agents.get(i);
+        if (s.moving) {
+            ((AbstractPlane)a).setMover(null, 0);
+            crossings.cancel(i);
+            if (s.repeating) {
+                nBeaconingMovers--;
+            }
+        }
+        a.fastForward(time - s.since);
+        if (!(a instanceof MessagingAgent)) {
+            return;
+        }
+
+        // The messages received by the agent in its last step are only valid
+        // if it is waking up right at the next one.
+        final MessagingAgent ma = (MessagingAgent)a;
+        if (s.lastStep != step - 1) {
+            ma.clearMessages();
+        }
+        s.roll(step);
+        for (Message m : s.previous) {
+            ma.receive(m);
+        }
+        if (late) {
+            a.preStep();
+            for (Message m : s.current) {
+                ma.receive(m);
+            }
+        }
+    }
+
+    /**
+     * State of a sleeping agent.
+     */
+    private static class Sleeper implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Index of the agent.
+         */
+        private final int index;
+
+        /**
+         * True if the agent is a plane that keeps flying.
+         */
+        private boolean moving = false;
+
+        /**
+         * True if the agent sends beacons at every tick.
+         */
+        private boolean repeating = false;
+
+        /**
+         * First tick that the agent has skipped (and not been brought up to
+         * date with).
+         */
+        private long since;
+
+        /**
+         * Last step run by the agent before going to sleep.
+         */
+        private final long lastStep;
+
+        /**
+         * Messages received during the previous and the current steps.
+         */
+        private ArrayList<Message> previous = new ArrayList<Message>();
+        private ArrayList<Message> current = new ArrayList<Message>();
+        private long currentStep = -1;
+
+        public Sleeper(int index, long since, long lastStep) {
+            this.index = index;
+            this.since = since;
+            this.lastStep = lastStep;
+        }
+
+        /**
+         * Advance the held messages to the given step, discarding those
+         * that are too old to be ever delivered.
+         */
+        private void roll(long step) {
+            if (currentStep == step) {
+                return;
+            }
+
+            ArrayList<Message> tmp = previous;
+            tmp.clear();
+            if (currentStep == step - 1) {
+                previous = current;
+                current = tmp;
+            } else {
+                current.clear();
+            }
+            currentStep = step;
+        }
+    }
+
+    /**
+     * Read-only list view of the awake agents.
+     */
+    private class ActiveList extends AbstractList<Agent> implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Agent get(int i) {
+            if (i < 0 || i >= nActive) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + nActive);
+            }
+            return agents.get(active[i]);
+        }
+
+        @Override
+        public int size() {
+            return nActive;
+        }
+
+    }
+
+}
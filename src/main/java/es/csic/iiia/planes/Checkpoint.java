@@ -0,0 +1,119 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Binary checkpoints of running simulations.
+ * <p/>
+ * A checkpoint contains the whole state of a {@link World} (including its
+ * factory and configuration), so that the simulation can be resumed later on
+ * by calling {@link World#resume()}. Checkpoints are streamed to a temporary
+ * file, which then replaces the previous checkpoint. Hence, a crash while
+ * writing never destroys the last valid checkpoint.
+ * <p/>
+ * Agents leave their behaviors and pending messages (which reference other
+ * agents) out of their own serialized form, and the world writes them in a
+ * second flat pass. Hence, serialization does not recurse from each plane to
+ * its neighbors, and the stack depth does not grow with the number of planes.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public final class Checkpoint {
+
+    /**
+     * Size of the buffers used to read and write checkpoints.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private Checkpoint() {}
+
+    /**
+     * Writes a checkpoint of the given world.
+     *
+     * @param world world to save.
+     * @param file path of the checkpoint file.
+     * @throws IOException if the checkpoint could not be written.
+     */
+    public static void write(World world, String file) throws IOException {
+        final File target = new File(file);
+        final File tmp = new File(file + ".tmp");
+
+        ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp), BUFFER_SIZE));
+        try {
+            out.writeObject(world);
+        } finally {
+            out.close();
+        }
+
+        if (!tmp.renameTo(target)) {
+            // Some platforms can not rename over an existing file
+            if (!target.delete() || !tmp.renameTo(target)) {
+                throw new IOException("Unable to replace \"" + file + "\"");
+            }
+        }
+    }
+
+    /**
+     * Reads a world from a checkpoint.
+     *
+     * @param file path of the checkpoint file.
+     * @return world saved in the checkpoint, ready to be resumed.
+     * @throws IOException if the checkpoint could not be read.
+     */
+    public static World read(String file) throws IOException {
+        ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        try {
+            return (World)in.readObject();
+        } catch (ClassNotFoundException ex) {
+            throw new IOException("Invalid checkpoint file \"" + file + "\"", ex);
+        } finally {
+            in.close();
+        }
+    }
+
+}
@@ -45,6 +45,7 @@ import es.csic.iiia.planes.cli.Configuration;
  * @author Marc Pujol <mpujol at iiia.csic.es>
  */
 public class DefaultFactory extends AbstractFactory {
+    private static final long serialVersionUID = 1L;
 
     public DefaultFactory(Configuration config) {
         super(config);
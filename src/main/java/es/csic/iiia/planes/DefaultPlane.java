@@ -47,6 +47,7 @@ import java.util.List;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class DefaultPlane extends AbstractPlane {
+    private static final long serialVersionUID = 1L;
 
     public DefaultPlane(Location location) {
         super(location);
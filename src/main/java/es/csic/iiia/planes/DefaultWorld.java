@@ -43,6 +43,7 @@ package es.csic.iiia.planes;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class DefaultWorld extends AbstractWorld {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Builds a new world, whose elements will be created by the given factory.
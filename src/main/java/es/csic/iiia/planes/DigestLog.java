@@ -0,0 +1,403 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact logs of digests of the state of running simulations.
+ * <p/>
+ * The simulator can append a 64-bit digest of its state (plane positions,
+ * battery levels, task ownership and pending tasks) to a log every few
+ * ticks. Two runs that must give exactly the same results (such as runs with
+ * different engines) can then be checked against each other with
+ * {@link #compare(String, String)}, which points out the first tick and
+ * element where they diverge.
+ * <p/>
+ * Besides the digest of the whole world, each record holds the digests of
+ * the elements that have changed since the previous record of the same
+ * writer: element 0 is the list of pending tasks, and element <em>i</em>
+ * is the plane with id <em>i</em>. Idle planes do not change, so they take
+ * no room in the log. The first record written by each writer holds all the
+ * elements, so simulations resumed from a checkpoint (or forked) can keep
+ * appending to the log of the original run.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public final class DigestLog {
+
+    private static final int MAGIC = 0x4D504447;
+
+    /**
+     * Tags of the entries of a log. Each writer starts with a header holding
+     * the magic number, followed by its records.
+     */
+    private static final byte HEADER = 'H';
+    private static final byte RECORD = 'R';
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private DigestLog() {}
+
+    /**
+     * Mixes the given value into a digest.
+     *
+     * @param h digest.
+     * @param v value to mix.
+     * @return updated digest.
+     */
+    private static long mix(long h, long v) {
+        h ^= v;
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static long mix(long h, double v) {
+        return mix(h, Double.doubleToLongBits(v));
+    }
+
+    /**
+     * Computes the digest of the given plane.
+     *
+     * @param p plane.
+     * @return digest of the plane's state.
+     */
+    static long digest(Plane p) {
+        long h = mix(1, p.getId());
+        final Location l = p.getLocation();
+        h = mix(h, l.getX());
+        h = mix(h, l.getY());
+        h = mix(h, p.getBattery().getEnergy());
+        h = mix(h, p.getState().ordinal());
+        final Task next = p.getNextTask();
+        h = mix(h, next == null ? 0 : next.getId());
+        final List<Task> owned = p.getTasks();
+        h = mix(h, owned.size());
+        for (Task t : owned) {
+            h = mix(h, t.getId());
+        }
+        return h;
+    }
+
+    /**
+     * Computes the digest of the given list of pending tasks.
+     *
+     * @param tasks pending tasks.
+     * @return digest of the tasks.
+     */
+    static long digest(List<Task> tasks) {
+        long h = mix(2, tasks.size());
+        for (Task t : tasks) {
+            h = mix(h, t.getId());
+            h = mix(h, t.getLocation().getX());
+            h = mix(h, t.getLocation().getY());
+        }
+        return h;
+    }
+
+    /**
+     * Get a readable name of the given element.
+     *
+     * @param element index of the element.
+     * @return name of the element.
+     */
+    private static String describe(int element) {
+        return element == 0 ? "pending tasks" : "plane " + element;
+    }
+
+    /**
+     * Compares two digest logs.
+     *
+     * @param file1 path of the first log.
+     * @param file2 path of the second log.
+     * @return description of the first divergence between both logs, or
+     *         null if they are identical.
+     * @throws IOException if some log can not be read.
+     */
+    public static String compare(String file1, String file2) throws IOException {
+        final Reader r1 = new Reader(file1);
+        try {
+            final Reader r2 = new Reader(file2);
+            try {
+                return compare(r1, r2);
+            } finally {
+                r2.close();
+            }
+        } finally {
+            r1.close();
+        }
+    }
+
+    private static String compare(Reader r1, Reader r2) throws IOException {
+        while (true) {
+            final boolean n1 = r1.next();
+            final boolean n2 = r2.next();
+            if (!n1 && !n2) {
+                return null;
+            }
+            if (!n1 || !n2) {
+                final Reader longer = n1 ? r1 : r2;
+                return "Tick " + longer.getTick() + ": only the log \""
+                        + longer.getFile() + "\" goes on.";
+            }
+            if (r1.getTick() != r2.getTick()) {
+                return "Tick " + Math.min(r1.getTick(), r2.getTick())
+                        + ": the logs have records at different ticks ("
+                        + r1.getTick() + " and " + r2.getTick() + ").";
+            }
+            if (r1.getDigest() == r2.getDigest()) {
+                continue;
+            }
+
+            final long[] e1 = r1.getElements();
+            final long[] e2 = r2.getElements();
+            final int n = Math.min(r1.getSize(), r2.getSize());
+            for (int i=0; i<n; i++) {
+                if (e1[i] != e2[i]) {
+                    return "Tick " + r1.getTick() + ": " + describe(i) + " diverges.";
+                }
+            }
+            if (r1.getSize() != r2.getSize()) {
+                return "Tick " + r1.getTick() + ": " + describe(n)
+                        + " only exists in one of the logs.";
+            }
+            return "Tick " + r1.getTick() + ": the world digests differ.";
+        }
+    }
+
+    /**
+     * Appends records to a digest log.
+     */
+    static class Writer {
+
+        private final DataOutputStream out;
+        private long[] last = new long[0];
+        private long[] current = new long[16];
+
+        /**
+         * Opens a digest log for writing.
+         *
+         * @param file path of the log.
+         * @param append true to append to an existing log, or false to
+         *               start a new one.
+         * @throws IOException if the log could not be opened.
+         */
+        Writer(String file, boolean append) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(file, append), BUFFER_SIZE));
+            out.writeByte(HEADER);
+            out.writeInt(MAGIC);
+        }
+
+        /**
+         * Writes the digest of the current state of the given world.
+         *
+         * @param tick last tick simulated.
+         * @param planes planes of the world.
+         * @param tasks pending tasks of the world.
+         * @throws IOException if the record could not be written.
+         */
+        void write(long tick, List<Plane> planes, List<Task> tasks) throws IOException {
+            final int size = planes.size() + 1;
+            if (current.length < size) {
+                current = new long[size * 2];
+            }
+            current[0] = digest(tasks);
+            for (Plane p : planes) {
+                current[p.getId()] = digest(p);
+            }
+
+            long h = mix(3, tick);
+            int changed = 0;
+            for (int i=0; i<size; i++) {
+                h = mix(h, current[i]);
+                if (i >= last.length || current[i] != last[i]) {
+                    changed++;
+                }
+            }
+
+            out.writeByte(RECORD);
+            out.writeLong(tick);
+            out.writeLong(h);
+            out.writeInt(size);
+            out.writeInt(changed);
+            for (int i=0; i<size; i++) {
+                if (i >= last.length || current[i] != last[i]) {
+                    out.writeInt(i);
+                    out.writeLong(current[i]);
+                }
+            }
+
+            if (last.length != size) {
+                last = new long[size];
+            }
+            System.arraycopy(current, 0, last, 0, size);
+        }
+
+        /**
+         * Flushes and closes the log.
+         *
+         * @throws IOException if the log could not be closed.
+         */
+        void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads the records of a digest log, one at a time.
+     * <p/>
+     * Records that do not advance the simulation time (those written again by
+     * a run resumed from an earlier checkpoint) update the digests of the
+     * elements, but are not returned.
+     */
+    public static class Reader {
+
+        private final String file;
+        private final DataInputStream in;
+        private long tick = -1;
+        private long digest;
+        private int size;
+        private long[] elements = new long[16];
+
+        /**
+         * Opens a digest log for reading.
+         *
+         * @param file path of the log.
+         * @throws IOException if the log could not be opened.
+         */
+        public Reader(String file) throws IOException {
+            this.file = file;
+            in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file), BUFFER_SIZE));
+        }
+
+        /**
+         * Advances to the next record of the log.
+         *
+         * @return true if a record has been read, or false at the end of
+         *         the log.
+         * @throws IOException if the log could not be read.
+         */
+        public boolean next() throws IOException {
+            while (true) {
+                final int tag = in.read();
+                if (tag < 0) {
+                    return false;
+                }
+                if (tag == HEADER) {
+                    if (in.readInt() != MAGIC) {
+                        throw new IOException("Invalid digest log \"" + file + "\"");
+                    }
+                    continue;
+                }
+                if (tag != RECORD) {
+                    throw new IOException("Invalid digest log \"" + file + "\"");
+                }
+
+                final long t = in.readLong();
+                digest = in.readLong();
+                size = in.readInt();
+                if (elements.length < size) {
+                    elements = Arrays.copyOf(elements, size * 2);
+                }
+                for (int n = in.readInt(); n > 0; n--) {
+                    final int i = in.readInt();
+                    elements[i] = in.readLong();
+                }
+
+                if (t > tick) {
+                    tick = t;
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * @return the path of this log
+         */
+        public String getFile() {
+            return file;
+        }
+
+        /**
+         * @return the tick of the current record
+         */
+        public long getTick() {
+            return tick;
+        }
+
+        /**
+         * @return the digest of the whole world at the current record
+         */
+        public long getDigest() {
+            return digest;
+        }
+
+        /**
+         * @return the number of elements at the current record
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return the digests of the elements at the current record
+         */
+        public long[] getElements() {
+            return elements;
+        }
+
+        /**
+         * Closes the log.
+         *
+         * @throws IOException if the log could not be closed.
+         */
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+}
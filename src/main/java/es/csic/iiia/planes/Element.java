@@ -37,12 +37,14 @@
  */
 package es.csic.iiia.planes;
 
+import java.io.Serializable;
+
 /**
  * Represents a physical element (participant) of the simulation.
  *
  * @author Marc Pujol <mpujol at iiia.csic.es>
  */
-public interface Element {
+public interface Element extends Serializable {
 
     /**
      * Get the {@link AbstractWorld} (simulation) where this element is participating.
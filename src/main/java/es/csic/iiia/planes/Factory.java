@@ -39,6 +39,7 @@ package es.csic.iiia.planes;
 import es.csic.iiia.planes.cli.Configuration;
 import es.csic.iiia.planes.definition.DTask;
 import es.csic.iiia.planes.maxsum.centralized.CostFactor;
+import java.io.Serializable;
 import java.util.List;
 
 /**
@@ -49,7 +50,7 @@ import java.util.List;
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public interface Factory {
+public interface Factory extends Serializable {
 
     /**
      * Get the configuration object of this simulation.
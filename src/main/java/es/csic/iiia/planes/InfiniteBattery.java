@@ -42,6 +42,7 @@ package es.csic.iiia.planes;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class InfiniteBattery implements Battery {
+    private static final long serialVersionUID = 1L;
 
     @Override
     public void setCapacity(long capacity) {}
@@ -37,7 +37,7 @@
  */
 package es.csic.iiia.planes;
 
-import java.awt.geom.Point2D;
+import java.io.Serializable;
 
 /**
  * Represents a point in the world's space.
@@ -46,7 +46,8 @@ import java.awt.geom.Point2D;
  * @see Space
  * @author Marc Pujol <mpujol at iiia.csic.es>
  */
-public class Location extends Point2D {
+public class Location implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     private double x;
     private double y;
@@ -56,9 +57,9 @@ public class Location extends Point2D {
         this.y = y;
     }
 
-    public Location(Point2D point) {
-        this.x = point.getX();
-        this.y = point.getY();
+    public Location(Location l) {
+        this.x = l.x;
+        this.y = l.y;
     }
 
     /**
@@ -109,7 +110,23 @@ public class Location extends Point2D {
      * @return True if the destination has been reached, or false otherwise.
      */
     public boolean move(MoveStep step) {
-        return step.move();
+        return step.advance(1);
+    }
+
+    /**
+     * Advance several steps at once along a MoveStep plan built with
+     * {@link #buildMoveStep(Location, double)}.
+     * <p/>
+     * The resulting location is exactly the same as if the steps had been
+     * made one by one, because each location along the plan is computed from
+     * its origin rather than from the previous location.
+     *
+     * @param step movestep plan to follow.
+     * @param n number of steps to advance.
+     * @return True if the destination has been reached, or false otherwise.
+     */
+    public boolean move(MoveStep step, int n) {
+        return step.advance(n);
     }
 
     /**
@@ -134,7 +151,6 @@ public class Location extends Point2D {
         return new MoveStep(destination, speed);
     }
 
-    @Override
     public double getX() {
         return x;
     }
@@ -142,7 +158,6 @@ public class Location extends Point2D {
         return (int)x;
     }
 
-    @Override
     public double getY() {
         return y;
     }
@@ -180,13 +195,46 @@ public class Location extends Point2D {
         return Math.atan2(dy, dx);
     }
 
-    @Override
     public void setLocation(double d, double d1) {
         x = d;
         y = d1;
     }
 
-    public class MoveStep {
+    /**
+     * Returns the euclidean distance between this location and the given one.
+     * <p/>
+     * This performs exactly the same operations as
+     * {@code java.awt.geom.Point2D#distance}, so that results do not depend
+     * on which of the two is used.
+     *
+     * @param l location to measure the distance to.
+     * @return distance between both locations.
+     */
+    public double distance(Location l) {
+        double dx = l.x - x;
+        double dy = l.y - y;
+        return Math.sqrt(dx*dx + dy*dy);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof Location) {
+            Location l = (Location)obj;
+            return x == l.x && y == l.y;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(x);
+        bits ^= Double.doubleToLongBits(y) * 31;
+        return (((int) bits) ^ ((int) (bits >> 32)));
+    }
+
+    public class MoveStep implements Serializable {
+        private static final long serialVersionUID = 1L;
+
         public final double dx;
         public final double dy;
         public final double alpha;
@@ -195,8 +243,17 @@ public class Location extends Point2D {
         public final Location destination;
         public int steps;
 
+        /**
+         * Origin of the plan, and number of steps taken since then.
+         */
+        private final double x0;
+        private final double y0;
+        private int taken = 0;
+
         public MoveStep(Location destination, double speed) {
             this.destination = destination;
+            x0 = x;
+            y0 = y;
             dx = destination.x - x;
             dy = destination.y - y;
             alpha = Math.atan2(dy, dx);
@@ -207,17 +264,34 @@ public class Location extends Point2D {
             steps = (int)Math.ceil(distance/speed);
         }
 
-        protected boolean move() {
-            steps--;
-            if (steps <= 0) {
-                x = destination.x;
-                y = destination.y;
-                return true;
-            }
+        /**
+         * Get the x coordinate reached after <em>n</em> more steps along
+         * this plan, without moving.
+         *
+         * @param n number of steps.
+         * @return x coordinate after those steps.
+         */
+        public double getXAfter(int n) {
+            return n >= steps ? destination.x : x0 + (taken + n) * incx;
+        }
 
-            x += incx;
-            y += incy;
-            return false;
+        /**
+         * Get the y coordinate reached after <em>n</em> more steps along
+         * this plan, without moving.
+         *
+         * @param n number of steps.
+         * @return y coordinate after those steps.
+         */
+        public double getYAfter(int n) {
+            return n >= steps ? destination.y : y0 + (taken + n) * incy;
+        }
+
+        protected boolean advance(int n) {
+            x = getXAfter(n);
+            y = getYAfter(n);
+            steps -= n;
+            taken += n;
+            return steps <= 0;
         }
     }
 }
\ No newline at end of file
@@ -37,6 +37,8 @@
 package es.csic.iiia.planes;
 
 import es.csic.iiia.planes.messaging.Message;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * An {@link Agent} that communicates with other agents using message passing.
@@ -68,6 +70,15 @@ public interface MessagingAgent extends Agent, Positioned, Comparable {
      */
     public void send(Message message);
 
+    /**
+     * Send a message to a fixed group of agents.
+     *
+     * @see World#sendMessage(Message, Collection)
+     * @param message message to send.
+     * @param group agents that should receive the message.
+     */
+    public void send(Message message, Collection<? extends MessagingAgent> group);
+
     /**
      * Receive a message issued by another agent.
      *
@@ -77,4 +88,66 @@ public interface MessagingAgent extends Agent, Positioned, Comparable {
      */
     public void receive(Message message);
 
+    /**
+     * Check whether this agent handles the given message at all.
+     * <p/>
+     * The world drops the messages that their recipients do not accept,
+     * instead of delivering them.
+     *
+     * @param message message being delivered.
+     * @return true if this agent may handle the message, false otherwise.
+     */
+    public boolean accepts(Message message);
+
+    /**
+     * Discard all the messages received by this agent that it has not
+     * handled yet.
+     * <p/>
+     * The world uses this when waking up an agent that has slept through the
+     * tick when those messages should have been handled.
+     */
+    public void clearMessages();
+
+    /**
+     * Check whether receiving the given message requires this agent to act
+     * at the next tick, even if it has nothing else to do until then.
+     * <p/>
+     * The world keeps delivering messages to sleeping agents, and wakes them
+     * up when one of these arrives. All other messages received while
+     * sleeping may be discarded, except for those received in the tick just
+     * before the agent wakes up.
+     *
+     * @see Agent#getNextEventTime()
+     * @param message message being received.
+     * @return true if the agent must wake up, false otherwise.
+     */
+    public boolean isWakeUpMessage(Message message);
+
+    /**
+     * Get the beacons that this agent broadcasts at the current tick,
+     * regardless of anything else.
+     * <p/>
+     * The world keeps sending these messages on behalf of the agent while it
+     * is sleeping, at the times given by {@link #getNextBeaconTime()}, so that
+     * other agents can not tell whether it is sleeping or not. Hence, they
+     * must be exactly the same messages that the agent would send during its
+     * {@link #postStep()} if it were stepped, and the agent must account for
+     * them as sent.
+     *
+     * @return list of beacons sent at this tick.
+     */
+    public List<Message> getBeacons();
+
+    /**
+     * Get the earliest time at which this agent may need to send a beacon,
+     * assuming that it sleeps until then (flying straight, if it is a plane
+     * that keeps flying).
+     *
+     * @see #getBeacons()
+     * @return earliest time of the next beacon, the next tick if this agent
+     *         sends beacons at every tick, or {@link Long#MAX_VALUE} if it
+     *         does not send any.
+     */
+    public long getNextBeaconTime();
+
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import es.csic.iiia.planes.messaging.Message;
+import java.util.Collection;
+
+/**
+ * Envelope used by the world to hold a message addressed to a fixed group of
+ * agents until it is delivered.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+final class MulticastMessage implements Message {
+    private static final long serialVersionUID = 1L;
+
+    private final Message message;
+
+    private final Collection<? extends MessagingAgent> group;
+
+    /**
+     * Builds a new envelope.
+     *
+     * @param message message to deliver.
+     * @param group agents that should receive it.
+     */
+    MulticastMessage(Message message, Collection<? extends MessagingAgent> group) {
+        this.message = message;
+        this.group = group;
+    }
+
+    /**
+     * Get the enveloped message.
+     *
+     * @return message to deliver.
+     */
+    public Message getMessage() {
+        return message;
+    }
+
+    /**
+     * Get the agents that should receive the enveloped message.
+     *
+     * @return group of recipients.
+     */
+    public Collection<? extends MessagingAgent> getGroup() {
+        return group;
+    }
+
+    @Override
+    public MessagingAgent getSender() {
+        return message.getSender();
+    }
+
+    @Override
+    public void setSender(MessagingAgent sender) {
+        message.setSender(sender);
+    }
+
+    @Override
+    public MessagingAgent getRecipient() {
+        return null;
+    }
+
+    @Override
+    public void setRecipient(MessagingAgent recipient) {
+        throw new UnsupportedOperationException("Multicast messages have no single recipient.");
+    }
+
+}
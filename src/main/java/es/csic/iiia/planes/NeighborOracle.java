@@ -0,0 +1,282 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import es.csic.iiia.planes.util.SpatialGrid;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * World-maintained table of the neighbors of every plane.
+ * <p/>
+ * The table is rebuilt once per tick from the locations of the planes at the
+ * end of the previous one, which is the same knowledge that the planes get
+ * when tracking each other by exchanging beacons. Each plane has as neighbors
+ * the planes within its communication range (itself included, just like it
+ * hears its own beacons), along with the number of iterations that they are
+ * guaranteed to remain in range:
+ * <pre>
+ *   n = (int)((range - distance) / (speed + neighbor's speed))
+ * </pre>
+ * Only neighbors with a positive horizon are kept, except for the plane itself,
+ * which is always its own neighbor. As in the beacon mode, a plane is only a
+ * neighbor of the planes that are within its own communication range.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class NeighborOracle {
+
+    private final List<Plane> planes;
+
+    /**
+     * Number of planes in the table.
+     */
+    private int size;
+
+    /**
+     * Position of the first neighbor of each plane (by dense index) in
+     * {@link #entries}, plus the end of the last one.
+     */
+    private int[] offsets = new int[1];
+
+    /**
+     * Neighbors of each plane, sorted by decreasing horizon and then by
+     * increasing index. Each entry packs the complement of the horizon in the
+     * high bits and the dense index of the neighbor in the low ones.
+     */
+    private long[] entries = new long[0];
+
+    /**
+     * Candidates collected from the spatial index.
+     */
+    private final ArrayList<Plane> candidates = new ArrayList<Plane>();
+
+    /**
+     * Location of the plane being updated, as given by the plane states (so
+     * that planes flying while sleeping are not moved).
+     */
+    private final Location location = new Location(0, 0);
+
+    /**
+     * Builds a new neighbor oracle.
+     *
+     * @param planes planes of the world, by dense index.
+     */
+    public NeighborOracle(List<Plane> planes) {
+        this.planes = planes;
+    }
+
+    /**
+     * Rebuild the table of neighbors.
+     *
+     * @param states current state of the planes.
+     * @param grid spatial index of the planes, or <em>null</em> to check all
+     *             of them.
+     */
+    public void update(PlaneStates states, SpatialGrid<Plane> grid) {
+        size = states.size();
+        if (offsets.length < size + 1) {
+            offsets = new int[size + 1];
+        }
+
+        int n = 0;
+        for (int i=0; i<size; i++) {
+            offsets[i] = n;
+            final Plane p = planes.get(i);
+            final Location l = location;
+            l.setLocation(states.getX(i), states.getY(i));
+            final double range = p.getCommunicationRange();
+            final double speed = p.getSpeed();
+
+            final List<Plane> ps;
+            if (grid == null) {
+                ps = planes;
+            } else {
+                candidates.clear();
+                grid.collect(l, range, candidates);
+                ps = candidates;
+            }
+
+            boolean self = false;
+            for (int k=0, len=ps.size(); k<len; k++) {
+                final Plane q = ps.get(k);
+                final int j = PlaneStates.indexOf(q);
+                if (j >= size) {
+                    continue;
+                }
+
+                // The beacon of q must reach p, and then p computes the
+                // horizon within its own range
+                final double d = states.getDistance(j, l);
+                if (d > q.getCommunicationRange()) {
+                    continue;
+                }
+                int h = (int)((range - d) / (speed + q.getSpeed()));
+                if (q == p) {
+                    self = true;
+                    if (h <= 0) {
+                        h = Integer.MAX_VALUE;
+                    }
+                } else if (h <= 0) {
+                    continue;
+                }
+
+                if (n == entries.length) {
+                    entries = Arrays.copyOf(entries, n * 2 + 16);
+                }
+                entries[n++] = pack(h, j);
+            }
+
+            if (!self) {
+                if (n == entries.length) {
+                    entries = Arrays.copyOf(entries, n * 2 + 16);
+                }
+                entries[n++] = pack(Integer.MAX_VALUE, i);
+            }
+            Arrays.sort(entries, offsets[i], n);
+        }
+        offsets[size] = n;
+    }
+
+    private static long pack(int horizon, int index) {
+        return ((long)(Integer.MAX_VALUE - horizon) << 32) | index;
+    }
+
+    private static int getHorizon(long entry) {
+        return Integer.MAX_VALUE - (int)(entry >>> 32);
+    }
+
+    private static int getIndex(long entry) {
+        return (int)entry;
+    }
+
+    /**
+     * Check if an agent is guaranteed to remain a neighbor of the given plane
+     * for at least <em>iterations</em> iterations.
+     *
+     * @param p plane.
+     * @param agent candidate neighbor.
+     * @param iterations required number of iterations.
+     * @return True if the agent is such a neighbor, or False otherwise.
+     */
+    public boolean isNeighbor(Plane p, MessagingAgent agent, int iterations) {
+        final int i = PlaneStates.indexOf(p);
+        if (i >= size || !(agent instanceof Plane)) {
+            return false;
+        }
+
+        final int j = PlaneStates.indexOf((Plane)agent);
+        for (int k=offsets[i], end=offsets[i+1]; k<end; k++) {
+            final long e = entries[k];
+            if (getHorizon(e) < iterations) {
+                return false;
+            }
+            if (getIndex(e) == j) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if the given plane has any neighbor for at least the given number
+     * of iterations.
+     *
+     * @param p plane.
+     * @param iterations required number of iterations.
+     * @return True if there are such neighbors, or False otherwise.
+     */
+    public boolean hasNeighbors(Plane p, int iterations) {
+        final int i = PlaneStates.indexOf(p);
+        if (i >= size) {
+            return false;
+        }
+        return getHorizon(entries[offsets[i]]) >= iterations;
+    }
+
+    /**
+     * Get the agents that are guaranteed to remain neighbors of the given
+     * plane for at least <em>iterations</em> iterations, by decreasing
+     * horizon.
+     *
+     * @param p plane.
+     * @param iterations required number of iterations.
+     * @return {@link Iterable} of the agents that remain neighbors.
+     */
+    public Iterable<MessagingAgent> getNeighbors(Plane p, final int iterations) {
+        final int i = PlaneStates.indexOf(p);
+        final int start = i < size ? offsets[i] : 0;
+        int end = start;
+        if (i < size) {
+            while (end < offsets[i+1] && getHorizon(entries[end]) >= iterations) {
+                end++;
+            }
+        }
+
+        final int last = end;
+        return new Iterable<MessagingAgent>() {
+            @Override
+            public Iterator<MessagingAgent> iterator() {
+                return new Iterator<MessagingAgent>() {
+                    private int k = start;
+
+                    @Override
+                    public boolean hasNext() {
+                        return k < last;
+                    }
+
+                    @Override
+                    public MessagingAgent next() {
+                        if (k >= last) {
+                            throw new NoSuchElementException();
+                        }
+                        return planes.get(getIndex(entries[k++]));
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+}
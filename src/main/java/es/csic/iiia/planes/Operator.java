@@ -38,29 +38,26 @@
 package es.csic.iiia.planes;
 
 import es.csic.iiia.planes.definition.DTask;
-import es.csic.iiia.planes.gui.Drawable;
-import es.csic.iiia.planes.gui.graphics.OperatorGraphic;
 import es.csic.iiia.planes.messaging.Message;
 import es.csic.iiia.planes.operator_behavior.OperatorStrategy;
-import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.Graphics2D;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Operator that will be submitting tasks to the UAVs.
  *
  * @author Marc Pujol <mpujol at iiia.csic.es>
  */
-public class Operator extends AbstractMessagingAgent implements Drawable {
+public class Operator extends AbstractMessagingAgent {
+    private static final long serialVersionUID = 1L;
 
-    private static AtomicInteger idGenerator = new AtomicInteger();
-
-    private int id = idGenerator.incrementAndGet();
+    /**
+     * Operator id, set by the world when the operator is added to it.
+     */
+    int id;
 
     /**
      * List of the definitions of all the tasks that this operator will submit
@@ -74,7 +71,7 @@ public class Operator extends AbstractMessagingAgent implements Drawable {
     private int nextTask = 0;
 
     /**
-     * Time step at which the next task has to be submitted.
+     * Time step (tick) at which the next task has to be submitted.
      */
     private long nextTaskTime;
 
@@ -96,13 +93,40 @@ public class Operator extends AbstractMessagingAgent implements Drawable {
      */
     public Operator(Location position, List<DTask> tasks) {
         super(position);
-        this.tasks = tasks;
-        Collections.sort(this.tasks, new TaskSorter());
-        nextTaskTime = this.tasks.get(0).getTime();
+        // Copy the definitions, because they may be shared with other
+        // simulations of the same problem. The sorted copy is never modified
+        // afterwards, so it can be shared by all the forks of this world.
+        final List<DTask> sorted = new ArrayList<DTask>(tasks);
+        Collections.sort(sorted, new TaskSorter());
+        this.tasks = Collections.unmodifiableList(sorted);
     }
 
     @Override
-    public void initialize() {}
+    public void initialize() {
+        nextTaskTime = getReleaseTime(tasks.get(nextTask));
+    }
+
+    /**
+     * Get the first tick at (or after) the submission time of the given task
+     * definition, which is in tenths of second.
+     *
+     * @param task task definition.
+     * @return tick when the task has to be submitted.
+     */
+    private long getReleaseTime(DTask task) {
+        final long length = getWorld().getTickLength();
+        return (task.getTime() + length - 1) / length;
+    }
+
+    /**
+     * Get the (sorted and unmodifiable) definitions of all the tasks that
+     * this operator submits during the simulation.
+     *
+     * @return list of task definitions.
+     */
+    List<DTask> getTaskDefinitions() {
+        return tasks;
+    }
 
     /**
      * Get the strategy used by this operator.
@@ -143,13 +167,12 @@ public class Operator extends AbstractMessagingAgent implements Drawable {
             Task t = createTask(tasks.get(nextTask));
             pendingTasks.add(t);
 
-            tasks.set(nextTask, null);
             nextTask++;
 
             if (nextTask == tasks.size()) {
                 nextTaskTime = Long.MAX_VALUE;
             } else {
-                nextTaskTime = tasks.get(nextTask).getTime();
+                nextTaskTime = getReleaseTime(tasks.get(nextTask));
             }
         }
 
@@ -167,6 +190,26 @@ public class Operator extends AbstractMessagingAgent implements Drawable {
     @Override
     public void postStep() {}
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Operators only act when releasing a new task, or while they still hold
+     * tasks that could not be submitted to any plane.
+     */
+    @Override
+    public long getNextEventTime() {
+        if (!pendingTasks.isEmpty()) {
+            return getWorld().getTime() + 1;
+        }
+        return nextTaskTime;
+    }
+
+    /**
+     * Do nothing, because idle operators have no state to advance.
+     */
+    @Override
+    public void fastForward(long ticks) {}
+
     /**
      * Create a simulation Task from the given Task definition.
      *
@@ -179,38 +222,8 @@ public class Operator extends AbstractMessagingAgent implements Drawable {
         return t;
     }
 
-    private static OperatorGraphic og = new OperatorGraphic();
-    @Override
-    public void draw(Graphics2D g) {
-        int x = getLocation().getXInt();
-        int y = getLocation().getYInt();
-
-        Color previous = g.getColor();
-        int dim = (int)(500 * getWorld().getSpace().getWidth() / 10000f);
-        /*
-        g.setColor(Color.BLUE);
-        int dim = (int)(200 * getWorld().getSpace().getWidth() / 10000f);
-        g.fillOval(x-dim/2, y-dim/2, dim, dim); */
-        og.setDimension(new Dimension(dim,dim));
-        og.paint(g, x-dim/2, y-dim/2);
-
-        g.setColor(new Color(200,200,255,100));
-        final int r = (int)getCommunicationRange();
-        g.fillOval(x-r, y-r, r*2, r*2);
-
-        g.setColor(previous);
-    }
-
     private boolean isPlaneInRange() {
-        final Location l = getLocation();
-
-        for (Plane p : getWorld().getPlanes()) {
-            if (l.getDistance(p.getLocation()) <= getCommunicationRange()) {
-                return true;
-            }
-        }
-
-        return false;
+        return getWorld().getPlaneStates().isAnyInRange(getLocation(), getCommunicationRange());
     }
 
     @Override
@@ -218,6 +231,11 @@ public class Operator extends AbstractMessagingAgent implements Drawable {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
+    @Override
+    public void send(Message message, Collection<? extends MessagingAgent> group) {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
     @Override
     public void receive(Message message) {
         throw new UnsupportedOperationException("Not supported yet.");
@@ -0,0 +1,356 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import es.csic.iiia.planes.messaging.Message;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes the phases of a simulation step by splitting the agents among a
+ * pool of worker threads.
+ * <p/>
+ * The agents are split in contiguous chunks, and each call to
+ * {@link #execute(List, Phase)} only returns after all the chunks have been
+ * processed, hence acting as a barrier between phases.
+ * <p/>
+ * Every chunk has its own outbox, where the world stores the messages sent by
+ * that chunk's agents. Because chunks are contiguous, draining the outboxes in
+ * chunk order yields exactly the same sequence of messages that a sequential
+ * execution would produce.
+ * <p/>
+ * Alternatively, the executor can run each agent as an independent actor.
+ * Then, every agent has its own outbox, and the worker threads take the
+ * agents one at a time from a shared counter until none is left. Hence, a few
+ * threads serve any number of agents, and a slow agent only delays the worker
+ * that runs it instead of a whole chunk. The phase ends once every worker
+ * has acknowledged that no agent is left, and the outboxes are drained in
+ * agent order, so the results are still those of a sequential execution.
+ * <p/>
+ * In both cases, the agents can also be run in a different order than the
+ * one they are given in (for instance, sorted by their location, so that each
+ * chunk handles a compact region of the space). Then every agent has its own
+ * outbox too, so that messages are still drained in agent order.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+class PhaseExecutor {
+
+    /**
+     * Step phases that can be executed in parallel.
+     */
+    enum Phase {
+        PRE_STEP {
+            @Override
+            void run(Agent a) {
+                a.preStep();
+            }
+        },
+        POST_STEP {
+            @Override
+            void run(Agent a) {
+                a.postStep();
+            }
+        };
+
+        abstract void run(Agent a);
+    }
+
+    /**
+     * Number of chunks per thread, to balance the load between threads.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ExecutorService pool;
+    private final WorkerFactory workers = new WorkerFactory();
+    private final int nChunks;
+    private final List<List<Message>> outboxes;
+    private final ThreadLocal<List<Message>> currentOutbox = new ThreadLocal<List<Message>>();
+
+    /**
+     * Number of worker threads, and whether agents are run as actors.
+     */
+    private final int nThreads;
+    private final boolean actors;
+
+    /**
+     * Outboxes of the agents when running them as actors or in a given
+     * order, and number of them used by the last phase.
+     */
+    private final List<List<Message>> agentOutboxes = new ArrayList<List<Message>>();
+    private int nAgentOutboxes = 0;
+
+    /**
+     * Builds a new executor.
+     *
+     * @param nThreads number of worker threads to use.
+     * @param actors true to run each agent as an independent actor, or false
+     *               to split the agents in contiguous chunks.
+     */
+    public PhaseExecutor(int nThreads, boolean actors) {
+        pool = Executors.newFixedThreadPool(nThreads, workers);
+        this.nThreads = nThreads;
+        this.actors = actors;
+        nChunks = nThreads * CHUNKS_PER_THREAD;
+        outboxes = new ArrayList<List<Message>>(nChunks);
+        for (int i=0; i<nChunks; i++) {
+            outboxes.add(new ArrayList<Message>());
+        }
+    }
+
+    /**
+     * Get the number of chunks in which the work of each phase is split.
+     *
+     * @return number of chunks.
+     */
+    public int getChunks() {
+        return nChunks;
+    }
+
+    /**
+     * Executes the given phase for all the agents, returning once all of
+     * them have completed it.
+     *
+     * @param agents agents to run.
+     * @param phase phase to execute.
+     */
+    public void execute(List<Agent> agents, Phase phase) {
+        execute(agents, phase, null);
+    }
+
+    /**
+     * Executes the given phase for all the agents in the given order,
+     * returning once all of them have completed it.
+     *
+     * @param agents agents to run.
+     * @param phase phase to execute.
+     * @param order positions (in the list of agents) of the agents in the
+     *              order they must be run, or <em>null</em> to run them in
+     *              the same order as the list.
+     */
+    public void execute(final List<Agent> agents, final Phase phase, final int[] order) {
+        if (order != null) {
+            useAgentOutboxes(agents.size());
+        }
+        if (actors) {
+            executeActors(agents, phase, order);
+            return;
+        }
+
+        final int n = agents.size();
+        final List<Callable<Void>> chunks = new ArrayList<Callable<Void>>(nChunks);
+        for (int i=0; i<nChunks; i++) {
+            final int from = (int)((long)n * i / nChunks);
+            final int to = (int)((long)n * (i+1) / nChunks);
+            if (from == to) {
+                continue;
+            }
+
+            final List<Message> outbox = outboxes.get(i);
+            chunks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    currentOutbox.set(outbox);
+                    try {
+                        for (int k=from; k<to; k++) {
+                            final int j = order == null ? k : order[k];
+                            if (order != null) {
+                                currentOutbox.set(agentOutboxes.get(j));
+                            }
+                            phase.run(agents.get(j));
+                        }
+                    } finally {
+                        currentOutbox.remove();
+                    }
+                    return null;
+                }
+            });
+        }
+
+        run(chunks);
+    }
+
+    /**
+     * Executes the given phase running each agent as an actor.
+     *
+     * @param agents agents to run.
+     * @param phase phase to execute.
+     * @param order order in which to run the agents, or <em>null</em>.
+     */
+    private void executeActors(final List<Agent> agents, final Phase phase, final int[] order) {
+        final int n = agents.size();
+        useAgentOutboxes(n);
+
+        final AtomicInteger next = new AtomicInteger();
+        final List<Callable<Void>> workers = new ArrayList<Callable<Void>>(nThreads);
+        for (int i=0; i<Math.min(nThreads, n); i++) {
+            workers.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    try {
+                        for (int k = next.getAndIncrement(); k < n; k = next.getAndIncrement()) {
+                            final int j = order == null ? k : order[k];
+                            currentOutbox.set(agentOutboxes.get(j));
+                            phase.run(agents.get(j));
+                        }
+                    } finally {
+                        currentOutbox.remove();
+                    }
+                    return null;
+                }
+            });
+        }
+        run(workers);
+    }
+
+    /**
+     * Prepares one outbox for each of the given number of agents.
+     *
+     * @param n number of agents.
+     */
+    private void useAgentOutboxes(int n) {
+        while (agentOutboxes.size() < n) {
+            agentOutboxes.add(new ArrayList<Message>());
+        }
+        nAgentOutboxes = Math.max(nAgentOutboxes, n);
+    }
+
+    /**
+     * Runs the given tasks in the worker threads, returning once all of them
+     * have completed.
+     *
+     * @param tasks tasks to run.
+     */
+    public void run(List<? extends Callable<Void>> tasks) {
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running the engine workers", ex);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Get the outbox of the chunk being run by the calling thread.
+     *
+     * @return outbox of the current chunk, or <em>null</em> if the calling
+     *         thread is not running any chunk.
+     */
+    public List<Message> getOutbox() {
+        return currentOutbox.get();
+    }
+
+    /**
+     * Moves the messages of all the outboxes to the given list, in chunk (or
+     * agent) order.
+     *
+     * @param messages list where to append the messages.
+     */
+    public void drainOutboxes(List<Message> messages) {
+        for (List<Message> outbox : outboxes) {
+            messages.addAll(outbox);
+            outbox.clear();
+        }
+        for (int i=0; i<nAgentOutboxes; i++) {
+            final List<Message> outbox = agentOutboxes.get(i);
+            if (!outbox.isEmpty()) {
+                messages.addAll(outbox);
+                outbox.clear();
+            }
+        }
+        nAgentOutboxes = 0;
+    }
+
+    /**
+     * Get the ids of the worker threads started so far.
+     *
+     * @return ids of the worker threads.
+     */
+    public long[] getThreadIds() {
+        synchronized (workers.threads) {
+            long[] ids = new long[workers.threads.size()];
+            for (int i=0; i<ids.length; i++) {
+                ids[i] = workers.threads.get(i).getId();
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Builds daemon worker threads, so that they never keep the simulator
+     * alive on their own.
+     */
+    private static class WorkerFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        private final List<Thread> threads = new ArrayList<Thread>();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "engine-worker-" + count.incrementAndGet());
+            t.setDaemon(true);
+            synchronized (threads) {
+                threads.add(t);
+            }
+            return t;
+        }
+    }
+
+}
@@ -38,10 +38,7 @@ package es.csic.iiia.planes;
 
 import es.csic.iiia.planes.definition.DPlane;
 import es.csic.iiia.planes.evaluation.EvaluationStrategy;
-import es.csic.iiia.planes.gui.Drawable;
-import es.csic.iiia.planes.gui.PlaneDrawer;
 import es.csic.iiia.planes.idle.IdleStrategy;
-import java.awt.Color;
 import java.util.List;
 
 /**
@@ -65,6 +62,16 @@ public interface Plane extends MessagingAgent {
      */
     public int getId();
 
+    /**
+     * Sets the plane's id.
+     *
+     * This is done by the {@link World} when the plane is added to it, so
+     * that identifiers are unique within each simulation.
+     *
+     * @param id the id.
+     */
+    public void setId(int id);
+
     /**
      * Get the state of this plane.
      *
@@ -188,6 +195,17 @@ public interface Plane extends MessagingAgent {
      */
     public boolean move();
 
+    /**
+     * Check whether this plane is flying in a straight line towards its
+     * destination, either to fulfill a task or to recharge.
+     * <p/>
+     * Flying planes keep moving (once per tick, see {@link #move()}) even
+     * while they sleep.
+     *
+     * @return True if the plane is flying, or False otherwise.
+     */
+    public boolean isFlying();
+
     /***************************************************************************
      * STATISTICS TRACKING
      **************************************************************************/
@@ -241,19 +259,12 @@ public interface Plane extends MessagingAgent {
     public Task getNextTask();
 
     /**
-     * Get the drawer for this plane.
-     */
-    public Drawable getDrawer();
-
-    /**
-     * Get the drawer for this plane.
-     */
-    public void setDrawer(PlaneDrawer drawer);
-
-    /**
-     * Get the plane's color.
+     * Get the plane's color, as an int array of RGB values in the range
+     * 0-255.
+     *
+     * @see #setColor(int[])
      */
-    public Color getColor();
+    public int[] getColor();
 
     /**
      * Set the plane's color, used when drawing the GUI.
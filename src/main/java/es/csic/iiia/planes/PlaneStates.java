@@ -0,0 +1,390 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import es.csic.iiia.planes.util.MortonCode;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Structure-of-arrays copy of the kinematic state of all the planes in a
+ * world.
+ * <p/>
+ * Planes keep their own state, but write it through to this store whenever
+ * it changes. The store keeps it in flat arrays of primitives, so that the
+ * queries that scan all the planes (such as range checks or nearest plane
+ * searches) run as tight loops without chasing references. Planes are always
+ * referred to by their dense index (their id minus one), but they can be
+ * stored in a different order. In particular, {@link #sortSpatially(Space)}
+ * stores them along a Morton (Z-order) curve, so that planes that are close
+ * in space are also close in memory. The results of all the queries are
+ * independent of the storage order.
+ * <p/>
+ * Distances are computed exactly as {@link Location#distance(Location)}
+ * does, so these queries always agree with the locations of the planes.
+ * <p/>
+ * Planes that sleep while flying (see {@link AgentScheduler}) are not moved
+ * at every tick. Instead, this store keeps their flight plans, and computes
+ * their current locations from the number of moves they have made since they
+ * were last brought up to date, without moving them.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class PlaneStates implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int size = 0;
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private double[] speed = new double[0];
+
+    /**
+     * Flight plan of each sleeping plane that keeps flying (or <em>null</em>),
+     * along with the scheduler that tracks its moves and its index there.
+     */
+    private Location.MoveStep[] plans = new Location.MoveStep[0];
+    private int[] movers = new int[0];
+    private AgentScheduler scheduler;
+
+    /**
+     * Position where each plane is stored (by dense index), and dense index
+     * of the plane stored at each position.
+     */
+    private int[] slots = new int[0];
+    private int[] indices = new int[0];
+
+    /**
+     * True while the planes are stored in order of their dense indices.
+     */
+    private boolean ordered = true;
+
+    /**
+     * Get the dense index of the given plane in this store.
+     *
+     * @param p plane.
+     * @return index of the plane.
+     */
+    public static int indexOf(Plane p) {
+        return p.getId() - 1;
+    }
+
+    /**
+     * Get the number of planes in this store.
+     *
+     * @return number of planes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a plane to this store, which must be the plane with the next
+     * index.
+     *
+     * @param p plane to add.
+     */
+    public void add(Plane p) {
+        final int i = indexOf(p);
+        if (i != size) {
+            throw new IllegalArgumentException("Planes must be added in order of their ids.");
+        }
+
+        if (size == x.length) {
+            final int capacity = size * 2 + 1;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            speed = Arrays.copyOf(speed, capacity);
+            plans = Arrays.copyOf(plans, capacity);
+            movers = Arrays.copyOf(movers, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+            indices = Arrays.copyOf(indices, capacity);
+        }
+        slots[i] = i;
+        indices[i] = i;
+        size++;
+        update(p);
+    }
+
+    /**
+     * Get the position where the given plane is stored.
+     *
+     * @param i index of the plane.
+     * @return position of the plane, between 0 and {@link #size()}-1.
+     */
+    public int getSlot(int i) {
+        return slots[i];
+    }
+
+    /**
+     * Get the index of the plane stored at the given position.
+     *
+     * @param slot position.
+     * @return index of the plane stored there.
+     */
+    public int getIndex(int slot) {
+        return indices[slot];
+    }
+
+    /**
+     * Stores the planes sorted by the Morton code of their locations in the
+     * given space, breaking ties by their indices.
+     * <p/>
+     * This only changes the storage order, so it can be done at any time.
+     * Because planes move slowly, they are usually almost sorted already, but
+     * this is still a full sort, so it should not be done at every tick.
+     *
+     * @param space space where the planes fly.
+     */
+    public void sortSpatially(Space space) {
+        final double width = space.getWidth(), height = space.getHeight();
+        final long[] keys = new long[size];
+        for (int s=0; s<size; s++) {
+            keys[s] = (MortonCode.encode(getSlotX(s), getSlotY(s), width, height) << 31) | indices[s];
+        }
+        Arrays.sort(keys);
+
+        final int capacity = x.length;
+        final double[] nx = new double[capacity], ny = new double[capacity];
+        final double[] nspeed = new double[capacity];
+        final Location.MoveStep[] nplans = new Location.MoveStep[capacity];
+        final int[] nmovers = new int[capacity];
+        ordered = true;
+        for (int s=0; s<size; s++) {
+            final int i = (int)(keys[s] & Integer.MAX_VALUE);
+            final int from = slots[i];
+            nx[s] = x[from];
+            ny[s] = y[from];
+            nspeed[s] = speed[from];
+            nplans[s] = plans[from];
+            nmovers[s] = movers[from];
+            indices[s] = i;
+            ordered &= i == s;
+        }
+        for (int s=0; s<size; s++) {
+            slots[indices[s]] = s;
+        }
+        x = nx;
+        y = ny;
+        speed = nspeed;
+        plans = nplans;
+        movers = nmovers;
+    }
+
+    /**
+     * Copies the current state of the given plane into this store.
+     *
+     * @param p plane whose state has changed.
+     */
+    public void update(Plane p) {
+        final int index = indexOf(p);
+        if (index < 0 || index >= size) {
+            // Not added to this store yet
+            return;
+        }
+
+        final int i = slots[index];
+        final Location l = p.getLocation();
+        x[i] = l.getX();
+        y[i] = l.getY();
+        speed[i] = p.getSpeed();
+    }
+
+    /**
+     * Sets the flight plan of a plane that sleeps while flying, so that its
+     * location is computed from the moves it makes until it is brought up to
+     * date again.
+     *
+     * @param p plane.
+     * @param plan plan that the plane follows, or <em>null</em> when the
+     *             plane is moved at every tick again.
+     * @param scheduler scheduler that tracks the moves of the plane.
+     * @param index index of the plane in that scheduler.
+     */
+    void setMover(Plane p, Location.MoveStep plan, AgentScheduler scheduler, int index) {
+        final int i = indexOf(p);
+        if (i < 0 || i >= size) {
+            return;
+        }
+
+        final int s = slots[i];
+        plans[s] = plan;
+        movers[s] = index;
+        if (plan != null) {
+            this.scheduler = scheduler;
+        }
+    }
+
+    private double getSlotX(int s) {
+        final Location.MoveStep plan = plans[s];
+        return plan == null ? x[s] : plan.getXAfter(scheduler.getPendingMoves(movers[s]));
+    }
+
+    private double getSlotY(int s) {
+        final Location.MoveStep plan = plans[s];
+        return plan == null ? y[s] : plan.getYAfter(scheduler.getPendingMoves(movers[s]));
+    }
+
+    public double getX(int i) {
+        return getSlotX(slots[i]);
+    }
+
+    public double getY(int i) {
+        return getSlotY(slots[i]);
+    }
+
+    public double getSpeed(int i) {
+        return speed[slots[i]];
+    }
+
+    /**
+     * Get the distance between the given location and a plane.
+     *
+     * @param i index of the plane.
+     * @param l location.
+     * @return distance between them.
+     */
+    public double getDistance(int i, Location l) {
+        final int s = slots[i];
+        final double dx = l.getX() - getSlotX(s);
+        final double dy = l.getY() - getSlotY(s);
+        return Math.sqrt(dx*dx + dy*dy);
+    }
+
+    /**
+     * Check whether a plane is within the given range of a location.
+     *
+     * @param i index of the plane.
+     * @param origin location.
+     * @param range maximum distance.
+     * @return true if the plane is in range.
+     */
+    public boolean isInRange(int i, Location origin, double range) {
+        return getDistance(i, origin) <= range;
+    }
+
+    /**
+     * Check whether any plane is within the given range of a location.
+     *
+     * @param origin location.
+     * @param range maximum distance.
+     * @return true if some plane is in range.
+     */
+    public boolean isAnyInRange(Location origin, double range) {
+        final double ox = origin.getX(), oy = origin.getY();
+        for (int s=0; s<size; s++) {
+            final double dx = ox - getSlotX(s);
+            final double dy = oy - getSlotY(s);
+            if (Math.sqrt(dx*dx + dy*dy) <= range) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects the indices of all the planes within the given range of a
+     * location, in increasing order.
+     *
+     * @param origin location.
+     * @param range maximum distance.
+     * @param out array where to store the indices, which must be able to
+     *            hold {@link #size()} elements.
+     * @return number of planes in range.
+     */
+    public int collectInRange(Location origin, double range, int[] out) {
+        final double ox = origin.getX(), oy = origin.getY();
+        int n = 0;
+        for (int s=0; s<size; s++) {
+            final double dx = ox - getSlotX(s);
+            final double dy = oy - getSlotY(s);
+            if (Math.sqrt(dx*dx + dy*dy) <= range) {
+                out[n++] = indices[s];
+            }
+        }
+        if (!ordered) {
+            Arrays.sort(out, 0, n);
+        }
+        return n;
+    }
+
+    /**
+     * Get the plane nearest to the given location. Ties are broken in favor
+     * of the plane with the lowest index.
+     *
+     * @param l location.
+     * @return index of the nearest plane, or -1 if there are no planes.
+     */
+    public int getNearest(Location l) {
+        return getNearest(l, l, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Get the plane nearest to the given location, among those within the
+     * given range of another location. Ties are broken in favor of the
+     * plane with the lowest index.
+     *
+     * @param l location.
+     * @param origin location that planes must be in range of.
+     * @param range maximum distance to the origin.
+     * @return index of the nearest plane, or -1 if no plane is in range.
+     */
+    public int getNearest(Location l, Location origin, double range) {
+        final double lx = l.getX(), ly = l.getY();
+        final double ox = origin.getX(), oy = origin.getY();
+
+        double mind = Double.MAX_VALUE;
+        int nearest = -1;
+        for (int s=0; s<size; s++) {
+            final double px = getSlotX(s), py = getSlotY(s);
+            final double ex = ox - px;
+            final double ey = oy - py;
+            if (Math.sqrt(ex*ex + ey*ey) > range) {
+                continue;
+            }
+
+            final double dx = lx - px;
+            final double dy = ly - py;
+            final double d = Math.sqrt(dx*dx + dy*dy);
+            if (d < mind || (d == mind && indices[s] < nearest)) {
+                mind = d;
+                nearest = indices[s];
+            }
+        }
+        return nearest;
+    }
+
+}
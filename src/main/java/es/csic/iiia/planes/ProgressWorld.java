@@ -38,6 +38,8 @@ package es.csic.iiia.planes;
 
 import es.csic.iiia.planes.definition.DProblem;
 import es.csic.iiia.planes.util.FrameTracker;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
@@ -47,20 +49,21 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class ProgressWorld extends AbstractWorld {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Queue used to hold percentages of completion until they are ready
      * to be displayed.
      */
-    private ConcurrentLinkedQueue<Double> progressQueue =
+    private transient ConcurrentLinkedQueue<Double> progressQueue =
             new ConcurrentLinkedQueue<Double>();
 
     /**
      * Runnable that will keep printing the progress
      */
-    private ShowProgress progress = new ShowProgress();
+    private transient ShowProgress progress = new ShowProgress();
 
-    private final FrameTracker ftracker = new FrameTracker(24);
+    private transient FrameTracker ftracker = new FrameTracker(24);
 
     /**
      * Builds a new world, whose elements will be created by the given factory.
@@ -91,6 +94,49 @@ public class ProgressWorld extends AbstractWorld {
         }
     }
 
+    @Override
+    public void resume() {
+        progress = new ShowProgress();
+        new Thread(progress).start();
+
+        try {
+            super.resume();
+        } catch (Exception e) {
+            System.err.println();
+            e.printStackTrace();
+        } finally {
+            progressQueue.clear();
+            progress.stop();
+        }
+    }
+
+    @Override
+    public boolean runUntil(long tick) {
+        // The progress is already being shown when running for the first time
+        if (progress.isStop()) {
+            progress = new ShowProgress();
+            new Thread(progress).start();
+        }
+
+        try {
+            return super.runUntil(tick);
+        } catch (Exception e) {
+            System.err.println();
+            e.printStackTrace();
+            return false;
+        } finally {
+            progressQueue.clear();
+            progress.stop();
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        progressQueue = new ConcurrentLinkedQueue<Double>();
+        progress = new ShowProgress();
+        ftracker = new FrameTracker(24);
+    }
+
     /**
      * Shows the simulation progress.
      * <p/>
@@ -37,7 +37,7 @@
  */
 package es.csic.iiia.planes;
 
-import java.awt.Dimension;
+import java.io.Serializable;
 
 /**
  * Represents the physical space covered by the planes.
@@ -46,7 +46,9 @@ import java.awt.Dimension;
  */
 
 
-public class Space {
+public class Space implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private int width;
     private int height;
 
@@ -55,14 +57,10 @@ public class Space {
         height = h;
     }
 
-    public Dimension getDimension() {
-        return new Dimension(width, height);
-    }
-
-    int getWidth() {
+    public int getWidth() {
         return width;
     }
-    int getHeight() {
+    public int getHeight() {
         return height;
     }
 }
\ No newline at end of file
@@ -36,24 +36,18 @@
  */
 package es.csic.iiia.planes;
 
-import es.csic.iiia.planes.gui.Drawable;
-import es.csic.iiia.planes.gui.graphics.StationGraphic;
-import java.awt.BasicStroke;
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.Stroke;
-import java.awt.geom.AffineTransform;
-import java.util.concurrent.atomic.AtomicInteger;
-
 /**
  * Recharging station, where planes can go to refill their batteries.
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public class Station extends AbstractPositionedElement implements Drawable {
+public class Station extends AbstractPositionedElement {
+    private static final long serialVersionUID = 1L;
 
-    final private static AtomicInteger idGenerator = new AtomicInteger();
-    final int id = idGenerator.incrementAndGet();
+    /**
+     * Station id, set by the world when the station is added to it.
+     */
+    int id;
 
     /**
      * Default constructor.
@@ -69,43 +63,4 @@ public class Station extends AbstractPositionedElement implements Drawable {
     @Override
     public void initialize() {}
 
-    @Override
-    public void draw(Graphics2D g) {
-        int x = getLocation().getXInt();
-        int y = getLocation().getYInt();
-        Color previousColor = g.getColor();
-        Stroke previousStroke = g.getStroke();
-        AffineTransform previousTransform = g.getTransform();
-
-        // The background circle
-        double xscale = getWorld().getSpace().getWidth() / 10000;
-        double yscale = getWorld().getSpace().getHeight() / 10000;
-        g.setColor(Color.DARK_GRAY);
-        g.setStroke(new BasicStroke(40f));
-        int width  = scale(500, xscale);
-        int height = scale(500, yscale);
-        g.fillOval(x-width/2,y-height/2, width, height);
-
-        // The inner circle
-        width  = scale(380, xscale);
-        height = scale(380, yscale);
-        g.setColor(new Color(255,210,0));
-        g.drawOval(x-width/2,y-height/2, width, height);
-
-        // The power graphic
-        AffineTransform t = new AffineTransform(previousTransform);
-        t.translate(x-width/2, y-width/2);
-        t.scale(width, height);
-        g.setTransform(t);
-        g.fill(StationGraphic.getImage());
-
-        g.setTransform(previousTransform);
-        g.setColor(previousColor);
-        g.setStroke(previousStroke);
-    }
-
-    private int scale(int size, double scale) {
-        return (int)(size*scale);
-    }
-
 }
\ No newline at end of file
@@ -36,52 +36,154 @@
  */
 package es.csic.iiia.planes;
 
+import es.csic.iiia.planes.util.GcTracker;
 import es.csic.iiia.planes.util.TimeTracker;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
 /**
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-class StatsCollector {
+class StatsCollector implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     private AbstractWorld world;
     private DescriptiveStatistics taskStats = new DescriptiveStatistics();
     private DescriptiveStatistics planeStats = new DescriptiveStatistics();
 
+    /**
+     * Ticks simulated while measuring the memory usage, and the garbage
+     * collections, time spent in them (ms) and bytes allocated during them.
+     * <p/>
+     * Only the allocations of the threads running the simulation are
+     * measured, whereas garbage collections are those of the whole virtual
+     * machine.
+     */
+    private long gcTicks;
+    private long gcCount;
+    private long gcTime;
+    private long gcAllocated;
+
+    /**
+     * Tick and memory counters when the current measurement started, or
+     * <em>null</em> if it is not being measured.
+     */
+    private transient long[] gcStart;
+
     public StatsCollector(AbstractWorld w) {
         world = w;
     }
 
     public void collect(Task t) {
+        // Report times in tenths of second, regardless of the tick length
         final long time = world.getTime() - t.getSubmissionTime();
-        taskStats.addValue(time);
+        taskStats.addValue(time * world.getTickLength());
     }
 
     public void collect(Plane p) {
         planeStats.addValue(p.getTotalDistance());
     }
 
+    /**
+     * Start measuring the memory usage of the simulation, if the gc report
+     * is enabled.
+     *
+     * @param start tick where the simulation starts.
+     */
+    public void startGcReport(long start) {
+        if (!world.getFactory().getConfiguration().isGcReport()) {
+            return;
+        }
+        gcStart = new long[]{start, GcTracker.getCollectionCount(),
+            GcTracker.getCollectionTime(),
+            GcTracker.getAllocatedBytes(world.getThreadIds())};
+    }
+
+    /**
+     * Stop measuring the memory usage of the simulation, adding it to that of
+     * its previous runs (before being paused or checkpointed).
+     *
+     * @param end tick where the simulation has stopped.
+     */
+    public void stopGcReport(long end) {
+        if (gcStart == null) {
+            return;
+        }
+        gcTicks += end - gcStart[0];
+        gcCount += GcTracker.getCollectionCount() - gcStart[1];
+        gcTime += GcTracker.getCollectionTime() - gcStart[2];
+        final long allocated = GcTracker.getAllocatedBytes(world.getThreadIds());
+        if (allocated < 0 || gcStart[3] < 0 || gcAllocated < 0) {
+            gcAllocated = -1;
+        } else {
+            gcAllocated += allocated - gcStart[3];
+        }
+        gcStart = null;
+    }
+
+    /**
+     * Get the final statistics, in display order.
+     *
+     * @return map of statistic names to their values.
+     */
+    public Map<String, Number> getResults() {
+        Map<String, Number> results = new LinkedHashMap<String, Number>();
+        results.put("task_min", (int)taskStats.getMin());
+        results.put("task_mean", (int)taskStats.getMean());
+        results.put("task_max", (int)taskStats.getMax());
+        results.put("task_p25", (int)taskStats.getPercentile(25));
+        results.put("task_median", (int)taskStats.getPercentile(50));
+        results.put("task_p75", (int)taskStats.getPercentile(75));
+
+        results.put("plane_min", (long)(planeStats.getMin()/1000));
+        results.put("plane_mean", (long)(planeStats.getMean()/1000));
+        results.put("plane_max", (long)(planeStats.getMax()/1000));
+        results.put("plane_p25", (long)(planeStats.getPercentile(25)/1000));
+        results.put("plane_median", (long)(planeStats.getPercentile(50)/1000));
+        results.put("plane_p75", (long)(planeStats.getPercentile(75)/1000));
+
+        // Partial results of aborted simulations do not include these tasks
+        if (world.getAbortReason() != null) {
+            results.put("pending", world.getTasks().size());
+        }
+
+        // Memory usage, with the allocation rate in bytes per tick
+        if (world.getFactory().getConfiguration().isGcReport()) {
+            results.put("gc_count", gcCount);
+            results.put("gc_time", gcTime);
+            if (gcAllocated >= 0) {
+                results.put("gc_allocated", gcAllocated / (1024 * 1024));
+                results.put("gc_rate", gcTicks == 0 ? 0 : gcAllocated / gcTicks);
+            }
+        }
+
+        results.put("time", TimeTracker.getUserTime()/1e6d);
+        return results;
+    }
+
     public void display() {
-        // Final stats
+        // Final stats, with a blank line between each group of them
         StringBuilder buf = new StringBuilder();
-        buf.append("task_min=").append((int)taskStats.getMin()).append("\n")
-           .append("task_mean=").append((int)taskStats.getMean()).append("\n")
-           .append("task_max=").append((int)taskStats.getMax()).append("\n")
-           .append("task_p25=").append((int)taskStats.getPercentile(25)).append("\n")
-           .append("task_median=").append((int)taskStats.getPercentile(50)).append("\n")
-           .append("task_p75=").append((int)taskStats.getPercentile(75)).append("\n")
-        .append("\n");
-
-        buf.append("plane_min=").append((long)(planeStats.getMin()/1000)).append("\n")
-           .append("plane_mean=").append((long)(planeStats.getMean()/1000)).append("\n")
-           .append("plane_max=").append((long)(planeStats.getMax()/1000)).append("\n")
-           .append("plane_p25=").append((long)(planeStats.getPercentile(25)/1000)).append("\n")
-           .append("plane_median=").append((long)(planeStats.getPercentile(50)/1000)).append("\n")
-           .append("plane_p75=").append((long)(planeStats.getPercentile(75)/1000)).append("\n")
-           .append("\n");
-
-        buf.append("time=").append(TimeTracker.getUserTime()/1e6d);
+        String group = null;
+        for (Map.Entry<String, Number> e : getResults().entrySet()) {
+            final String key = e.getKey();
+            final int separator = key.indexOf('_');
+            final String g = separator < 0 ? key : key.substring(0, separator);
+            if (group != null) {
+                buf.append("\n");
+                if (!group.equals(g)) {
+                    buf.append("\n");
+                }
+            }
+            group = g;
+            buf.append(key).append("=").append(e.getValue());
+        }
+        if (world.getAbortReason() != null) {
+            buf.append("\n\naborted=").append(world.getAbortReason());
+        }
 
         System.out.println(buf);
     }
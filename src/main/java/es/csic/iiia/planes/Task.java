@@ -37,31 +37,18 @@
  */
 package es.csic.iiia.planes;
 
-import es.csic.iiia.planes.gui.Drawable;
-import es.csic.iiia.planes.gui.graphics.TaskGraphic;
-import java.awt.Color;
-import java.awt.Dimension;
-import java.awt.Font;
-import java.awt.FontMetrics;
-import java.awt.Graphics2D;
-import java.util.concurrent.atomic.AtomicInteger;
-
 /**
  * Represents a location that must be checked by some plane.
  *
  * @author Marc Pujol <mpujol at iiia.csic.es>
  */
-public class Task extends AbstractPositionedElement implements Drawable, Comparable {
-
-    /**
-     * Generator of unique identifiers.
-     */
-    private final static AtomicInteger idGenerator = new AtomicInteger();
+public class Task extends AbstractPositionedElement implements Comparable {
+    private static final long serialVersionUID = 1L;
 
     /**
-     * Identifier of this task.
+     * Identifier of this task, set by the world when the task is added to it.
      */
-    private final int id = idGenerator.incrementAndGet();
+    private int id;
 
     /**
      * Time at which this task has been submitted.
@@ -102,6 +89,15 @@ public class Task extends AbstractPositionedElement implements Drawable, Compara
         return id;
     }
 
+    /**
+     * Set the identifier of this task.
+     *
+     * @param id the identifier.
+     */
+    void setId(int id) {
+        this.id = id;
+    }
+
     @Override
     public String toString() {
         StringBuilder buf = new StringBuilder();
@@ -112,33 +108,6 @@ public class Task extends AbstractPositionedElement implements Drawable, Compara
     }
 
 
-    private static TaskGraphic tg = new TaskGraphic();
-    @Override
-    public void draw(Graphics2D g) {
-        int x = getLocation().getXInt();
-        int y = getLocation().getYInt();
-
-        Color previous = g.getColor();
-        g.setColor(Color.BLUE);
-        /*int dim = (int)(30 * getWorld().getSpace().getWidth() / 10000f);
-        g.fillOval(x-dim/2, y-dim/2, dim, dim);*/
-
-        int dim = (int)(200 * getWorld().getSpace().getWidth() / 10000f);
-        tg.setDimension(new Dimension(dim,dim));
-        tg.paint(g, x-dim/2, y-dim/2);
-
-        /*
-        Font f = new Font(Font.SANS_SERIF, Font.BOLD, 8);
-        String sid = String.valueOf(id);
-        g.setFont(f);
-        FontMetrics m = g.getFontMetrics(f);
-        int w = m.stringWidth(sid);
-        int h = m.getHeight()-2;
-        g.setColor(Color.WHITE);
-        g.drawString(sid, x-(w/2), y+(h/2));*/
-        g.setColor(previous);
-    }
-
     @Override
     public int compareTo(Object t) {
         if (!(t instanceof Task)) {
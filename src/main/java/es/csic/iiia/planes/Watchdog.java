@@ -0,0 +1,180 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+/**
+ * Decides when a simulation run must be aborted before it finishes.
+ * <p/>
+ * A run is aborted when it exceeds its budget of ticks or wall-clock time,
+ * or when it stalls. A run is considered stalled when there have been
+ * pending tasks during the whole sliding window of the last
+ * <em>stallTicks</em> ticks, but none of them has been completed within it.
+ * Regardless of that window, a run is also considered stalled when it
+ * goes on for more than ten times its duration (its horizon), because some
+ * of its tasks will likely never be completed.
+ * <p/>
+ * The wall-clock budget is restarted when a simulation is restored from a
+ * checkpoint.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+class Watchdog implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Reasons why a run can be aborted.
+     */
+    public enum Reason {
+        STALLED("stalled"),
+        TICK_BUDGET("tick-budget"),
+        WALL_CLOCK_BUDGET("wall-clock-budget");
+
+        private final String name;
+
+        private Reason(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Number of times the duration of the simulation after which it is
+     * considered stalled.
+     */
+    public static final long HORIZON_FACTOR = 10;
+
+    private final long stallTicks;
+    private final long horizon;
+    private final long maxTicks;
+    private final long maxNanos;
+    private transient long startNanos;
+
+    /**
+     * Start of the current window without progress, that is, the last time
+     * at which either a task was completed or there were no pending tasks.
+     */
+    private long lastProgress;
+
+    /**
+     * Builds a new watchdog, starting its wall-clock budget right away.
+     *
+     * @param time current simulation time.
+     * @param stallTicks length of the stall detection window in ticks, or 0
+     *                   to disable stall detection.
+     * @param duration duration of the simulation in ticks.
+     * @param maxTicks maximum number of ticks of the run, or 0 for no limit.
+     * @param maxSeconds maximum wall-clock time of the run in seconds, or 0
+     *                   for no limit.
+     */
+    public Watchdog(long time, long stallTicks, long duration, long maxTicks, long maxSeconds) {
+        this.stallTicks = stallTicks;
+        this.horizon = duration * HORIZON_FACTOR;
+        this.maxTicks = maxTicks;
+        this.maxNanos = maxSeconds * 1000000000L;
+        this.startNanos = System.nanoTime();
+        this.lastProgress = time;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Signals that a task has been completed.
+     *
+     * @param time current simulation time.
+     */
+    public void taskCompleted(long time) {
+        lastProgress = time;
+    }
+
+    /**
+     * Checks whether the run must be aborted after computing the given tick.
+     *
+     * @param time tick that has just been computed.
+     * @param pending number of tasks still pending.
+     * @return reason to abort the run, or <em>null</em> if it can go on.
+     */
+    public Reason check(long time, int pending) {
+        if (pending == 0) {
+            lastProgress = time;
+        }
+
+        if (maxTicks > 0 && time + 1 >= maxTicks) {
+            return Reason.TICK_BUDGET;
+        }
+        if (stallTicks > 0 && time - lastProgress >= stallTicks) {
+            return Reason.STALLED;
+        }
+        if (time > horizon) {
+            return Reason.STALLED;
+        }
+        if (maxNanos > 0 && System.nanoTime() - startNanos >= maxNanos) {
+            return Reason.WALL_CLOCK_BUDGET;
+        }
+        return null;
+    }
+
+    /**
+     * Get the last tick that can be computed before the run is aborted
+     * because of its simulation time limits, assuming that nothing happens in
+     * the meantime.
+     *
+     * @param pending number of tasks still pending.
+     * @return last tick that can be computed.
+     */
+    public long getDeadline(int pending) {
+        long deadline = horizon + 1;
+        if (maxTicks > 0) {
+            deadline = Math.min(deadline, maxTicks - 1);
+        }
+        if (stallTicks > 0 && pending > 0) {
+            deadline = Math.min(deadline, lastProgress + stallTicks);
+        }
+        return deadline;
+    }
+
+}
@@ -39,7 +39,11 @@ package es.csic.iiia.planes;
 
 import es.csic.iiia.planes.definition.DProblem;
 import es.csic.iiia.planes.messaging.Message;
+import es.csic.iiia.planes.util.RandomStream;
+import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents the world where a simulation runs.
@@ -49,7 +53,7 @@ import java.util.List;
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public interface World extends Runnable {
+public interface World extends Runnable, Serializable {
 
     /**
      * Get the factory used to build elements for this simulation.
@@ -72,6 +76,34 @@ public interface World extends Runnable {
      */
     List<Plane> getPlanes();
 
+    /**
+     * Get the kinematic state of all the planes in this simulation, stored
+     * as a structure of arrays indexed by the dense index of each plane.
+     *
+     * @see PlaneStates
+     * @return the planes' states.
+     */
+    PlaneStates getPlaneStates();
+
+    /**
+     * Get the table of neighbors of all the planes, rebuilt at every tick.
+     *
+     * @see NeighborOracle
+     * @return the neighbors of the planes, or <em>null</em> if the planes
+     *         must find their neighbors by themselves.
+     */
+    NeighborOracle getNeighborOracle();
+
+    /**
+     * Notify the world that the given plane has changed its location.
+     *
+     * Planes must call this method after every movement, so that the world
+     * can keep its spatial indices up to date.
+     *
+     * @param p plane that has moved.
+     */
+    public void planeMoved(Plane p);
+
     /**
      * Get the {@link Space} of this simulation.
      *
@@ -130,16 +162,26 @@ public interface World extends Runnable {
      *
      * This method should not be used by any simulation agent, unless it is
      * considered as being omniscient.
+     *
+     * @return read-only list of the pending tasks, in submission order.
      */
     public List<Task> getTasks();
 
     /**
-     * Get the current simulation time (in tenths of second).
+     * Get the current simulation time (in ticks).
      *
-     * @return current simulation time (in tenths of second).
+     * @see #getTickLength()
+     * @return current simulation time (in ticks).
      */
     long getTime();
 
+    /**
+     * Get the length of each simulation tick (in tenths of second).
+     *
+     * @return length of each tick (in tenths of second).
+     */
+    long getTickLength();
+
     /**
      * Initialize the simulation according to the given problem definition.
      *
@@ -158,12 +200,95 @@ public interface World extends Runnable {
     public void sendMessage(Message message);
 
     /**
-     * Set the duration of this scenario (in tenths of second).
+     * Sends a message to the given group of {@link MessagingAgent}s.
+     * <p/>
+     * Only the members of the group that are in range of the sender (other
+     * than the sender itself) receive the message, and they all receive the
+     * very same message instance. This is cheaper than either a broadcast or a
+     * unicast message per member when an agent repeatedly addresses the same
+     * set of agents. The group may be read when the message is actually
+     * delivered, so it must not be modified until the end of the current step.
+     *
+     * @see Message#getSender()
+     * @see MessagingAgent#getCommunicationRange()
+     *
+     * @param message to be sent.
+     * @param group agents that should receive the message.
+     */
+    public void sendMessage(Message message, Collection<? extends MessagingAgent> group);
+
+    /**
+     * Resumes a simulation restored from a checkpoint (or a paused one),
+     * running it from the tick right after the last one it computed.
      *
-     * @param duration of this scenario in tenths of second.
+     * @see Checkpoint
+     * @see #runUntil(long)
+     */
+    public void resume();
+
+    /**
+     * Runs (or resumes) the simulation until it reaches the given tick, and
+     * pauses it right before computing that tick.
+     * <p/>
+     * A paused simulation can be continued by calling {@link #resume()},
+     * either on this world or on any of its forks.
+     *
+     * @see WorldSnapshot
+     * @param tick tick at which the simulation must be paused.
+     * @return true if the simulation has been paused, or false if it ended
+     *         before reaching the given tick.
+     */
+    public boolean runUntil(long tick);
+
+    /**
+     * Notify the world that the given agent may need to act right away,
+     * because some other element has changed its state.
+     * <p/>
+     * This must be called whenever an element modifies another agent
+     * directly, instead of sending it a message (for instance, when an
+     * operator submits a task to a plane).
+     *
+     * @param agent agent to wake up.
+     */
+    public void wakeUp(Agent agent);
+
+    /**
+     * Set the duration of this scenario (in ticks).
+     *
+     * @param duration of this scenario in ticks.
      */
     public void setDuration(long duration);
 
     public List<Operator> getOperators();
 
+    /**
+     * Get the random number stream of this world.
+     * <p/>
+     * Agents should not draw from this stream, but from their own ones (see
+     * {@link Agent#getRandom()}), which are split from it.
+     *
+     * @return random number stream of this world.
+     */
+    public RandomStream getRandom();
+
+    /**
+     * Get the final statistics of the simulation.
+     *
+     * The results are only meaningful once the simulation has finished.
+     *
+     * @return map of statistic names to their values, in display order.
+     */
+    public Map<String, Number> getResults();
+
+    /**
+     * Get the reason why the simulation was aborted before finishing.
+     * <p/>
+     * When a simulation is aborted, its results only account for the tasks
+     * completed until then.
+     *
+     * @return reason why the simulation was aborted, or <em>null</em> if it
+     *         finished normally.
+     */
+    public String getAbortReason();
+
 }
\ No newline at end of file
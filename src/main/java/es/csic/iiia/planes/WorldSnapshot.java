@@ -0,0 +1,264 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import es.csic.iiia.planes.cli.Configuration;
+import es.csic.iiia.planes.definition.DLocation;
+import es.csic.iiia.planes.definition.DProblem;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of a paused simulation, from which any number of independent
+ * copies (forks) can be created.
+ * <p/>
+ * The state of the world is serialized once, when taking the snapshot. Each
+ * fork then deserializes its own copy of the mutable state (agents, tasks,
+ * messages, ...), whereas the elements that never change during the
+ * simulation are shared by the original world and all its forks. These are
+ * the problem definition, the space, the lists of tasks to be submitted by
+ * the operators and the configuration.
+ * <p/>
+ * Forks are not copy-on-write, though. Each fork deserializes all its
+ * mutable state right away, so it costs about as much as restoring a
+ * checkpoint of the same world. This is still much cheaper than simulating
+ * the shared prefix again.
+ * <p/>
+ * Forks can continue running with a different configuration, as long as it
+ * only changes settings that are read while the simulation runs. Forks are
+ * completely independent, so they can be resumed concurrently. For instance:
+ * <pre>
+ * world.runUntil(tick);
+ * WorldSnapshot snapshot = new WorldSnapshot(world);
+ * World fork = snapshot.fork(otherConfig);
+ * fork.resume();
+ * </pre>
+ *
+ * @see World#runUntil(long)
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public final class WorldSnapshot {
+
+    /**
+     * Serialized state of the world.
+     */
+    private final byte[] state;
+
+    /**
+     * Objects shared by all the forks, indexed by their position in the
+     * serialized state.
+     */
+    private final List<Object> shared = new ArrayList<Object>();
+
+    /**
+     * Configuration of the original world.
+     */
+    private final Configuration configuration;
+
+    /**
+     * Takes a snapshot of the given world, which must be paused.
+     *
+     * @param world world to copy.
+     * @throws IOException if the world could not be serialized.
+     */
+    public WorldSnapshot(World world) throws IOException {
+        configuration = world.getFactory().getConfiguration();
+
+        final Map<Object, Integer> ids = new IdentityHashMap<Object, Integer>();
+        for (Operator o : world.getOperators()) {
+            share(o.getTaskDefinitions(), ids);
+        }
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        ObjectOutputStream out = new SharingOutputStream(buf, ids);
+        try {
+            out.writeObject(world);
+        } finally {
+            out.close();
+        }
+        state = buf.toByteArray();
+    }
+
+    /**
+     * Get the size of the serialized state of the world.
+     *
+     * @return size of the snapshot in bytes.
+     */
+    public int getSize() {
+        return state.length;
+    }
+
+    /**
+     * Creates a new copy of the world, which continues with the same
+     * configuration.
+     *
+     * @return forked world, ready to be resumed.
+     * @throws IOException if the world could not be deserialized.
+     */
+    public World fork() throws IOException {
+        return fork(configuration);
+    }
+
+    /**
+     * Creates a new copy of the world, which continues with the given
+     * configuration.
+     *
+     * @see Configuration#checkForkable(Configuration)
+     * @param config configuration of the fork.
+     * @return forked world, ready to be resumed.
+     * @throws IOException if the world could not be deserialized.
+     * @throws IllegalArgumentException if the configuration changes settings
+     *         that can not be changed in a running simulation.
+     */
+    public World fork(Configuration config) throws IOException {
+        configuration.checkForkable(config);
+
+        final World world;
+        ObjectInputStream in = new SharingInputStream(
+                new ByteArrayInputStream(state), config);
+        try {
+            world = (World)in.readObject();
+        } catch (ClassNotFoundException ex) {
+            throw new IOException("Invalid world snapshot", ex);
+        } finally {
+            in.close();
+        }
+
+        // Sleeping agents may wake up at different times with the new settings
+        if (config != configuration && world instanceof AbstractWorld) {
+            ((AbstractWorld)world).wakeUpAll();
+        }
+        return world;
+    }
+
+    /**
+     * Registers the given object as shared by all the forks.
+     *
+     * @param o object to share.
+     * @param ids map of shared objects to their indices.
+     * @return index of the shared object.
+     */
+    private int share(Object o, Map<Object, Integer> ids) {
+        Integer id = ids.get(o);
+        if (id == null) {
+            id = shared.size();
+            shared.add(o);
+            ids.put(o, id);
+        }
+        return id;
+    }
+
+    /**
+     * Check whether the given object never changes during the simulation, so
+     * that it can be shared by all the forks.
+     *
+     * @param o object to check.
+     * @return true if the object can be shared, false otherwise.
+     */
+    private static boolean isImmutable(Object o) {
+        return o instanceof DProblem || o instanceof DLocation
+                || o instanceof Space || o instanceof Configuration;
+    }
+
+    /**
+     * Placeholder of a shared object in the serialized state.
+     */
+    private static final class SharedObject implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int id;
+
+        public SharedObject(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Output stream that writes placeholders instead of the shared objects.
+     */
+    private class SharingOutputStream extends ObjectOutputStream {
+        private final Map<Object, Integer> ids;
+
+        public SharingOutputStream(OutputStream out, Map<Object, Integer> ids) throws IOException {
+            super(out);
+            this.ids = ids;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object o) {
+            if (ids.containsKey(o) || isImmutable(o)) {
+                return new SharedObject(share(o, ids));
+            }
+            return o;
+        }
+    }
+
+    /**
+     * Input stream that resolves the placeholders to the shared objects,
+     * replacing the original configuration by that of the fork.
+     */
+    private class SharingInputStream extends ObjectInputStream {
+        private final Configuration config;
+
+        public SharingInputStream(InputStream in, Configuration config) throws IOException {
+            super(in);
+            this.config = config;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object o) {
+            if (o instanceof SharedObject) {
+                final Object s = shared.get(((SharedObject)o).id);
+                return s == configuration ? config : s;
+            }
+            return o;
+        }
+    }
+
+}
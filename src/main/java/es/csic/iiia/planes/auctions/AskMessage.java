@@ -44,6 +44,7 @@ import es.csic.iiia.planes.Task;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class AskMessage extends AuctionMessage {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Builds a message to auction the specified task.
@@ -57,7 +57,8 @@ import java.util.logging.Logger;
  * <strong>TODO:</strong> Study how could we improve the situation for recharging planes.
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public class AuctionBehavior extends AbstractBehavior {
+public class AuctionBehavior extends AbstractBehavior<AuctionPlane> {
+    private static final long serialVersionUID = 1L;
 
     private static final Logger LOG = Logger.getLogger(AuctionBehavior.class.getName());
 
@@ -90,11 +91,6 @@ public class AuctionBehavior extends AbstractBehavior {
         biddingRule = config.getAucBiddingRuleFactory().build(config);
     }
 
-    @Override
-    public AuctionPlane getAgent() {
-        return (AuctionPlane)super.getAgent();
-    }
-
     @Override
     public void beforeMessages() {
     }
@@ -159,6 +155,27 @@ public class AuctionBehavior extends AbstractBehavior {
         beginAuctions();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Auctions are only opened every <em>auction-every</em> ticks, and only
+     * when this plane owns some tasks. Ongoing auctions need to be followed at
+     * every tick.
+     */
+    @Override
+    public long getNextEventTime(List<Message> pending) {
+        for (int i=0, len=pending.size(); i<len; i++) {
+            if (pending.get(i) instanceof AuctionMessage) {
+                return getAgent().getWorld().getTime() + 1;
+            }
+        }
+
+        if (getAgent().getTasks().isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        return getNextCadenceTime(getConfiguration().getAucEvery(), 0);
+    }
+
     private void processBids() {
 
         if (!bids.isEmpty()) {
@@ -50,6 +50,7 @@ import es.csic.iiia.planes.messaging.Message;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public abstract class AuctionMessage extends AbstractMessage {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Task that this message refers to.
@@ -55,6 +55,7 @@ import java.util.List;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class AuctionPlane extends AbstractPlane {
+    private static final long serialVersionUID = 1L;
 
     private ArrayList<Task> localTasks = new ArrayList<Task>();
 
@@ -44,6 +44,7 @@ import es.csic.iiia.planes.Task;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class BidMessage extends AuctionMessage {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Price of this bid.
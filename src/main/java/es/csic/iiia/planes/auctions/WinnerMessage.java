@@ -45,6 +45,7 @@ import es.csic.iiia.planes.messaging.Message;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class WinnerMessage extends AuctionMessage {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Builds a new message to inform the intended recipient that it has won
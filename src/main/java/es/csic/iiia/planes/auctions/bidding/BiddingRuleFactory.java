@@ -37,13 +37,14 @@
 package es.csic.iiia.planes.auctions.bidding;
 
 import es.csic.iiia.planes.cli.Configuration;
+import java.io.Serializable;
 
 /**
  * Factory of bidding rule objects.
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public interface BiddingRuleFactory {
+public interface BiddingRuleFactory extends Serializable {
 
     /**
      * Returns a setup bidding rule according to the specified
@@ -46,6 +46,7 @@ import es.csic.iiia.planes.auctions.BidMessage;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class CostBiddingRule implements BiddingRule {
+    private static final long serialVersionUID = 1L;
 
     public BidMessage getBid(AuctionPlane plane, Task task) {
         return new BidMessage(task, plane.getCost(task));
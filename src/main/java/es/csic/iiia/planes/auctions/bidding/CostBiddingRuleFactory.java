@@ -45,6 +45,7 @@ import es.csic.iiia.planes.cli.Configuration;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class CostBiddingRuleFactory implements BiddingRuleFactory {
+    private static final long serialVersionUID = 1L;
 
     public BiddingRule build(Configuration config) {
         return new CostBiddingRule();
@@ -48,6 +48,7 @@ import java.util.List;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class WorkloadBiddingRule implements BiddingRule {
+    private static final long serialVersionUID = 1L;
 
     private final double k;
     private final double alpha;
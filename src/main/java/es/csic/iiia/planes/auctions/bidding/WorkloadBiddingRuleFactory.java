@@ -45,6 +45,7 @@ import es.csic.iiia.planes.cli.Configuration;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class WorkloadBiddingRuleFactory implements BiddingRuleFactory {
+    private static final long serialVersionUID = 1L;
 
     public BiddingRule build(Configuration config) {
         final double k = config.getAucWorkloadK();
@@ -38,6 +38,9 @@ package es.csic.iiia.planes.behaviors;
 
 import es.csic.iiia.planes.MessagingAgent;
 import es.csic.iiia.planes.cli.Configuration;
+import es.csic.iiia.planes.messaging.Message;
+import es.csic.iiia.planes.util.RandomStream;
+import java.util.List;
 
 /**
  * Skeletal implementation of a behavior.
@@ -45,9 +48,12 @@ import es.csic.iiia.planes.cli.Configuration;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public abstract class AbstractBehavior<T extends MessagingAgent> implements Behavior<T> {
+    private static final long serialVersionUID = 1L;
 
     private T agent;
 
+    private RandomStream random;
+
     /**
      * Builds a new behavior.
      *
@@ -72,11 +78,63 @@ public abstract class AbstractBehavior<T extends MessagingAgent> implements Beha
     @Override
     public void postStep() {}
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * By default, behaviors are assumed to need to act at every tick.
+     */
+    @Override
+    public long getNextEventTime(List<Message> pending) {
+        return agent.getWorld().getTime() + 1;
+    }
+
+    @Override
+    public Message getBeacon() {
+        return null;
+    }
+
+    @Override
+    public long getNextBeaconTime() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Get the first time after the current one such that its remainder when
+     * divided by <em>every</em> is <em>remainder</em>.
+     *
+     * @param every period of the cadence.
+     * @param remainder offset of the cadence within each period.
+     * @return next time of the given cadence, or {@link Long#MAX_VALUE} if
+     *         there is no such time.
+     */
+    protected long getNextCadenceTime(long every, long remainder) {
+        if (remainder >= every) {
+            return Long.MAX_VALUE;
+        }
+        final long next = agent.getWorld().getTime() + 1;
+        return next + (remainder - next % every + every) % every;
+    }
+
     @Override
     public T getAgent() {
         return agent;
     }
 
+    /**
+     * Get the random number stream of this behavior.
+     * <p/>
+     * The stream is split from the agent's one, so the numbers drawn by each
+     * behavior do not depend on the numbers drawn by the others.
+     *
+     * @return random number stream of this behavior.
+     */
+    protected RandomStream getRandom() {
+        if (random == null) {
+            random = agent.getRandom().split(getClass().getName());
+        }
+        return random;
+    }
+
     /**
      * Get the configuraton of the simulator.
      *
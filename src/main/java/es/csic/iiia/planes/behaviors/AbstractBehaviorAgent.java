@@ -37,16 +37,23 @@
 package es.csic.iiia.planes.behaviors;
 
 import es.csic.iiia.planes.AbstractMessagingAgent;
+import es.csic.iiia.planes.MessagingAgent;
 import es.csic.iiia.planes.Location;
+import es.csic.iiia.planes.messaging.Mailbox;
 import es.csic.iiia.planes.messaging.Message;
 import es.csic.iiia.planes.util.DependencyResolver;
-import org.apache.commons.collections.map.MultiKeyMap;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -59,8 +66,17 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public abstract class AbstractBehaviorAgent extends AbstractMessagingAgent {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(AbstractBehaviorAgent.class.getName());
 
+    /**
+     * Resolved orders of the behaviors, by the list of classes of the
+     * behaviors added to an agent.
+     */
+    private static final ConcurrentMap<List<Class<?>>, List<Class<?>>> BEHAVIOR_ORDERS =
+            new ConcurrentHashMap<List<Class<?>>, List<Class<?>>>();
+
     /**
      * The communication radius.
      */
@@ -68,56 +84,141 @@ public abstract class AbstractBehaviorAgent extends AbstractMessagingAgent {
 
     /**
      * Messages received in the previous iteration, available at the current
-     * time.
+     * time. There is a bucket for each behavior, holding the messages that
+     * it handles in the same order they were received.
+     * <p/>
+     * The messages and behaviors reference other agents, so they are not
+     * serialized along with this agent (that would recurse from one agent to
+     * the next). Instead, the world saves them separately through
+     * {@link #writeState(ObjectOutputStream)}.
      */
-    private List<Message> currentMessages;
+    private transient List<Mailbox> currentMessages;
 
     /**
      * Messages received in this iteration, that will not be available until
-     * the next one.
+     * the next one, bucketed in the same way.
      */
-    private List<Message> futureMessages;
+    private transient List<Mailbox> futureMessages;
 
     /**
      * The list of behaviors of this agent.
      */
-    private List<Behavior> behaviors;
+    private transient List<Behavior<?>> behaviors;
 
     /**
      * Flag to prevent nodes from adding behaviors after being initialized.
      */
     private boolean initialized = false;
 
+    /**
+     * Message handlers of the current behaviors, looked up when the first
+     * message is received (and again after restoring a checkpoint).
+     */
+    private transient DispatchTable dispatchTable;
+
+    /**
+     * Scratch buffer used when invoking the handlers.
+     */
+    private transient Object[] handlerArgs;
+
+    /**
+     * Scratch mailbox used to check whether a single message wakes this
+     * agent up.
+     */
+    private transient Mailbox wakeUpProbe;
+
+    /**
+     * Buffer where the beacons of the behaviors are collected.
+     */
+    private transient ArrayList<Message> beacons;
+
     public AbstractBehaviorAgent(Location location) {
         super(location);
-        currentMessages = new ArrayList<Message>();
-        futureMessages = new ArrayList<Message>();
-        behaviors = new ArrayList<Behavior>();
+        currentMessages = new ArrayList<Mailbox>();
+        futureMessages = new ArrayList<Mailbox>();
+        behaviors = new ArrayList<Behavior<?>>();
     }
 
-    @Override
+    /**
+     * Writes the behaviors and pending messages of this agent.
+     * <p/>
+     * Worlds must call this method for all their agents after serializing
+     * them, and then {@link #readState(ObjectInputStream)} in the same order
+     * when deserializing.
+     *
+     * @param out stream where the world is being written.
+     * @throws IOException if the state could not be written.
+     */
+    public void writeState(ObjectOutputStream out) throws IOException {
+        out.writeObject(currentMessages);
+        out.writeObject(futureMessages);
+        out.writeObject(behaviors);
+    }
+
+    /**
+     * Reads the behaviors and pending messages of this agent.
+     *
+     * @see #writeState(ObjectOutputStream)
+     * @param in stream where the world is being read from.
+     * @throws IOException if the state could not be read.
+     * @throws ClassNotFoundException if the state has an unknown class.
+     */
     @SuppressWarnings("unchecked")
-    public void initialize() {
-        // Compute the behavior ordering from the declared dependencies
-        DependencyResolver d = new DependencyResolver();
-        for (Behavior v : behaviors) {
-            Class[] dependencies = v.getDependencies();
-            d.add(v.getClass(), dependencies);
-        }
+    public void readState(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        currentMessages = (List<Mailbox>)in.readObject();
+        futureMessages = (List<Mailbox>)in.readObject();
+        behaviors = (List<Behavior<?>>)in.readObject();
+    }
 
+    @Override
+    public void initialize() {
         // Get an ordered list of behavior classes, and construct a new
         // (ordered) list of behavior objects.
-        List<Behavior> newBehaviors = new ArrayList<Behavior>(behaviors.size());
-        for (Class c : d.getOrderedList()) {
-            Behavior b = getBehavior(c);
+        List<Behavior<?>> newBehaviors = new ArrayList<Behavior<?>>(behaviors.size());
+        for (Class<?> c : getBehaviorOrder()) {
+            Behavior<?> b = findBehavior(c);
             b.initialize();
             newBehaviors.add(b);
         }
 
         behaviors = newBehaviors;
+        dispatchTable = null;
         initialized = true;
     }
 
+    /**
+     * Get the order in which the behaviors of this agent must run, computed
+     * from their declared dependencies.
+     * <p/>
+     * Behaviors of the same class always declare the same dependencies, so
+     * the order only depends on the classes of the behaviors that have been
+     * added. Hence, it is resolved once for each combination of them, and
+     * shared by all the agents that have the same behaviors.
+     *
+     * @return ordered list of behavior classes.
+     */
+    private List<Class<?>> getBehaviorOrder() {
+        final List<Class<?>> classes = new ArrayList<Class<?>>(behaviors.size());
+        for (Behavior<?> b : behaviors) {
+            classes.add(b.getClass());
+        }
+
+        List<Class<?>> order = BEHAVIOR_ORDERS.get(classes);
+        if (order == null) {
+            DependencyResolver d = new DependencyResolver();
+            for (Behavior<?> v : behaviors) {
+                d.add(v.getClass(), v.getDependencies());
+            }
+            final List<Class<?>> resolved = new ArrayList<Class<?>>(classes.size());
+            for (Object c : d.getOrderedList()) {
+                resolved.add((Class<?>)c);
+            }
+            order = Collections.unmodifiableList(resolved);
+            BEHAVIOR_ORDERS.putIfAbsent(classes, order);
+        }
+        return order;
+    }
+
     /**
      * Add a new behavior to the agent.
      *
@@ -127,18 +228,19 @@ public abstract class AbstractBehaviorAgent extends AbstractMessagingAgent {
      *
      * @param behavior to be added.
      */
-    protected void addBehavior(Behavior behavior) {
+    protected void addBehavior(Behavior<?> behavior) {
         if (initialized) {
             throw new UnsupportedOperationException("You can only add behaviors to an agent inside its constructor, not here.");
         }
         behaviors.add(behavior);
+        dispatchTable = null;
     }
 
     /**
      * Get the list of behaviors.
      * @return list of behaviors of this agent.
      */
-    protected List<Behavior> getBehaviors() {
+    protected List<Behavior<?>> getBehaviors() {
         return Collections.unmodifiableList(behaviors);
     }
 
@@ -147,11 +249,15 @@ public abstract class AbstractBehaviorAgent extends AbstractMessagingAgent {
      *
      * @return behavior that implements the given class.
      */
-    @SuppressWarnings("unchecked")
-    public <T extends Behavior> T getBehavior(Class<T> behaviorClass) {
-        for (Behavior b : behaviors) {
+    public <T extends Behavior<?>> T getBehavior(Class<T> behaviorClass) {
+        final Behavior<?> b = findBehavior(behaviorClass);
+        return b == null ? null : behaviorClass.cast(b);
+    }
+
+    private Behavior<?> findBehavior(Class<?> behaviorClass) {
+        for (Behavior<?> b : behaviors) {
             if (b.getClass() == behaviorClass) {
-                return (T)b;
+                return b;
             }
         }
         return null;
@@ -167,9 +273,59 @@ public abstract class AbstractBehaviorAgent extends AbstractMessagingAgent {
         this.communicationRange = range;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * In this case, the message is added to the bucket of each behavior that
+     * handles it.
+     */
     @Override
     public void receive(Message message) {
-        futureMessages.add(message);
+        final Method[] handlers = getDispatchTable().getHandlers(message.getClass());
+        for (int k=0; k<handlers.length; k++) {
+            if (handlers[k] != null) {
+                futureMessages.get(k).add(message);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * In this case, messages are accepted if any behavior handles them.
+     */
+    @Override
+    public boolean accepts(Message message) {
+        return getDispatchTable().isHandled(message.getClass());
+    }
+
+    @Override
+    public void clearMessages() {
+        for (Mailbox bucket : futureMessages) {
+            bucket.clear();
+        }
+    }
+
+    /**
+     * Get the table of message handlers of the current behaviors, making sure
+     * that there is a bucket of messages for each of them.
+     *
+     * @return dispatch table of this agent.
+     */
+    private DispatchTable getDispatchTable() {
+        if (dispatchTable == null) {
+            final List<Class<?>> classes = new ArrayList<Class<?>>(behaviors.size());
+            for (Behavior<?> b : behaviors) {
+                classes.add(b.getClass());
+            }
+            dispatchTable = DispatchTable.get(classes);
+            handlerArgs = new Object[1];
+            while (futureMessages.size() < behaviors.size()) {
+                currentMessages.add(new Mailbox());
+                futureMessages.add(new Mailbox());
+            }
+        }
+        return dispatchTable;
     }
 
     /**
@@ -183,12 +339,14 @@ public abstract class AbstractBehaviorAgent extends AbstractMessagingAgent {
      */
     @Override
     public void preStep() {
-        List<Message> tmp = currentMessages;
-        tmp.clear();
+        List<Mailbox> tmp = currentMessages;
+        for (Mailbox bucket : tmp) {
+            bucket.clear();
+        }
         currentMessages = futureMessages;
         futureMessages = tmp;
 
-        for (Behavior b : behaviors) {
+        for (Behavior<?> b : behaviors) {
             b.preStep();
         }
     }
@@ -200,13 +358,13 @@ public abstract class AbstractBehaviorAgent extends AbstractMessagingAgent {
     @Override
     public void step() {
 
-        for (Behavior b : behaviors) {
+        for (Behavior<?> b : behaviors) {
             b.beforeMessages();
         }
 
         dispatchMessages();
 
-        for (Behavior b : behaviors) {
+        for (Behavior<?> b : behaviors) {
             b.afterMessages();
         }
 
@@ -220,56 +378,140 @@ public abstract class AbstractBehaviorAgent extends AbstractMessagingAgent {
      */
     @Override
     public void postStep() {
-        for (Behavior b : behaviors) {
+        for (Behavior<?> b : behaviors) {
             b.postStep();
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * In this case, it is the earliest time reported by the behaviors of this
+     * agent, each of them given only the pending messages that it handles.
+     */
+    @Override
+    public long getNextEventTime() {
+        getDispatchTable();
+        long next = Long.MAX_VALUE;
+        for (int k=0; k<behaviors.size(); k++) {
+            final List<Message> pending = futureMessages.get(k).getView();
+            next = Math.min(next, behaviors.get(k).getNextEventTime(pending));
+        }
+        return next;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * In this case, the message wakes the agent up if any behavior needs to
+     * act at the next tick when receiving it.
+     */
+    @Override
+    public boolean isWakeUpMessage(Message message) {
+        if (wakeUpProbe == null) {
+            wakeUpProbe = new Mailbox();
+        }
+        wakeUpProbe.add(message);
+        final List<Message> pending = wakeUpProbe.getView();
+        final long next = getWorld().getTime() + 1;
+        boolean wakeUp = false;
+        for (int k=0; k<behaviors.size() && !wakeUp; k++) {
+            wakeUp = behaviors.get(k).getNextEventTime(pending) <= next;
+        }
+        wakeUpProbe.clear();
+        return wakeUp;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * In this case, the beacons sent by the behaviors of this agent. The
+     * returned list is reused by the next call.
+     */
+    @Override
+    public List<Message> getBeacons() {
+        if (beacons == null) {
+            beacons = new ArrayList<Message>(1);
+        }
+        beacons.clear();
+        for (int k=0; k<behaviors.size(); k++) {
+            final Message beacon = behaviors.get(k).getBeacon();
+            if (beacon != null) {
+                beacons.add(beacon);
+            }
+        }
+        return beacons;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * In this case, the earliest beacon of the behaviors of this agent.
+     */
+    @Override
+    public long getNextBeaconTime() {
+        long next = Long.MAX_VALUE;
+        for (int k=0; k<behaviors.size(); k++) {
+            next = Math.min(next, behaviors.get(k).getNextBeaconTime());
+        }
+        return next;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Behaviors do nothing while idle, so there is nothing to advance here.
+     */
+    @Override
+    public void fastForward(long ticks) {}
+
     @Override
     public void send(Message message) {
         message.setSender(this);
         getWorld().sendMessage(message);
     }
 
-    private void dispatchMessages() {
-        LOG.log(Level.FINER, "{0} dispatching {1} messages.",
-                new Object[]{this, currentMessages.size()});
+    @Override
+    public void send(Message message, Collection<? extends MessagingAgent> group) {
+        message.setSender(this);
+        getWorld().sendMessage(message, group);
+    }
 
-        for (Behavior b : behaviors) {
-            for (Message m : currentMessages) {
-                handle(b, m);
+    /**
+     * Invokes the handlers of the messages received in the previous
+     * iteration.
+     * <p/>
+     * Each behavior handles all of its messages before the next behavior
+     * handles any of them.
+     */
+    private void dispatchMessages() {
+        final DispatchTable table = getDispatchTable();
+        if (LOG.isLoggable(Level.FINER)) {
+            int n = 0;
+            for (Mailbox bucket : currentMessages) {
+                n += bucket.size();
             }
+            LOG.log(Level.FINER, "{0} dispatching {1} messages.", new Object[]{this, n});
         }
-    }
 
-    private MultiKeyMap cache = new MultiKeyMap();
-
-    private void handle(Behavior b, Message m) {
-        final Class<? extends Behavior> bClass = b.getClass();
-        final Class<? extends Message> mClass = m.getClass();
-
-        // Memoize the method
-        Method method;
-        if (cache.containsKey(bClass, mClass)) {
-            method = (Method)cache.get(bClass, mClass);
-        } else {
-            method = getMethod(bClass, mClass);
-            if (method != null) {
-                if (LOG.isLoggable(Level.FINEST)) {
-                    LOG.log(Level.FINEST, "Dispatching {0} to {1}",
-                            new Object[]{mClass.getSimpleName(), method.toGenericString()});
-                }
+        for (int k=0; k<behaviors.size(); k++) {
+            final Mailbox bucket = currentMessages.get(k);
+            if (bucket.isEmpty()) {
+                continue;
             }
-            cache.put(bClass, mClass, method);
-        }
 
-        if (method == null) {
-            return;
+            final Behavior<?> b = behaviors.get(k);
+            for (int i=0; i<bucket.size(); i++) {
+                final Message m = bucket.get(i);
+                handle(table.getHandlers(m.getClass())[k], b, m);
+            }
         }
+    }
 
-        // Invoke it
+    private void handle(Method method, Behavior<?> b, Message m) {
         try {
-            method.invoke(b, m);
+            handlerArgs[0] = m;
+            method.invoke(b, handlerArgs);
         } catch (IllegalAccessException ex) {
             LOG.log(Level.SEVERE, null, ex);
         } catch (IllegalArgumentException ex) {
@@ -283,25 +525,9 @@ public abstract class AbstractBehaviorAgent extends AbstractMessagingAgent {
                 throw (RuntimeException) throwable;
             }
             LOG.log(Level.SEVERE, null, throwable);
+        } finally {
+            handlerArgs[0] = null;
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private static Method getMethod(Class<? extends Behavior> bClass,
-            Class<? extends Message> mClass)
-    {
-        Method m = null;
-        try {
-            m = bClass.getMethod("on", mClass);
-        } catch (NoSuchMethodException ex) {
-            Class c = mClass.getSuperclass();
-            if (Message.class.isAssignableFrom(c)) {
-                m = getMethod(bClass, (Class<? extends Message>)c);
-            }
-        } catch (SecurityException ex) {
-            LOG.log(Level.SEVERE, null, ex);
-        }
-        return m;
-    }
-
-}
\ No newline at end of file
+}
@@ -38,6 +38,8 @@ package es.csic.iiia.planes.behaviors;
 
 import es.csic.iiia.planes.messaging.Message;
 import es.csic.iiia.planes.MessagingAgent;
+import java.io.Serializable;
+import java.util.List;
 
 /**
  * Defines some behavior for {@link MessagingAgent}s, by implementing arbitrary
@@ -54,7 +56,7 @@ import es.csic.iiia.planes.MessagingAgent;
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public interface Behavior<T extends MessagingAgent> {
+public interface Behavior<T extends MessagingAgent> extends Serializable {
 
     /**
      * Get the agent that exhibits this behavior.
@@ -99,4 +101,38 @@ public interface Behavior<T extends MessagingAgent> {
      */
     public void postStep();
 
+    /**
+     * Get the earliest time at which this behavior may need to act again.
+     * <p/>
+     * The answer assumes that nothing else happens in the world until then,
+     * and that the agent keeps receiving the same messages it is receiving
+     * now.
+     *
+     * @see es.csic.iiia.planes.Agent#getNextEventTime()
+     * @param pending messages received by the agent in this iteration, that
+     *                will be handled in the next one.
+     * @return earliest time at which this behavior may need to act again.
+     */
+    public long getNextEventTime(List<Message> pending);
+
+    /**
+     * Get the beacon message that this behavior would broadcast in its
+     * {@link #postStep()} at the current tick, if any.
+     *
+     * @see MessagingAgent#getBeacons()
+     * @return the beacon that this behavior sends now, or <em>null</em> if it
+     *         does not send one.
+     */
+    public Message getBeacon();
+
+    /**
+     * Get the earliest time at which this behavior may need to send a beacon
+     * while its agent sleeps.
+     *
+     * @see MessagingAgent#getNextBeaconTime()
+     * @return earliest time of the next beacon, or {@link Long#MAX_VALUE} if
+     *         this behavior does not send beacons.
+     */
+    public long getNextBeaconTime();
+
 }
\ No newline at end of file
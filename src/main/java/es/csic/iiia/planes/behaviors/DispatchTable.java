@@ -0,0 +1,204 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.behaviors;
+
+import es.csic.iiia.planes.messaging.Message;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Table of the message handlers of an ordered list of behavior classes.
+ * <p/>
+ * For each type of message, the table holds the <code>on(MessageType)</code>
+ * method of every behavior that handles it (see {@link Behavior}). These
+ * methods are looked up (through reflection) only once for each type of
+ * message, and the table is shared by all the agents that have the same
+ * behaviors, so dispatching a message afterwards just needs to find its row
+ * and invoke the handlers in it.
+ * <p/>
+ * Agents only receive a handful of different types of messages, so the rows
+ * are kept in a small array that is searched by comparing the message classes
+ * directly. New rows are appended on a copy of that array, so readers never
+ * need to lock the table.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+final class DispatchTable {
+    private static final Logger LOG = Logger.getLogger(DispatchTable.class.getName());
+
+    /**
+     * Tables of the behavior lists seen so far.
+     */
+    private static final ConcurrentMap<List<Class<?>>, DispatchTable> TABLES =
+            new ConcurrentHashMap<List<Class<?>>, DispatchTable>();
+
+    private final Class<?>[] behaviorClasses;
+
+    /**
+     * Message types seen so far, and the handlers of each of them.
+     */
+    private volatile Row[] rows = new Row[0];
+
+    private DispatchTable(List<Class<?>> behaviorClasses) {
+        this.behaviorClasses = behaviorClasses.toArray(new Class<?>[behaviorClasses.size()]);
+    }
+
+    /**
+     * Get the table of the given list of behavior classes.
+     *
+     * @param behaviorClasses classes of the behaviors, in the order in which
+     *                        they handle the messages.
+     * @return dispatch table of those behaviors.
+     */
+    static DispatchTable get(List<Class<?>> behaviorClasses) {
+        DispatchTable table = TABLES.get(behaviorClasses);
+        if (table == null) {
+            final DispatchTable created = new DispatchTable(behaviorClasses);
+            table = TABLES.putIfAbsent(behaviorClasses, created);
+            if (table == null) {
+                table = created;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Get the handlers of the given type of message.
+     *
+     * @param type type of message.
+     * @return array with the handler of each behavior (in the same order as
+     *         the behaviors of this table), or <em>null</em> for the
+     *         behaviors that do not handle it.
+     */
+    Method[] getHandlers(Class<? extends Message> type) {
+        return getRow(type).handlers;
+    }
+
+    /**
+     * Check whether any of the behaviors handles the given type of message.
+     *
+     * @param type type of message.
+     * @return true if some behavior handles it, false otherwise.
+     */
+    boolean isHandled(Class<? extends Message> type) {
+        return getRow(type).handled;
+    }
+
+    private Row getRow(Class<? extends Message> type) {
+        final Row[] rs = rows;
+        for (int i=0; i<rs.length; i++) {
+            if (rs[i].type == type) {
+                return rs[i];
+            }
+        }
+        return addRow(type);
+    }
+
+    private synchronized Row addRow(Class<? extends Message> type) {
+        // Another thread may have added it in the meantime
+        final Row[] rs = rows;
+        for (int i=0; i<rs.length; i++) {
+            if (rs[i].type == type) {
+                return rs[i];
+            }
+        }
+
+        final Method[] handlers = new Method[behaviorClasses.length];
+        for (int i=0; i<behaviorClasses.length; i++) {
+            handlers[i] = getMethod(behaviorClasses[i], type);
+            if (handlers[i] != null) {
+                if (LOG.isLoggable(Level.FINEST)) {
+                    LOG.log(Level.FINEST, "Dispatching {0} to {1}",
+                            new Object[]{type.getSimpleName(), handlers[i].toGenericString()});
+                }
+                try {
+                    // Skip the access checks when invoking it
+                    handlers[i].setAccessible(true);
+                } catch (SecurityException ex) {
+                    LOG.log(Level.FINE, null, ex);
+                }
+            }
+        }
+
+        final Row row = new Row(type, handlers);
+        final Row[] nrs = Arrays.copyOf(rs, rs.length + 1);
+        nrs[rs.length] = row;
+        rows = nrs;
+        return row;
+    }
+
+    private static Method getMethod(Class<?> bClass, Class<? extends Message> mClass)
+    {
+        Method m = null;
+        try {
+            m = bClass.getMethod("on", mClass);
+        } catch (NoSuchMethodException ex) {
+            Class<?> c = mClass.getSuperclass();
+            if (Message.class.isAssignableFrom(c)) {
+                m = getMethod(bClass, c.asSubclass(Message.class));
+            }
+        } catch (SecurityException ex) {
+            LOG.log(Level.SEVERE, null, ex);
+        }
+        return m;
+    }
+
+    /**
+     * Handlers of a type of message.
+     */
+    private static final class Row {
+        final Class<? extends Message> type;
+        final Method[] handlers;
+        final boolean handled;
+
+        Row(Class<? extends Message> type, Method[] handlers) {
+            this.type = type;
+            this.handlers = handlers;
+            boolean any = false;
+            for (Method handler : handlers) {
+                any |= handler != null;
+            }
+            this.handled = any;
+        }
+    }
+
+}
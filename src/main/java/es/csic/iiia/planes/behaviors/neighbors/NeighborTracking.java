@@ -38,9 +38,13 @@ package es.csic.iiia.planes.behaviors.neighbors;
 
 import es.csic.iiia.planes.Location;
 import es.csic.iiia.planes.MessagingAgent;
+import es.csic.iiia.planes.NeighborOracle;
 import es.csic.iiia.planes.Plane;
 import es.csic.iiia.planes.behaviors.AbstractBehavior;
 import es.csic.iiia.planes.messaging.AbstractMessage;
+import es.csic.iiia.planes.messaging.Message;
+import es.csic.iiia.planes.messaging.MessagePool;
+import java.util.List;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -51,17 +55,68 @@ import java.util.logging.Logger;
  * This behavior tracks neighbors when they get in and out of range.
  * Additionally, it allows depending behaviors to require that other agents
  * must be guaranteed to stay neighbors for a fixed number of iterations.
+ * <p/>
+ * When beacons may be sent less often than at every tick (see
+ * {@link es.csic.iiia.planes.cli.Configuration#getBeaconMaxInterval()}), the
+ * neighbors are kept across ticks, counting down the iterations that each of
+ * them is guaranteed to stay. Then, planes only send a beacon when the
+ * guarantee that their last one gave to the others runs out, when they change
+ * heading, when they find a new neighbor, or when the maximum interval has
+ * elapsed. Hence, planes that sleep while flying straight (or while staying
+ * put) do not send any beacon until then, unless they hear a new neighbor.
+ * <p/>
+ * Neighbors are tracked by exchanging beacons, unless the world computes them
+ * for all the planes (see {@link NeighborOracle}). In that case, this behavior
+ * just reads them from the world, without sending any message.
  *
  * @see #isNeighbor(es.csic.iiia.planes.MessagingAgent, int)
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class NeighborTracking extends AbstractBehavior<Plane> {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(NeighborTracking.class.getName());
 
+    /**
+     * Smallest change of heading (in radians) that triggers a new beacon.
+     */
+    private static final double HEADING_TOLERANCE = 1e-6;
+
     private NeighborsCollection neighbors = new NeighborsCollection();
     private Location lastLocation;
 
+    /**
+     * Time when this behavior last sent a beacon (or -1 if it has never sent
+     * any), heading of the agent at that time (NaN if it was not moving),
+     * and last time when the guarantee given by that beacon holds.
+     */
+    private long lastBeaconTime = -1;
+    private double lastBeaconHeading = Double.NaN;
+    private long beaconExpiry = Long.MAX_VALUE;
+
+    /**
+     * Whether a beacon must be sent at this iteration, because a new neighbor
+     * has been found.
+     */
+    private boolean beaconRequested = false;
+
+    /**
+     * Time when the neighbors were last aged (or -1 if never).
+     */
+    private long lastAged = -1;
+
+    /**
+     * Time of the last post-step run by the agent (or -1 if never).
+     */
+    private long lastPostStep = -1;
+
+    /**
+     * Pool of the beacons sent by this behavior, built on first use (and
+     * again after restoring a checkpoint).
+     */
+    private transient MessagePool<TrackingMessage> pool;
+
     /**
      * Builds a new neighbor tracking behavior.
      *
@@ -69,7 +124,7 @@ public class NeighborTracking extends AbstractBehavior<Plane> {
      */
     public NeighborTracking(Plane agent) {
         super(agent);
-        lastLocation = agent.getLocation();
+        lastLocation = new Location(agent.getLocation());
     }
 
     @Override
@@ -102,6 +157,10 @@ public class NeighborTracking extends AbstractBehavior<Plane> {
             LOG.log(Level.FINEST, "Neighbors: {0}", neighbors);
         }
 
+        final NeighborOracle oracle = getOracle();
+        if (oracle != null) {
+            return oracle.isNeighbor(getAgent(), agent, iterations);
+        }
         return neighbors.contains(agent, iterations);
     }
 
@@ -113,6 +172,10 @@ public class NeighborTracking extends AbstractBehavior<Plane> {
      * @return {@link Iterable} of agents that are guaranteed to remain neighbors.
      */
     public Iterable<MessagingAgent> getNeighbors(int iterations) {
+        final NeighborOracle oracle = getOracle();
+        if (oracle != null) {
+            return oracle.getNeighbors(getAgent(), iterations);
+        }
         return neighbors.get(iterations);
     }
 
@@ -124,13 +187,54 @@ public class NeighborTracking extends AbstractBehavior<Plane> {
      * @return True if there are neighbors, or false otherwise.
      */
     public boolean hasNeighbors(int iterations) {
+        final NeighborOracle oracle = getOracle();
+        if (oracle != null) {
+            return oracle.hasNeighbors(getAgent(), iterations);
+        }
         return neighbors.hasNeighbors(iterations);
     }
 
+    /**
+     * Get the neighbors computed by the world, if it does so.
+     *
+     * @return the world's neighbor oracle, or <em>null</em> if neighbors are
+     *         tracked by exchanging beacons.
+     */
+    private NeighborOracle getOracle() {
+        return getAgent().getWorld().getNeighborOracle();
+    }
+
     @Override
     public void beforeMessages() {
-        neighbors.clear();
+        if (getOracle() != null) {
+            return;
+        }
+
+        if (isAdaptive()) {
+            age(getAgent().getWorld().getTime());
+        } else {
+            neighbors.clear();
+        }
         neighbors.add(getAgent(), Integer.MAX_VALUE);
+
+        // Planes may have kept flying while sleeping, without running the
+        // post-step that records their location.
+        final Location l = getAgent().getLocation();
+        if (!lastLocation.equals(l)) {
+            lastLocation.setLocation(l.getX(), l.getY());
+        }
+    }
+
+    /**
+     * Age the neighbors up to the given time.
+     *
+     * @param now current time.
+     */
+    private void age(long now) {
+        if (lastAged >= 0) {
+            neighbors.age((int)Math.min(Integer.MAX_VALUE, now - lastAged));
+        }
+        lastAged = now;
     }
 
     /**
@@ -140,10 +244,17 @@ public class NeighborTracking extends AbstractBehavior<Plane> {
      */
     public void on(TrackingMessage m) {
         final MessagingAgent neighbor = m.getSender();
+        if (neighbor == getAgent() && isAdaptive()) {
+            // Kept as a neighbor forever, instead of aging
+            return;
+        }
 
         // Compute the number of steps that the neighbor is guaranteed to still
         // be in range.
-        LOG.log(Level.FINEST, "My location: {0}, theirs: {1}", new Object[]{lastLocation, m.getLocation()});
+        final boolean finest = LOG.isLoggable(Level.FINEST);
+        if (finest) {
+            LOG.log(Level.FINEST, "My location: {0}, theirs: {1}", new Object[]{lastLocation, m.getLocation()});
+        }
         final double d = lastLocation.getDistance(m.getLocation());
 
         double d_step = getAgent().getSpeed();
@@ -154,14 +265,22 @@ public class NeighborTracking extends AbstractBehavior<Plane> {
         // The objective is max(n) s.t. d + d_step * n < comm_range
         // we compute that as n=int(s) where s = (comm_range - d)/d_step
         final double s = (getAgent().getCommunicationRange() - d) / d_step;
-        LOG.log(Level.FINEST, "d = {0}, d_step = {1}, range = {2}", new Object[]{d, d_step, getAgent().getCommunicationRange()});
+        if (finest) {
+            LOG.log(Level.FINEST, "d = {0}, d_step = {1}, range = {2}", new Object[]{d, d_step, getAgent().getCommunicationRange()});
+        }
         final int n = (int)s;
 
         if (n > 0) {
-            LOG.log(Level.FINER, "Adding {0} as a neighbor for {1} iterations.",
-                    new Object[]{neighbor, n});
+            if (LOG.isLoggable(Level.FINER)) {
+                LOG.log(Level.FINER, "Adding {0} as a neighbor for {1} iterations.",
+                        new Object[]{neighbor, n});
+            }
+            if (isAdaptive() && !neighbors.contains(neighbor, 1)) {
+                // Reply, so that the new neighbor learns about us as well
+                beaconRequested = true;
+            }
             neighbors.add(neighbor, n);
-        } else {
+        } else if (finest) {
             LOG.log(Level.FINEST, "Ignoring {0} as a neighbor (s={1}, d_step={2}).",
                     new Object[]{neighbor, s, d_step});
         }
@@ -175,18 +294,189 @@ public class NeighborTracking extends AbstractBehavior<Plane> {
      */
     @Override
     public void postStep() {
-        MessagingAgent a = getAgent();
+        if (getOracle() != null) {
+            return;
+        }
+
+        final Plane a = getAgent();
+        lastPostStep = a.getWorld().getTime();
+        final TrackingMessage beacon = nextBeacon();
+        if (beacon != null) {
+            a.send(beacon);
+        }
+    }
+
+    /**
+     * Record the current location of the agent, and get the beacon that it
+     * must send at this iteration, if any.
+     *
+     * @return beacon to send, or <em>null</em> if none is due.
+     */
+    private TrackingMessage nextBeacon() {
+        final Plane a = getAgent();
+        final Location l = a.getLocation();
+        final double heading = lastLocation.equals(l) ? Double.NaN : l.getAngle(lastLocation);
+        lastLocation.setLocation(l.getX(), l.getY());
+
+        final long now = a.getWorld().getTime();
+        if (!isBeaconDue(now, heading)) {
+            return null;
+        }
+
         if (LOG.isLoggable(Level.FINER)) {
             LOG.log(Level.FINER, "{0} sending beacon.", new Object[]{a});
         }
-        lastLocation = new Location(a.getLocation());
-        a.send(new TrackingMessage(lastLocation));
+
+        // The others will know that we stay in range for (at least) as long
+        // as we know that they do, minus this iteration
+        final int min = neighbors.getMinIterations();
+        beaconRequested = false;
+        lastBeaconTime = now;
+        lastBeaconHeading = heading;
+        beaconExpiry = min == Integer.MAX_VALUE ? Long.MAX_VALUE : now + min - 1;
+        return buildMessage(l);
+    }
+
+    /**
+     * Check whether the agent must send a beacon at this iteration.
+     *
+     * @param now current time.
+     * @param heading current heading of the agent, or NaN if it is not
+     *                moving.
+     * @return True if a beacon must be sent, or False otherwise.
+     */
+    private boolean isBeaconDue(long now, double heading) {
+        if (!isAdaptive() || beaconRequested || lastBeaconTime < 0 || now >= beaconExpiry
+                || now - lastBeaconTime >= getConfiguration().getBeaconMaxInterval()) {
+            return true;
+        }
+
+        // Changes of heading, including starting and stopping
+        if (Double.isNaN(heading) || Double.isNaN(lastBeaconHeading)) {
+            return Double.isNaN(heading) != Double.isNaN(lastBeaconHeading);
+        }
+        final double change = Math.IEEEremainder(heading - lastBeaconHeading, 2*Math.PI);
+        return Math.abs(change) > HEADING_TOLERANCE;
+    }
+
+    /**
+     * Check whether neighbors are kept across iterations, with beacons sent
+     * only when needed.
+     *
+     * @return True if beacons are not sent at every tick.
+     */
+    private boolean isAdaptive() {
+        return getConfiguration().getBeaconMaxInterval() > 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * In this case, the beacon that announces the current location of the
+     * agent (which is the last known one, unless it keeps flying while
+     * sleeping). When beacons are only sent when needed, it is only sent if
+     * it is due, exactly as in {@link #postStep()}. There are no beacons when
+     * the world computes the neighbors.
+     */
+    @Override
+    public Message getBeacon() {
+        if (getOracle() != null) {
+            return null;
+        }
+
+        final TrackingMessage beacon;
+        if (isAdaptive()) {
+            age(getAgent().getWorld().getTime());
+            beacon = nextBeacon();
+        } else {
+            beacon = buildMessage(getAgent().getLocation());
+        }
+        if (beacon != null) {
+            beacon.setSender(getAgent());
+        }
+        return beacon;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * In this case, beacons are sent at every tick unless they are only sent
+     * when needed. Then, the heading of the agent may have changed at the
+     * first tick after its last post-step, but otherwise it keeps flying
+     * straight (or stays put) while sleeping, so the next beacon is due when
+     * the guarantee of the last one runs out, or when the maximum interval
+     * elapses.
+     */
+    @Override
+    public long getNextBeaconTime() {
+        if (getOracle() != null) {
+            return Long.MAX_VALUE;
+        }
+
+        final long now = getAgent().getWorld().getTime();
+        if (!isAdaptive() || lastBeaconTime < 0 || lastPostStep == now) {
+            return now + 1;
+        }
+        final long interval = lastBeaconTime + getConfiguration().getBeaconMaxInterval();
+        return Math.max(now + 1, Math.min(beaconExpiry, interval));
+    }
+
+    /**
+     * Get a tracking message from the pool, announcing the given location.
+     *
+     * @param location to announce.
+     * @return tracking message.
+     */
+    private TrackingMessage buildMessage(Location location) {
+        if (pool == null) {
+            pool = new MessagePool<TrackingMessage>() {
+                @Override
+                protected TrackingMessage create() {
+                    return new TrackingMessage(lastLocation);
+                }
+            };
+        }
+        final TrackingMessage m = pool.acquire(getAgent().getWorld().getTime());
+        m.location.setLocation(location.getX(), location.getY());
+        return m;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * In this case, the tracked neighbors only change when some agent moves,
+     * so this behavior never needs to act by itself. However, when beacons
+     * are only sent when needed, hearing a new neighbor requires replying
+     * to it at the next iteration.
+     */
+    @Override
+    public long getNextEventTime(List<Message> pending) {
+        if (getOracle() != null || !isAdaptive()) {
+            return Long.MAX_VALUE;
+        }
+
+        final long next = getAgent().getWorld().getTime() + 1;
+        // Neighbors are aged when the agent acts again
+        final int iterations = lastAged < 0 ? Integer.MAX_VALUE
+                : (int)Math.min(Integer.MAX_VALUE, next - lastAged + 1);
+        for (int i=0, len=pending.size(); i<len; i++) {
+            final Message m = pending.get(i);
+            if (m instanceof TrackingMessage && m.getSender() != getAgent()
+                    && !neighbors.contains(m.getSender(), iterations)) {
+                return next;
+            }
+        }
+        return Long.MAX_VALUE;
     }
 
     /**
      * Beacon message sent by agents that keep track of their neighbors.
+     * <p/>
+     * These messages are recycled through a {@link MessagePool}, so their
+     * location must be copied out when handling them.
      */
     public class TrackingMessage extends AbstractMessage {
+        private static final long serialVersionUID = 1L;
 
         private final Location location;
 
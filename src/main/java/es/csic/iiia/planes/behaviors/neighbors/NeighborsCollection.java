@@ -37,6 +37,11 @@
 package es.csic.iiia.planes.behaviors.neighbors;
 
 import es.csic.iiia.planes.MessagingAgent;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectInputValidation;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -48,13 +53,103 @@ import java.util.TreeSet;
 /**
  * Collection that holds the list of neighbors, including for how many
  * iterations are they guaranteed to still be neighbors.
+ * <p/>
+ * Neighbors can be kept across iterations, by aging the collection (see
+ * {@link #age(int)}). To avoid updating every entry, the entries hold the
+ * number of iterations counted from the time when the collection was last
+ * cleared, except for the ones that never expire.
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-class NeighborsCollection implements Collection<NeighborEntry>
-{
-    private Map<MessagingAgent, Integer> map = new HashMap<MessagingAgent, Integer>();
-    private TreeSet<NeighborEntry> set = new TreeSet<NeighborEntry>();
+class NeighborsCollection implements Collection<NeighborEntry>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private transient Map<MessagingAgent, Integer> map = new HashMap<MessagingAgent, Integer>();
+    private transient TreeSet<NeighborEntry> set = new TreeSet<NeighborEntry>();
+
+    /**
+     * Number of iterations that the collection has been aged since it was
+     * last cleared.
+     */
+    private int age = 0;
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(set.size());
+        for (NeighborEntry e : set) {
+            out.writeObject(e.agent);
+            out.writeInt(toIterations(e.iters));
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        final int n = in.readInt();
+        final MessagingAgent[] agents = new MessagingAgent[n];
+        final int[] iters = new int[n];
+        for (int i=0; i<n; i++) {
+            agents[i] = (MessagingAgent)in.readObject();
+            iters[i] = in.readInt();
+        }
+
+        // The agents may not be completely restored yet, so they can not be
+        // hashed until the whole checkpoint has been read.
+        map = new HashMap<MessagingAgent, Integer>();
+        set = new TreeSet<NeighborEntry>();
+        in.registerValidation(new ObjectInputValidation() {
+            @Override
+            public void validateObject() {
+                for (int i=0; i<n; i++) {
+                    add(agents[i], iters[i]);
+                }
+            }
+        }, 0);
+    }
+
+    /**
+     * Get the value stored in the entries for the given number of
+     * iterations from now.
+     */
+    private int toStored(int iterations) {
+        if (iterations > Integer.MAX_VALUE - age) {
+            return Integer.MAX_VALUE;
+        }
+        return iterations + age;
+    }
+
+    /**
+     * Get the number of iterations from now for the given value stored in
+     * the entries.
+     */
+    private int toIterations(int stored) {
+        return stored == Integer.MAX_VALUE ? stored : stored - age;
+    }
+
+    /**
+     * Ages the collection, so that all the neighbors are guaranteed to stay
+     * for the given number of iterations less, dropping the ones that are no
+     * longer guaranteed to be neighbors.
+     *
+     * @param iterations number of iterations elapsed.
+     */
+    public void age(int iterations) {
+        age += iterations;
+        while (!set.isEmpty() && toIterations(set.last().iters) <= 0) {
+            map.remove(set.pollLast().agent);
+        }
+    }
+
+    /**
+     * Get the number of iterations that the neighbor that leaves the earliest
+     * is guaranteed to stay.
+     *
+     * @return number of iterations until the earliest neighbor may leave, or
+     *         {@link Integer#MAX_VALUE} if there are no neighbors that may
+     *         leave.
+     */
+    public int getMinIterations() {
+        return set.isEmpty() ? Integer.MAX_VALUE : toIterations(set.last().iters);
+    }
 
     /**
      * Adds a new neighbor to the collection.
@@ -65,6 +160,7 @@ class NeighborsCollection implements Collection<NeighborEntry>
      * @return True if the neighbors collection has been updated, or False otherwise.
      */
     public boolean add(MessagingAgent a, Integer iters) {
+        iters = toStored(iters);
 
         if (map.containsKey(a)) {
             int old_iters = map.get(a);
@@ -111,7 +207,7 @@ class NeighborsCollection implements Collection<NeighborEntry>
      * @return
      */
     public boolean hasNeighbors(final int iterations) {
-        return set.lower(new NeighborEntry(null, iterations-1)) != null;
+        return set.lower(new NeighborEntry(null, toStored(iterations)-1)) != null;
     }
 
     /**
@@ -129,7 +225,7 @@ class NeighborsCollection implements Collection<NeighborEntry>
             return false;
         }
 
-        final int i = map.get(a);
+        final int i = toIterations(map.get(a));
         return iters <= i;
     }
 
@@ -137,6 +233,7 @@ class NeighborsCollection implements Collection<NeighborEntry>
     public void clear() {
         set.clear();
         map.clear();
+        age = 0;
     }
 
     @Override
@@ -154,6 +251,12 @@ class NeighborsCollection implements Collection<NeighborEntry>
         return set.contains(o);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The entries hold the number of iterations counted from the time when
+     * the collection was last cleared.
+     */
     @Override
     public Iterator<NeighborEntry> iterator() {
         return set.iterator();
@@ -266,7 +369,7 @@ class NeighborsCollection implements Collection<NeighborEntry>
         private void advance() {
             if (iterator.hasNext()) {
                 NeighborEntry e = iterator.next();
-                if (e.iters >= iterations) {
+                if (toIterations(e.iters) >= iterations) {
                     next = e.agent;
                     return;
                 }
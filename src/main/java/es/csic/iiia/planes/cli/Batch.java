@@ -0,0 +1,418 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.cli;
+
+import es.csic.iiia.planes.DefaultFactory;
+import es.csic.iiia.planes.DefaultWorld;
+import es.csic.iiia.planes.Factory;
+import es.csic.iiia.planes.World;
+import es.csic.iiia.planes.WorldSnapshot;
+import es.csic.iiia.planes.definition.DProblem;
+import org.apache.commons.cli.*;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Main class to run a batch of simulations within a single JVM.
+ * <p/>
+ * The batch is described by a jobs file, where each (non-empty) line defines
+ * a simulation to run. Each line contains the path to a problem file,
+ * optionally followed by a list of <em>setting=value</em> overrides. Lines
+ * starting with '#' are ignored. For instance:
+ * <pre>
+ * scenarios/short-hotspots.json planes=auction battery=default
+ * scenarios/short-hotspots.json planes=none
+ * </pre>
+ * Simulations are run concurrently, and problem files are parsed only once
+ * regardless of the number of jobs using them. The result of each job is
+ * written as a single line of <em>key=value</em> pairs, in the same order as
+ * the jobs file.
+ * <p/>
+ * Alternatively, all the jobs can continue from the same point of a single
+ * simulation. In this case, the first job is simulated up to the given fork
+ * time, and then each job runs its own fork of that simulation. Hence, the
+ * jobs can only differ in the settings that are read while the simulation
+ * runs (such as the auctions interval).
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class Batch {
+
+    private static final Logger LOG = Logger.getLogger(Batch.class.getName());
+
+    /**
+     * List of available cli options.
+     */
+    private static Options options = new Options();
+
+    /**
+     * Batch's entry point.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        Cli.initializeLogging();
+
+        options.addOption("h", "help", false, "show this help message.");
+        options.addOption(OptionBuilder.withArgName("file")
+                .hasArg()
+                .withDescription("Load the base settings of all jobs from <file>.")
+                .withLongOpt("settings")
+                .create('s'));
+        options.addOption(OptionBuilder.withArgName("n")
+                .hasArg()
+                .withDescription("run up to <n> simulations at once (defaults to the number of processors).")
+                .withLongOpt("threads")
+                .create('j'));
+        options.addOption(OptionBuilder.withArgName("time")
+                .hasArg()
+                .withDescription("run the first job up to <time> (in tenths of second), and then fork it to run every job from that point on.")
+                .withLongOpt("fork-at")
+                .create('f'));
+
+        CommandLineParser parser = new PosixParser();
+        CommandLine line = null;
+        try {
+            line = parser.parse(options, args);
+        } catch (ParseException ex) {
+            LOG.log(Level.SEVERE, ex.getLocalizedMessage(), ex);
+            showHelp();
+        }
+
+        if (line.hasOption('h') || line.getArgs().length < 1) {
+            showHelp();
+        }
+
+        Properties settings = Cli.loadDefaultSettings();
+        if (line.hasOption('s')) {
+            String fname = line.getOptionValue('s');
+            try {
+                settings.load(new FileReader(fname));
+            }  catch (IOException ex) {
+                throw new IllegalArgumentException("Unable to load the settings file \"" + fname + "\"");
+            }
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (line.hasOption('j')) {
+            threads = Integer.valueOf(line.getOptionValue('j'));
+        }
+
+        long forkAt = -1;
+        if (line.hasOption('f')) {
+            forkAt = Long.valueOf(line.getOptionValue('f'));
+        }
+
+        List<Job> jobs = readJobs(line.getArgs()[0]);
+        run(jobs, settings, threads, forkAt);
+    }
+
+    private static void showHelp() {
+        HelpFormatter formatter = new HelpFormatter();
+        formatter.printHelp("batch [options] <jobs file>", options);
+        System.exit(1);
+    }
+
+    /**
+     * Reads the list of jobs from the given file.
+     *
+     * @param fname path to the jobs file.
+     * @return list of jobs.
+     */
+    private static List<Job> readJobs(String fname) {
+        List<Job> jobs = new ArrayList<Job>();
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(fname));
+            int nline = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                nline++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] tokens = line.split("\\s+");
+                Job job = new Job(jobs.size() + 1, tokens[0]);
+                for (int i=1; i<tokens.length; i++) {
+                    final int separator = tokens[i].indexOf('=');
+                    if (separator < 1) {
+                        throw new IllegalArgumentException("Invalid setting \""
+                                + tokens[i] + "\" at line " + nline + " of the jobs file.");
+                    }
+                    job.overrides.put(tokens[i].substring(0, separator),
+                            tokens[i].substring(separator + 1));
+                }
+                jobs.add(job);
+            }
+            reader.close();
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Unable to read the jobs file \"" + fname + "\"");
+        }
+        return jobs;
+    }
+
+    /**
+     * Runs all the given jobs, writing their results to standard output in
+     * the same order.
+     *
+     * @param jobs list of jobs to run.
+     * @param settings base settings for all jobs.
+     * @param threads maximum number of simulations to run at once.
+     * @param forkAt time (in tenths of second) when the first job must be
+     *               forked to run all the others, or -1 to run every job on
+     *               its own.
+     */
+    private static void run(List<Job> jobs, Properties settings, int threads, long forkAt) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Map<String, DProblem> problems = new HashMap<String, DProblem>();
+        WorldSnapshot snapshot = null;
+        RuntimeException forkError = null;
+
+        List<Future<String>> results = new ArrayList<Future<String>>();
+        for (Job job : jobs) {
+            Properties s = new Properties();
+            s.putAll(settings);
+            s.putAll(job.overrides);
+            s.setProperty("problem", job.problem);
+            s.setProperty("gui", "false");
+            s.setProperty("quiet", "true");
+            s.setProperty("checkpoint-every", "0");
+
+            Callable<String> task;
+            try {
+                DProblem problem = problems.get(job.problem);
+                if (problem == null) {
+                    problem = Configuration.readProblem(job.problem);
+                    problems.put(job.problem, problem);
+                }
+                Configuration config = new Configuration(s, problem);
+                if (forkAt < 0) {
+                    task = new Simulation(config);
+                } else {
+                    if (forkError != null) {
+                        throw forkError;
+                    }
+                    if (snapshot == null) {
+                        try {
+                            snapshot = prepareFork(config, forkAt);
+                        } catch (RuntimeException ex) {
+                            forkError = ex;
+                            throw ex;
+                        }
+                    }
+                    task = new Fork(snapshot, config);
+                }
+            } catch (final RuntimeException ex) {
+                task = new Callable<String>() {
+                    @Override
+                    public String call() {
+                        throw ex;
+                    }
+                };
+            }
+            results.add(executor.submit(task));
+        }
+
+        for (int i=0; i<jobs.size(); i++) {
+            StringBuilder buf = new StringBuilder(jobs.get(i).toString());
+            try {
+                buf.append(results.get(i).get());
+            } catch (ExecutionException ex) {
+                LOG.log(Level.SEVERE, "Error running job " + (i+1), ex.getCause());
+                buf.append(" error=\"").append(ex.getCause()).append("\"");
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            System.out.println(buf);
+        }
+
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs a simulation up to the given time, and takes a snapshot of it.
+     *
+     * @param config configuration of the simulation.
+     * @param forkAt time (in tenths of second) when the simulation must be
+     *               paused.
+     * @return snapshot of the paused simulation.
+     */
+    private static WorldSnapshot prepareFork(Configuration config, long forkAt) {
+        final int length = config.getTickLength();
+        World world = new BatchFactory(config).buildWorld();
+        world.init(config.getProblemDefinition());
+        if (!world.runUntil((forkAt + length - 1) / length)) {
+            throw new IllegalArgumentException("The first job ends before the fork time.");
+        }
+
+        try {
+            return new WorldSnapshot(world);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Unable to fork the first job.", ex);
+        }
+    }
+
+    /**
+     * Formats the results of a finished simulation as a row suffix.
+     *
+     * @param world finished simulation.
+     * @return row suffix with the results.
+     */
+    private static String format(World world) {
+        StringBuilder buf = new StringBuilder();
+        for (Map.Entry<String, Number> e : world.getResults().entrySet()) {
+            buf.append(" ").append(e.getKey()).append("=").append(e.getValue());
+        }
+        if (world.getAbortReason() != null) {
+            buf.append(" aborted=").append(world.getAbortReason());
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Definition of a single simulation to run.
+     */
+    private static class Job {
+        private final int id;
+        private final String problem;
+        private final Map<String, String> overrides = new LinkedHashMap<String, String>();
+
+        public Job(int id, String problem) {
+            this.id = id;
+            this.problem = problem;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder buf = new StringBuilder();
+            buf.append("job=").append(id).append(" problem=").append(problem);
+            for (Map.Entry<String, String> e : overrides.entrySet()) {
+                buf.append(" ").append(e.getKey()).append("=").append(e.getValue());
+            }
+            return buf.toString();
+        }
+    }
+
+    /**
+     * Runs a simulation and returns its results formatted as a row suffix,
+     * without displaying anything.
+     */
+    private static class Simulation implements Callable<String> {
+        private final Configuration config;
+
+        public Simulation(Configuration config) {
+            this.config = config;
+        }
+
+        @Override
+        public String call() {
+            World world = new BatchFactory(config).buildWorld();
+            world.init(config.getProblemDefinition());
+            world.run();
+            return format(world);
+        }
+    }
+
+    /**
+     * Resumes a fork of a paused simulation and returns its results
+     * formatted as a row suffix, without displaying anything.
+     */
+    private static class Fork implements Callable<String> {
+        private final WorldSnapshot snapshot;
+        private final Configuration config;
+
+        public Fork(WorldSnapshot snapshot, Configuration config) {
+            this.snapshot = snapshot;
+            this.config = config;
+        }
+
+        @Override
+        public String call() throws IOException {
+            World world = snapshot.fork(config);
+            world.resume();
+            return format(world);
+        }
+    }
+
+    /**
+     * Factory of worlds that do not display their results.
+     */
+    private static class BatchFactory extends DefaultFactory {
+        private static final long serialVersionUID = 1L;
+
+        public BatchFactory(Configuration config) {
+            super(config);
+        }
+
+        @Override
+        public World buildWorld() {
+            world = new BatchWorld(this);
+            return world;
+        }
+    }
+
+    /**
+     * World that does not display its results.
+     */
+    private static class BatchWorld extends DefaultWorld {
+        private static final long serialVersionUID = 1L;
+
+        public BatchWorld(Factory factory) {
+            super(factory);
+        }
+
+        @Override
+        protected void displayResults() {}
+    }
+
+}
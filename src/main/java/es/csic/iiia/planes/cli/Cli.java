@@ -37,6 +37,9 @@
  */
 package es.csic.iiia.planes.cli;
 
+import es.csic.iiia.planes.Checkpoint;
+import es.csic.iiia.planes.DigestLog;
+import es.csic.iiia.planes.World;
 import org.apache.commons.cli.*;
 
 import java.io.*;
@@ -68,6 +71,11 @@ public class Cli {
     public static void main(String[] args) {
         initializeLogging();
 
+        options.addOption(OptionBuilder.withArgName("log1 log2")
+                .hasArgs(2)
+                .withDescription("compare two state digest logs, reporting the first tick where they diverge.")
+                .withLongOpt("compare-digests")
+                .create('c'));
         options.addOption("d", "dump-settings", false, "dump the default settings to standard output. This can be used to prepare a settings file.");;
         options.addOption("g", "gui", false, "graphically display the simulation.");
         options.addOption("h", "help", false, "show this help message.");
@@ -78,6 +86,11 @@ public class Cli {
                 //.withLongOpt("override")
                 .create('o'));
         options.addOption("q", "quiet", false, "disable all output except for results and errors.");
+        options.addOption(OptionBuilder.withArgName("checkpoint")
+                .hasArg()
+                .withDescription("Resume the simulation saved in <checkpoint>, with the settings it was started with.")
+                .withLongOpt("resume")
+                .create('r'));
         options.addOption(OptionBuilder.withArgName("file")
                 .hasArg()
                 .withDescription("Load settings from <file>.")
@@ -87,7 +100,17 @@ public class Cli {
                 .withDescription("Output only the resolved settings, but do not run the simulation.")
                 .create('t'));
 
-        Configuration config = parseOptions(args);
+        CommandLine line = parseCommandLine(args);
+        if (line.hasOption('c')) {
+            compareDigests(line.getOptionValues('c'));
+            return;
+        }
+        if (line.hasOption('r')) {
+            resume(line.getOptionValue('r'));
+            return;
+        }
+
+        Configuration config = parseOptions(line);
         CliApp app = new CliApp(config);
         app.run();
     }
@@ -102,12 +125,11 @@ public class Cli {
      * Parse the provided list of arguments according to the program's options.
      *
      * @param in_args list of input arguments.
-     * @return a configuration object set according to the input options.
+     * @return the parsed command line.
      */
-    private static Configuration parseOptions(String[] in_args) {
+    private static CommandLine parseCommandLine(String[] in_args) {
         CommandLineParser parser = new PosixParser();
         CommandLine line = null;
-        Properties settings = loadDefaultSettings();
 
         try {
             line = parser.parse(options, in_args);
@@ -123,6 +145,17 @@ public class Cli {
         if (line.hasOption('d')) {
             dumpSettings();
         }
+        return line;
+    }
+
+    /**
+     * Builds the configuration defined by the given command line.
+     *
+     * @param line parsed command line.
+     * @return a configuration object set according to the input options.
+     */
+    private static Configuration parseOptions(CommandLine line) {
+        Properties settings = loadDefaultSettings();
 
         if (line.hasOption('s')) {
             String fname = line.getOptionValue('s');
@@ -154,10 +187,53 @@ public class Cli {
         return c;
     }
 
+    /**
+     * Resumes the simulation saved in the given checkpoint file.
+     *
+     * @param fname path to the checkpoint file.
+     */
+    private static void resume(String fname) {
+        World world;
+        try {
+            world = Checkpoint.read(fname);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Unable to read the checkpoint file \"" + fname + "\"", ex);
+        }
+
+        System.out.println(world.getFactory().getConfiguration().toString());
+        world.resume();
+    }
+
+    /**
+     * Compares two state digest logs, exiting with a non-zero status if they
+     * diverge.
+     *
+     * @param files paths to the logs.
+     */
+    private static void compareDigests(String[] files) {
+        if (files == null || files.length != 2) {
+            showHelp();
+        }
+
+        String divergence;
+        try {
+            divergence = DigestLog.compare(files[0], files[1]);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Unable to read the digest logs", ex);
+        }
+
+        if (divergence == null) {
+            System.out.println("The digest logs are identical.");
+            return;
+        }
+        System.out.println(divergence);
+        System.exit(1);
+    }
+
     /**
      * Initializes the logging system.
      */
-    private static void initializeLogging() {
+    static void initializeLogging() {
         try {
             // Load logging configuration
             LogManager.getLogManager().readConfiguration(
@@ -172,7 +248,7 @@ public class Cli {
     /**
      * Loads the default settings.
      */
-    private static Properties loadDefaultSettings() {
+    public static Properties loadDefaultSettings() {
         Properties settings = new Properties();
         try {
             InputStream is = Cli.class.getResourceAsStream(SETTINGS_FILE);
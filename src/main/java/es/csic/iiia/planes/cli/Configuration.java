@@ -76,10 +76,15 @@ import es.csic.iiia.planes.operator_behavior.Random;
 import es.csic.iiia.planes.operator_behavior.RandomInRange;
 import java.io.File;
 import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import org.codehaus.jackson.map.ObjectMapper;
 
 /**
@@ -87,7 +92,45 @@ import org.codehaus.jackson.map.ObjectMapper;
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public final class Configuration {
+public final class Configuration implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Settings that are read while the simulation runs, instead of when its
+     * elements are built. Hence, these are the only settings that may be
+     * changed when forking a running simulation.
+     *
+     * @see #checkForkable(Configuration)
+     */
+    private static final Set<String> RUNTIME_SETTINGS = Collections.unmodifiableSet(
+            new HashSet<String>(Arrays.asList("engine", "engine-threads", "spatial-sort-every",
+            "checkpoint-file", "digest-every", "digest-file", "gc-report", "auction-every",
+            "maxsum-iterations", "maxsum-start-every")));
+
+    /**
+     * Available simulation engines.
+     */
+    public enum Engine {
+        /** Runs all agents sequentially, in a single thread. */
+        SEQUENTIAL,
+        /** Runs the pre-step and post-step phases in parallel. */
+        PARALLEL,
+        /**
+         * Runs the pre-step and post-step phases in parallel, each agent as
+         * an independent actor.
+         */
+        ACTORS
+    }
+
+    /**
+     * Available ways for the planes to find their neighbors.
+     */
+    public enum NeighborMode {
+        /** Planes broadcast beacons and track each other from them. */
+        BEACONS,
+        /** The world computes the neighbors of all the planes. */
+        ORACLE
+    }
 
     /**
      * True if running with a graphical display, false otherwise.
@@ -146,6 +189,70 @@ public final class Configuration {
     private Class<? extends EvaluationStrategy<Plane>> evaluationClass;
 
     /* AUCTIONS specific stuff */
+    /**
+     * Engine used to run the simulation.
+     */
+    private Engine engine;
+
+    /**
+     * Way in which the planes find their neighbors.
+     */
+    private NeighborMode neighborMode;
+
+    /**
+     * Maximum number of ticks between the beacons of a plane (1 to send them
+     * at every tick).
+     */
+    private int beaconMaxInterval = 1;
+
+    /**
+     * Number of worker threads used by the parallel engine.
+     */
+    private int engineThreads;
+
+    /**
+     * Number of ticks between spatial sorts of the planes (0 disables them).
+     */
+    private long spatialSortEvery;
+
+    /**
+     * Length of each simulation tick, in tenths of second.
+     */
+    private int tickLength;
+
+    /**
+     * Seed of the random numbers drawn during the simulation.
+     */
+    private long seed;
+
+    /**
+     * Length of the stall detection window (in ticks), and budgets of each
+     * run in ticks and seconds of wall-clock time. Zero disables them.
+     */
+    private long stallTimeout;
+    private long maxTicks;
+    private long maxWallTime;
+
+    /**
+     * Number of ticks between checkpoints (0 disables them), and file where
+     * they are written.
+     */
+    private long checkpointEvery;
+    private String checkpointFile;
+
+    /**
+     * Number of ticks between state digests (0 disables them), and file where
+     * they are logged.
+     */
+    private long digestEvery;
+    private String digestFile;
+
+    /**
+     * Whether to report the memory allocated and the garbage collections
+     * run during the simulation.
+     */
+    private boolean gcReport;
+
     private int aucEvery;
     private BiddingRuleFactory aucBiddingRuleFactory;
     private double aucWorkloadK;
@@ -178,7 +285,27 @@ public final class Configuration {
         throw new IllegalArgumentException("Illegal " + key + " \"" + value + "\".");
     }
 
+    /**
+     * Builds a new configuration from the given settings, reading the problem
+     * definition from the file specified by the "problem" setting.
+     *
+     * @param settings simulator settings.
+     */
     public Configuration(Properties settings) {
+        this(settings, readProblem(settings.getProperty("problem")));
+    }
+
+    /**
+     * Builds a new configuration from the given settings and (already parsed)
+     * problem definition.
+     * <p/>
+     * Simulations never modify the problem definition, so the same one can
+     * be shared by many configurations.
+     *
+     * @param settings simulator settings.
+     * @param problem problem definition.
+     */
+    public Configuration(Properties settings, DProblem problem) {
         operatorStrategy = fetch(settings, getOperatorStrategies(), "operator-strategy");
         planesClass = fetch(settings, getPlaneClasses(), "planes");
 
@@ -200,26 +327,104 @@ public final class Configuration {
         gui = fetch(settings, getBooleanValues(), "gui");
         quiet = fetch(settings, getBooleanValues(), "quiet");
 
+        engine = fetch(settings, getEngines(), "engine");
+        if (engine != Engine.SEQUENTIAL) {
+            engineThreads = Integer.valueOf(settings.getProperty("engine-threads"));
+            if (engineThreads <= 0) {
+                engineThreads = Runtime.getRuntime().availableProcessors();
+            }
+            values.put("engine-threads", String.valueOf(engineThreads));
+        }
+
+        tickLength = Integer.valueOf(settings.getProperty("tick-length"));
+        if (tickLength < 1) {
+            throw new IllegalArgumentException("tick-length must be at least 1.");
+        }
+        values.put("tick-length", String.valueOf(tickLength));
+
+        seed = Long.valueOf(settings.getProperty("seed"));
+        values.put("seed", String.valueOf(seed));
+
+        spatialSortEvery = Long.valueOf(settings.getProperty("spatial-sort-every"));
+        if (spatialSortEvery < 0) {
+            throw new IllegalArgumentException("spatial-sort-every can not be negative.");
+        }
+        if (spatialSortEvery > 0) {
+            values.put("spatial-sort-every", String.valueOf(spatialSortEvery));
+            spatialSortEvery = Math.max(1, spatialSortEvery / tickLength);
+        }
+
+        final String stall = settings.getProperty("stall-timeout");
+        stallTimeout = "auto".equals(stall) ? problem.getDuration() : Long.valueOf(stall);
+        maxTicks = Long.valueOf(settings.getProperty("max-ticks"));
+        maxWallTime = Long.valueOf(settings.getProperty("max-wall-time"));
+        if (stallTimeout < 0 || maxTicks < 0 || maxWallTime < 0) {
+            throw new IllegalArgumentException("stall-timeout, max-ticks and max-wall-time can not be negative.");
+        }
+        values.put("stall-timeout", String.valueOf(stallTimeout));
+        values.put("max-ticks", String.valueOf(maxTicks));
+        values.put("max-wall-time", String.valueOf(maxWallTime));
+        if (stallTimeout > 0) {
+            stallTimeout = Math.max(1, stallTimeout / tickLength);
+        }
+
+        checkpointEvery = Long.valueOf(settings.getProperty("checkpoint-every"));
+        if (checkpointEvery < 0) {
+            throw new IllegalArgumentException("checkpoint-every can not be negative.");
+        }
+        if (checkpointEvery > 0) {
+            if (gui) {
+                throw new IllegalArgumentException("Checkpoints are not supported by the gui.");
+            }
+            // The max-sum factors (from the bms library) are not serializable
+            if (planesClass == MSPlane.class || omniscientAllocationStrategy == MaxSumAllocation.class) {
+                throw new IllegalArgumentException("Checkpoints are not supported by max-sum planes.");
+            }
+            values.put("checkpoint-every", String.valueOf(checkpointEvery));
+            checkpointFile = settings.getProperty("checkpoint-file");
+            values.put("checkpoint-file", checkpointFile);
+            checkpointEvery = Math.max(1, checkpointEvery / tickLength);
+        }
+
+        digestEvery = Long.valueOf(settings.getProperty("digest-every"));
+        if (digestEvery < 0) {
+            throw new IllegalArgumentException("digest-every can not be negative.");
+        }
+        if (digestEvery > 0) {
+            values.put("digest-every", String.valueOf(digestEvery));
+            digestFile = settings.getProperty("digest-file");
+            values.put("digest-file", digestFile);
+            digestEvery = Math.max(1, digestEvery / tickLength);
+        }
+
+        neighborMode = fetch(settings, getNeighborModes(), "neighbor-tracking");
+        if (neighborMode == NeighborMode.BEACONS) {
+            beaconMaxInterval = Integer.valueOf(settings.getProperty("beacon-max-interval"));
+            if (beaconMaxInterval < 1) {
+                throw new IllegalArgumentException("beacon-max-interval must be at least 1.");
+            }
+            values.put("beacon-max-interval", String.valueOf(beaconMaxInterval));
+            beaconMaxInterval = toTicks(beaconMaxInterval);
+        }
+
+        gcReport = fetch(settings, getBooleanValues(), "gc-report");
+        if (gcReport) {
+            values.put("gc-report", "true");
+        }
 
-        DProblem d = new DProblem();
-        ObjectMapper mapper = new ObjectMapper();
         problemFile = settings.getProperty("problem");
         values.put("problem", problemFile);
-        try {
-            d = mapper.readValue(new File(getProblemFile()), DProblem.class);
-            // Register the generator settings used to generate this problem
-            for (String key : d.getGeneratorSettings().keySet()) {
-                values.put("g-" + key, d.getGeneratorSettings().get(key));
-            }
-        } catch (IOException ex) {
-            throw new IllegalArgumentException("Error reading problem file \"" + getProblemFile() + "\"");
+        // Register the generator settings used to generate this problem
+        for (String key : problem.getGeneratorSettings().keySet()) {
+            values.put("g-" + key, problem.getGeneratorSettings().get(key));
         }
-        problemDefinition = d;
+        problemDefinition = problem;
 
         // Auctions settings
         if (values.get("planes").equals("auction")) {
             aucEvery = Integer.valueOf(settings.getProperty("auction-every"));
             values.put("auction-every", String.valueOf(aucEvery));
+            aucEvery = toTicks(aucEvery);
 
             aucBiddingRuleFactory = fetch(settings, getBiddingRuleFactories(), "auction-bidding-rule");
             if (values.get("auction-bidding-rule").equals("workload")) {
@@ -243,6 +448,10 @@ public final class Configuration {
             if ( values.get("planes").equals("maxsum")) {
                 msStartEvery = Integer.valueOf(settings.getProperty("maxsum-start-every"));
                 values.put("maxsum-start-every", String.valueOf(msStartEvery));
+                if (msStartEvery <= msIterations) {
+                    throw new IllegalArgumentException("maxsum-iterations must be < maxsum-start-every");
+                }
+                msStartEvery = toCycleTicks(msStartEvery, msIterations);
             }
 
             msCostFactorFactory = fetch(settings, getCostFactorFactories(), "maxsum-planes-function");
@@ -268,6 +477,7 @@ public final class Configuration {
             if(dsaEvery <= dsaIterations) {
                 throw new IllegalArgumentException("dsa-iterations must be < dsa-every");
             }
+            dsaEvery = toCycleTicks(dsaEvery, dsaIterations);
 
             dsaP = Double.valueOf(settings.getProperty("dsa-p"));
             values.put("dsa-p", String.valueOf(dsaP));
@@ -300,6 +510,48 @@ public final class Configuration {
 
     }
 
+    /**
+     * Converts a period given in tenths of second to a number of ticks.
+     *
+     * @param tenths period in tenths of second.
+     * @return number of ticks of the period (at least one).
+     */
+    private int toTicks(int tenths) {
+        return Math.max(1, tenths / tickLength);
+    }
+
+    /**
+     * Converts the period of a coordination cycle from tenths of second to
+     * ticks.
+     * <p/>
+     * Each iteration of the coordination algorithm takes one tick (the time
+     * to exchange a round of messages), so the iterations are not scaled.
+     * Instead, cycles are stretched to at least one tick more than their
+     * iterations, which they need to run completely.
+     *
+     * @param tenths period of the cycle in tenths of second.
+     * @param iterations iterations run in each cycle.
+     * @return period of the cycle in ticks.
+     */
+    private int toCycleTicks(int tenths, int iterations) {
+        return Math.max(iterations + 1, toTicks(tenths));
+    }
+
+    /**
+     * Reads a problem definition file.
+     *
+     * @param file path of the problem file.
+     * @return problem definition.
+     */
+    public static DProblem readProblem(String file) {
+        ObjectMapper mapper = new ObjectMapper();
+        try {
+            return mapper.readValue(new File(file), DProblem.class);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Error reading problem file \"" + file + "\"");
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder buf = new StringBuilder("###### Settings:\n");
@@ -310,6 +562,31 @@ public final class Configuration {
         return buf.toString();
     }
 
+    /**
+     * Checks that a simulation started with this configuration can continue
+     * running with the given one. This is only possible when both
+     * configurations differ in settings that are read while the simulation
+     * runs, such as the engine or the auctions interval.
+     *
+     * @param other configuration to continue running with.
+     * @throws IllegalArgumentException if the configurations differ in any
+     *         other setting.
+     */
+    public void checkForkable(Configuration other) {
+        Set<String> keys = new HashSet<String>(values.keySet());
+        keys.addAll(other.values.keySet());
+        keys.removeAll(RUNTIME_SETTINGS);
+
+        for (String key : keys) {
+            final String value = values.get(key);
+            final String otherValue = other.values.get(key);
+            if (value == null ? otherValue != null : !value.equals(otherValue)) {
+                throw new IllegalArgumentException("The \"" + key
+                        + "\" setting can not be changed once the simulation has started.");
+            }
+        }
+    }
+
     /**
      * @return the gui
      */
@@ -324,6 +601,116 @@ public final class Configuration {
         return quiet;
     }
 
+    /**
+     * @return the engine
+     */
+    public Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return the way in which the planes find their neighbors
+     */
+    public NeighborMode getNeighborMode() {
+        return neighborMode;
+    }
+
+    /**
+     * @return the maximum number of ticks between the beacons of a plane
+     */
+    public int getBeaconMaxInterval() {
+        return beaconMaxInterval;
+    }
+
+    /**
+     * @return the number of threads used by the parallel engine
+     */
+    public int getEngineThreads() {
+        return engineThreads;
+    }
+
+    /**
+     * @return the number of ticks between spatial sorts of the planes, or 0
+     *         if they are never sorted
+     */
+    public long getSpatialSortEvery() {
+        return spatialSortEvery;
+    }
+
+    /**
+     * @return the length of each simulation tick, in tenths of second
+     */
+    public int getTickLength() {
+        return tickLength;
+    }
+
+    /**
+     * @return the seed of the random numbers drawn during the simulation
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the length of the stall detection window in ticks, or 0 if
+     *         stalled simulations are never aborted
+     */
+    public long getStallTimeout() {
+        return stallTimeout;
+    }
+
+    /**
+     * @return the maximum number of ticks of each run, or 0 for no limit
+     */
+    public long getMaxTicks() {
+        return maxTicks;
+    }
+
+    /**
+     * @return the maximum wall-clock time of each run in seconds, or 0 for no
+     *         limit
+     */
+    public long getMaxWallTime() {
+        return maxWallTime;
+    }
+
+    /**
+     * @return the number of ticks between checkpoints, or 0 if checkpoints
+     *         are disabled
+     */
+    public long getCheckpointEvery() {
+        return checkpointEvery;
+    }
+
+    /**
+     * @return the path of the checkpoint file
+     */
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * @return the number of ticks between state digests, or 0 if digests
+     *         are disabled
+     */
+    public long getDigestEvery() {
+        return digestEvery;
+    }
+
+    /**
+     * @return whether to report the memory usage of the simulation
+     */
+    public boolean isGcReport() {
+        return gcReport;
+    }
+
+    /**
+     * @return the path of the digest log
+     */
+    public String getDigestFile() {
+        return digestFile;
+    }
+
     /**
      * @return the problemFile
      */
@@ -381,7 +768,7 @@ public final class Configuration {
     }
 
     /**
-     * @return the aucEvery
+     * @return the number of ticks between auctions
      */
     public int getAucEvery() {
         return aucEvery;
@@ -414,7 +801,7 @@ public final class Configuration {
     }
 
     /**
-     * @return the msStartEvery
+     * @return the number of ticks between maxsum cycles
      */
     public int getMsStartEvery() {
         return msStartEvery;
@@ -456,7 +843,7 @@ public final class Configuration {
     }
 
     /**
-     * @return the number of tenths of seconds between dsa executions.
+     * @return the number of ticks between dsa executions.
      */
     public int getDsaEvery() {
         return dsaEvery;
@@ -492,6 +879,21 @@ public final class Configuration {
         }};
     }
 
+    private Map<String, NeighborMode> getNeighborModes() {
+        return new HashMap<String, NeighborMode>() {{
+           put("beacons", NeighborMode.BEACONS);
+           put("oracle", NeighborMode.ORACLE);
+        }};
+    }
+
+    private Map<String, Engine> getEngines() {
+        return new HashMap<String, Engine>() {{
+           put("sequential", Engine.SEQUENTIAL);
+           put("parallel", Engine.PARALLEL);
+           put("actors", Engine.ACTORS);
+        }};
+    }
+
     private Map<String, Class<? extends Plane>> getPlaneClasses() {
         return new HashMap<String, Class<? extends Plane>>() {{
            put("auction", AuctionPlane.class);
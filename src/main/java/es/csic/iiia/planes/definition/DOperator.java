@@ -44,6 +44,8 @@ import java.util.ArrayList;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class DOperator extends DLocation {
+    private static final long serialVersionUID = 1L;
+
     private double communicationRange;
     private ArrayList<DTask> tasks = new ArrayList<DTask>();
 
@@ -45,6 +45,8 @@ import es.csic.iiia.planes.Plane;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class DPlane extends DLocation {
+    private static final long serialVersionUID = 1L;
+
     private double speed;
     private long batteryCapacity;
     private long initialBattery;
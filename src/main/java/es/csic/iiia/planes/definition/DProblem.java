@@ -36,6 +36,7 @@
  */
 package es.csic.iiia.planes.definition;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 
@@ -52,7 +53,8 @@ import java.util.HashMap;
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public class DProblem {
+public class DProblem implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     private int width = 1000;
     private int height = 1000;
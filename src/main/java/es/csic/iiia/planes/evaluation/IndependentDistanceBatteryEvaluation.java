@@ -48,6 +48,7 @@ import es.csic.iiia.planes.World;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class IndependentDistanceBatteryEvaluation implements EvaluationStrategy<Plane> {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Computes the cost for <em>plane</em> to perform <em>task</em>.
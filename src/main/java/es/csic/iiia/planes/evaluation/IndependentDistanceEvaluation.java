@@ -47,6 +47,7 @@ import es.csic.iiia.planes.Task;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class IndependentDistanceEvaluation implements EvaluationStrategy<Plane> {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Computes the cost for <em>plane</em> to perform <em>task</em>.
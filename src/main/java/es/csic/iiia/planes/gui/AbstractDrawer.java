@@ -0,0 +1,82 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.gui;
+
+import es.csic.iiia.planes.Location;
+import es.csic.iiia.planes.Positioned;
+
+/**
+ * Base for the objects that draw a simulation element in the GUI.
+ * <p/>
+ * Drawers wrap the element they draw, so that the simulation core never
+ * depends on the graphical classes.
+ *
+ * @param <T> type of the element being drawn.
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public abstract class AbstractDrawer<T extends Positioned> implements Drawable {
+
+    /**
+     * Element drawn by this drawer.
+     */
+    protected final T element;
+
+    /**
+     * Builds a drawer for the given element.
+     *
+     * @param element element to draw.
+     */
+    public AbstractDrawer(T element) {
+        this.element = element;
+    }
+
+    @Override
+    public Location getLocation() {
+        return element.getLocation();
+    }
+
+    @Override
+    public void setLocation(Location l) {
+        element.setLocation(l);
+    }
+
+    @Override
+    public double distance(Positioned other) {
+        return getLocation().distance(other.getLocation());
+    }
+
+}
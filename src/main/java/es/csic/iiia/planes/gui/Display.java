@@ -205,13 +205,18 @@ public class Display extends JFrame {
         return displayPane.getSize();
     }
 
+    /**
+     * Get the current simulation time, in tenths of second.
+     *
+     * @return current simulation time.
+     */
     public long getTime() {
-        return world.getTime();
+        return world.getTime() * world.getTickLength();
     }
 
     @Override
     public void paint(Graphics grphcs) {
-        time.setText("Time: " + (world.getTime()/10) + "s");
+        time.setText("Time: " + (getTime()/10) + "s");
         super.paint(grphcs);
     }
 }
@@ -38,8 +38,6 @@
 package es.csic.iiia.planes.gui;
 
 import es.csic.iiia.planes.AbstractFactory;
-import es.csic.iiia.planes.Location;
-import es.csic.iiia.planes.Plane;
 import es.csic.iiia.planes.cli.Configuration;
 
 /**
@@ -48,6 +46,7 @@ import es.csic.iiia.planes.cli.Configuration;
  * @author Marc Pujol <mpujol at iiia.csic.es>
  */
 public class GUIFactory extends AbstractFactory {
+    private static final long serialVersionUID = 1L;
 
     public GUIFactory(Configuration config) {
         super(config);
@@ -67,12 +66,4 @@ public class GUIFactory extends AbstractFactory {
         return w;
     }
 
-    @Override
-    public Plane buildPlane(Location location) {
-        Plane p = super.buildPlane(location);
-        PlaneDrawer drawer = new PlaneDrawer(p);
-        p.setDrawer(drawer);
-        return p;
-    }
-
 }
\ No newline at end of file
@@ -52,7 +52,9 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Point2D;
 import java.awt.image.VolatileImage;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -64,6 +66,7 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class GUIWorld extends AbstractWorld {
+    private static final long serialVersionUID = 1L;
 
     private static final int BUFFER_DIMENSION = 10;
 
@@ -74,6 +77,12 @@ public class GUIWorld extends AbstractWorld {
     public final Object displayEveryLock;
     private int steps = 0;
 
+    /**
+     * Drawers of the planes, created the first time that each plane is
+     * displayed.
+     */
+    private final Map<Plane, PlaneDrawer> planeDrawers = new HashMap<Plane, PlaneDrawer>();
+
     public GUIWorld(Factory factory) {
         super(factory);
         this.displayEveryLock = new Object();
@@ -90,6 +99,15 @@ public class GUIWorld extends AbstractWorld {
         super.computeStep();
     }
 
+    /**
+     * Idle ticks are not skipped when running with a graphical display, so
+     * that the animation keeps a steady pace.
+     */
+    @Override
+    protected boolean isFastForwardEnabled() {
+        return false;
+    }
+
     @Override public void init(DProblem d) {
         super.init(d);
     }
@@ -141,27 +159,27 @@ public class GUIWorld extends AbstractWorld {
         surface.clearRect(0, 0, dd.width, dd.height);
 
         dd = new Dimension(dd);
-        Dimension wd = getSpace().getDimension();
+        final Space space = getSpace();
         transform = new AffineTransform();
-        transform.scale(dd.width/(wd.getWidth()+400), dd.height/(wd.getHeight()+400));
+        transform.scale(dd.width/(space.getWidth()+400.), dd.height/(space.getHeight()+400.));
         transform.translate(200, 200);
         surface.setTransform(transform);
 
         // Draw recharge stations only if planes don't use an infinite battery
         if (!getFactory().getConfiguration().getBatteryClass().equals(InfiniteBattery.class)) {
             for (Station s : getStations()) {
-                s.draw(surface);
+                new StationDrawer(s).draw(surface);
             }
         }
 
         for (Operator o : getOperators()) {
-            o.draw(surface);
+            new OperatorDrawer(o).draw(surface);
         }
         for (Plane p : getPlanes()) {
-            p.getDrawer().draw(surface);
+            getDrawer(p).draw(surface);
         }
         for (Task t : getTasks()) {
-            t.draw(surface);
+            new TaskDrawer(t).draw(surface);
         }
 
         surface.dispose();
@@ -174,6 +192,16 @@ public class GUIWorld extends AbstractWorld {
         display.repaint();
     }
 
+    private PlaneDrawer getDrawer(Plane p) {
+        PlaneDrawer drawer = planeDrawers.get(p);
+        if (drawer == null) {
+            drawer = new PlaneDrawer(p);
+            drawer.initialize();
+            planeDrawers.put(p, drawer);
+        }
+        return drawer;
+    }
+
     public Plane getPlaneAt(Location l) {
         List<Plane> ps = getPlanes();
         for (int i=ps.size()-1; i>=0; i--) {
@@ -203,7 +231,8 @@ public class GUIWorld extends AbstractWorld {
     public Location screenToWorld(Point2D point) {
         try {
             AffineTransform t = transform.createInverse();
-            return new Location(t.transform(point, point));
+            Point2D p = t.transform(point, point);
+            return new Location(p.getX(), p.getY());
         } catch (NoninvertibleTransformException ex) {
             Logger.getLogger(GUIWorld.class.getName()).log(Level.SEVERE, null, ex);
         }
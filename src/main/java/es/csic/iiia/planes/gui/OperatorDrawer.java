@@ -0,0 +1,75 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.gui;
+
+import es.csic.iiia.planes.Operator;
+import es.csic.iiia.planes.gui.graphics.OperatorGraphic;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+
+/**
+ * Draws an operator, along with its communication range, in the GUI.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class OperatorDrawer extends AbstractDrawer<Operator> {
+
+    private static OperatorGraphic og = new OperatorGraphic();
+
+    public OperatorDrawer(Operator o) {
+        super(o);
+    }
+
+    @Override
+    public void draw(Graphics2D g) {
+        int x = getLocation().getXInt();
+        int y = getLocation().getYInt();
+
+        Color previous = g.getColor();
+        int dim = (int)(500 * element.getWorld().getSpace().getWidth() / 10000f);
+        og.setDimension(new Dimension(dim,dim));
+        og.paint(g, x-dim/2, y-dim/2);
+
+        g.setColor(new Color(200,200,255,100));
+        final int r = (int)element.getCommunicationRange();
+        g.fillOval(x-r, y-r, r*2, r*2);
+
+        g.setColor(previous);
+    }
+
+}
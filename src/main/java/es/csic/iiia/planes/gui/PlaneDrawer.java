@@ -39,12 +39,10 @@ package es.csic.iiia.planes.gui;
 import es.csic.iiia.planes.InfiniteBattery;
 import es.csic.iiia.planes.Location;
 import es.csic.iiia.planes.Plane;
-import es.csic.iiia.planes.Positioned;
 import es.csic.iiia.planes.Task;
 import es.csic.iiia.planes.gui.graphics.PlaneGraphic;
 import java.awt.BasicStroke;
 import java.awt.Color;
-import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
@@ -58,9 +56,7 @@ import java.util.List;
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public class PlaneDrawer implements Drawable {
-
-    private Plane plane;
+public class PlaneDrawer extends AbstractDrawer<Plane> {
 
     private double scale;
 
@@ -74,13 +70,17 @@ public class PlaneDrawer implements Drawable {
     private Stroke pastLocationsStroke;
     private Stroke radiusStroke;
 
+    /**
+     * Color of the plane, built from its RGB definition when first needed.
+     */
+    private Color color;
+
     public PlaneDrawer(Plane p) {
-        this.plane = p;
+        super(p);
     }
 
     public void initialize() {
-        Dimension dim = plane.getWorld().getSpace().getDimension();
-        scale = dim.getWidth() / 10000f;
+        scale = element.getWorld().getSpace().getWidth() / 10000.;
 
         normalStroke = new BasicStroke(scale(10f));
         batteryStroke = new BasicStroke(scale(10f));
@@ -100,11 +100,11 @@ public class PlaneDrawer implements Drawable {
 
     @Override
     public void draw(Graphics2D g) {
-        GUIWorld w = (GUIWorld)plane.getWorld();
+        GUIWorld w = (GUIWorld)element.getWorld();
 
 
         Plane selectedPlane = w.getSelectedPlane();
-        if (selectedPlane == plane) {
+        if (selectedPlane == element) {
             drawSelected(g);
         } else if (selectedPlane == null) {
             drawNormal(g);
@@ -113,26 +113,19 @@ public class PlaneDrawer implements Drawable {
         }
     }
 
-    @Override
-    public Location getLocation() {
-        return plane.getLocation();
-    }
-
-    @Override
-    public void setLocation(Location l) {
-        plane.setLocation(l);
-    }
-
-    @Override
-    public double distance(Positioned other) {
-        return getLocation().distance(other.getLocation());
+    private Color getColor() {
+        if (color == null) {
+            final int[] rgb = element.getColor();
+            color = new Color(rgb[0], rgb[1], rgb[2]);
+        }
+        return color;
     }
 
     private void drawFutureLocations(Graphics2D g) {
-        g.setColor(plane.getColor());
-        List<Location> plannedLocations = plane.getPlannedLocations();
+        g.setColor(getColor());
+        List<Location> plannedLocations = element.getPlannedLocations();
         if (plannedLocations == null || plannedLocations.isEmpty()) {
-            Task nextTask = plane.getNextTask();
+            Task nextTask = element.getNextTask();
             if (nextTask != null) {
                 int x = getLocation().getXInt();
                 int y = getLocation().getYInt();
@@ -152,12 +145,12 @@ public class PlaneDrawer implements Drawable {
         }
 
         g.setStroke(normalStroke);
-        g.setColor(plane.getColor());
+        g.setColor(getColor());
         g.draw(p);
     }
 
     private void drawPastLocations(Graphics2D g) {
-        List<Location> completedLocations = plane.getCompletedLocations();
+        List<Location> completedLocations = element.getCompletedLocations();
         if (completedLocations == null || completedLocations.isEmpty()) {
             return;
         }
@@ -173,7 +166,7 @@ public class PlaneDrawer implements Drawable {
                 p.lineTo(l.getX(), l.getY());
             }
         }
-        p.lineTo(plane.getLocation().getX(), plane.getLocation().getY());
+        p.lineTo(element.getLocation().getX(), element.getLocation().getY());
         g.setColor(Color.RED);
         g.setStroke(pastLocationsStroke);
         g.draw(p);
@@ -186,8 +179,8 @@ public class PlaneDrawer implements Drawable {
         drawFutureLocations(g);
         drawPastLocations(g);
 
-        drawTasks(g, plane.getColor());
-        drawPlane(g, Color.DARK_GRAY, plane.getColor());
+        drawTasks(g, getColor());
+        drawPlane(g, Color.DARK_GRAY, getColor());
         drawBattery(g, new Color(0,200,0));
 
         g.setColor(previous);
@@ -199,7 +192,7 @@ public class PlaneDrawer implements Drawable {
         // Line to destination (if exists)
         int x = getLocation().getXInt();
         int y = getLocation().getYInt();
-        Task nextTask = plane.getNextTask();
+        Task nextTask = element.getNextTask();
         if (nextTask != null) {
             g.setColor(Color.LIGHT_GRAY);
             final Location l = nextTask.getLocation();
@@ -216,7 +209,7 @@ public class PlaneDrawer implements Drawable {
 
     private void drawTasks(Graphics2D g, Color c) {
         g.setColor(c);
-        for (Task t : plane.getTasks()) {
+        for (Task t : element.getTasks()) {
             final Location l = t.getLocation();
             int dim = scale(50);
             g.fillOval(l.getXInt()-dim, l.getYInt()-dim, dim*2, dim*2);
@@ -232,7 +225,7 @@ public class PlaneDrawer implements Drawable {
 
         int dim = scale(350);
         newt.translate(x-dim/2, y-dim/2);
-        newt.rotate(plane.getAngle(), dim/2, dim/2);
+        newt.rotate(element.getAngle(), dim/2, dim/2);
         newt.rotate(3*Math.PI/2., dim/2, dim/2);
         newt.scale(dim, dim);
         g.setTransform(newt);
@@ -246,14 +239,14 @@ public class PlaneDrawer implements Drawable {
         // Draw the communication circle
         g.setStroke(radiusStroke);
         g.setTransform(oldt);
-        final int r = (int)plane.getCommunicationRange();
+        final int r = (int)element.getCommunicationRange();
         g.drawOval(x-r, y-r, r*2, r*2);
 
         g.setStroke(olds);
     }
 
     private void drawBattery(Graphics2D g, Color c) {
-        if (plane.getBattery() instanceof InfiniteBattery) {
+        if (element.getBattery() instanceof InfiniteBattery) {
             return;
         }
 
@@ -261,7 +254,7 @@ public class PlaneDrawer implements Drawable {
         int y = getLocation().getYInt();
 
         g.setFont(batteryFont);
-        double percent = plane.getBattery().getEnergy()/(double)plane.getBattery().getCapacity();
+        double percent = element.getBattery().getEnergy()/(double)element.getBattery().getCapacity();
         //String bat =  MessageFormat.format("{0,number,#.##%}", percent);
         //FontMetrics m = g.getFontMetrics(batteryFont);
         //int w = m.stringWidth(bat);
@@ -281,8 +274,8 @@ public class PlaneDrawer implements Drawable {
     private void drawNormal(Graphics2D g) {
         Color previous = g.getColor();
 
-        drawTasks(g, plane.getColor());
-        drawPlane(g, Color.DARK_GRAY, plane.getColor());
+        drawTasks(g, getColor());
+        drawPlane(g, Color.DARK_GRAY, getColor());
         drawBattery(g, new Color(0,200,0));
         drawFutureLocations(g);
 
@@ -43,10 +43,16 @@ import es.csic.iiia.planes.Plane;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class DoNothing implements IdleStrategy {
+    private static final long serialVersionUID = 1L;
 
     @Override
     public boolean idleAction(Plane plane) {
         return false;
     }
 
+    @Override
+    public long getNextActionTime(Plane plane) {
+        return Long.MAX_VALUE;
+    }
+
 }
@@ -47,6 +47,7 @@ import es.csic.iiia.planes.Plane;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class FlyTowardsOperator implements IdleStrategy {
+    private static final long serialVersionUID = 1L;
 
     @Override
     public boolean idleAction(Plane plane) {
@@ -66,4 +67,15 @@ public class FlyTowardsOperator implements IdleStrategy {
         return false;
     }
 
+    @Override
+    public long getNextActionTime(Plane plane) {
+        Location pl = plane.getLocation();
+        Operator o  = plane.getWorld().getNearestOperator(pl);
+
+        if (pl.getDistance(o.getLocation()) >= o.getCommunicationRange()) {
+            return plane.getWorld().getTime() + 1;
+        }
+        return Long.MAX_VALUE;
+    }
+
 }
@@ -50,13 +50,15 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class FlyTowardsOperatorP implements IdleStrategy {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(FlyTowardsOperatorP.class.getName());
 
     private long n_steps = 0;
     private long last_time = 0;
     private long timeout = 100;
     private boolean moving = false;
-    private static Random rand = new Random(0L);
+    private Random rand;
 
     @Override
     public boolean idleAction(Plane plane) {
@@ -65,9 +67,14 @@ public class FlyTowardsOperatorP implements IdleStrategy {
         if (cur_time != last_time + 1) {
             n_steps = 1;
 
+            if (rand == null) {
+                rand = plane.getRandom().split(getClass().getName());
+            }
             double r = rand.nextDouble();
             moving = false;
-            timeout = 1 + rand.nextInt(10*60*60*24);
+            // Up to 24 hours (in tenths of second), converted to ticks
+            final long length = plane.getWorld().getTickLength();
+            timeout = (rand.nextInt(10*60*60*24) + length) / length;
         } else {
             n_steps++;
         }
@@ -89,4 +96,15 @@ public class FlyTowardsOperatorP implements IdleStrategy {
         return false;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * This strategy counts the consecutive steps that the plane has been
+     * idle, so it needs to run at every tick.
+     */
+    @Override
+    public long getNextActionTime(Plane plane) {
+        return plane.getWorld().getTime() + 1;
+    }
+
 }
@@ -37,6 +37,7 @@
 package es.csic.iiia.planes.idle;
 
 import es.csic.iiia.planes.Plane;
+import java.io.Serializable;
 
 /**
  * Defines pluggable strategies of what to do when a plane is idle.
@@ -46,7 +47,7 @@ import es.csic.iiia.planes.Plane;
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public interface IdleStrategy {
+public interface IdleStrategy extends Serializable {
 
     /**
      * Evaluates actions to perform when a plane is idle.
@@ -56,4 +57,14 @@ public interface IdleStrategy {
      */
     public boolean idleAction(Plane plane);
 
+    /**
+     * Get the earliest time at which this strategy may perform some action
+     * for the given (idle) plane, assuming that nothing else changes in the
+     * world until then.
+     *
+     * @param plane plane that is currently idle.
+     * @return earliest time at which an action may be done.
+     */
+    public long getNextActionTime(Plane plane);
+
 }
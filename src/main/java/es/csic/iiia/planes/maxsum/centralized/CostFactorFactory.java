@@ -39,6 +39,7 @@ package es.csic.iiia.planes.maxsum.centralized;
 import es.csic.iiia.planes.Factory;
 import es.csic.iiia.planes.Plane;
 import es.csic.iiia.planes.World;
+import java.io.Serializable;
 
 /**
  * Factory that builds the CostFactor factors.
@@ -48,7 +49,7 @@ import es.csic.iiia.planes.World;
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public interface CostFactorFactory<T> {
+public interface CostFactorFactory<T> extends Serializable {
 
     /**
      * Build a new {@link CostFactor}
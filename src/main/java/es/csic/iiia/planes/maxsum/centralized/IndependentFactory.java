@@ -44,6 +44,7 @@ import es.csic.iiia.planes.Plane;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class IndependentFactory<T> implements CostFactorFactory<T> {
+    private static final long serialVersionUID = 1L;
 
     @Override
     public CostFactor<T> build(Plane plane) {
@@ -47,6 +47,7 @@ import es.csic.iiia.planes.cli.Configuration;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class KAlphaFactory implements WorkloadFunctionFactory {
+    private static final long serialVersionUID = 1L;
 
     @Override
     public CardinalityFunction build(Plane plane) {
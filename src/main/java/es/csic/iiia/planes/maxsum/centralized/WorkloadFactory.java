@@ -46,6 +46,7 @@ import es.csic.iiia.planes.cli.Configuration;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class WorkloadFactory<T> implements CostFactorFactory<T> {
+    private static final long serialVersionUID = 1L;
 
     @Override
     public WorkloadFactor<T> build(Plane plane) {
@@ -38,6 +38,7 @@ package es.csic.iiia.planes.maxsum.centralized;
 
 import es.csic.iiia.bms.factors.CardinalityFactor.CardinalityFunction;
 import es.csic.iiia.planes.Plane;
+import java.io.Serializable;
 
 /**
  * Factory that builds the appropiate workload function, according to the
@@ -45,7 +46,7 @@ import es.csic.iiia.planes.Plane;
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public interface WorkloadFunctionFactory {
+public interface WorkloadFunctionFactory extends Serializable {
 
     /**
      * Builds a new workload function, according to the simulator's
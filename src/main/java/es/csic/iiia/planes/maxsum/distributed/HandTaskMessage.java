@@ -45,6 +45,7 @@ import es.csic.iiia.planes.messaging.AbstractMessage;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class HandTaskMessage extends AbstractMessage {
+    private static final long serialVersionUID = 1L;
 
     private final Task task;
 
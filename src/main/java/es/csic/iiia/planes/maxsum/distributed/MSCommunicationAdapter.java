@@ -37,6 +37,7 @@
 package es.csic.iiia.planes.maxsum.distributed;
 
 import es.csic.iiia.bms.CommunicationAdapter;
+import es.csic.iiia.planes.messaging.MessagePool;
 
 /**
  *
@@ -46,13 +47,21 @@ public class MSCommunicationAdapter implements CommunicationAdapter<FactorID> {
 
     private final MSPlane plane;
 
+    private final MessagePool<MSMessage> pool = new MessagePool<MSMessage>() {
+        @Override
+        protected MSMessage create() {
+            return new MSMessage(null, null, 0);
+        }
+    };
+
     public MSCommunicationAdapter(MSPlane plane) {
         this.plane = plane;
     }
 
     @Override
     public void send(double message, FactorID sender, FactorID recipient) {
-        MSMessage msg = new MSMessage(sender, recipient, message);
+        MSMessage msg = pool.acquire(plane.getWorld().getTime());
+        msg.set(sender, recipient, message);
         msg.setRecipient(recipient.plane);
         plane.send(msg);
     }
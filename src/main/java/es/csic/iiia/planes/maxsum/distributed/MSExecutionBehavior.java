@@ -41,6 +41,8 @@ import es.csic.iiia.bms.factors.SelectorFactor;
 import es.csic.iiia.planes.Task;
 import es.csic.iiia.planes.behaviors.AbstractBehavior;
 import es.csic.iiia.planes.maxsum.centralized.CostFactor;
+import es.csic.iiia.planes.messaging.Message;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -51,6 +53,8 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class MSExecutionBehavior extends AbstractBehavior<MSPlane> {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(MSExecutionBehavior.class.getName());
 
     public MSExecutionBehavior(MSPlane plane) {
@@ -112,4 +116,23 @@ public class MSExecutionBehavior extends AbstractBehavior<MSPlane> {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Inactive planes do not run max-sum until the next cycle starts, and
+     * that is triggered by the {@link MSUpdateGraphBehavior}.
+     */
+    @Override
+    public long getNextEventTime(List<Message> pending) {
+        if (!getAgent().isInactive()) {
+            return getAgent().getWorld().getTime() + 1;
+        }
+        for (int i=0, len=pending.size(); i<len; i++) {
+            if (pending.get(i) instanceof MSMessage) {
+                return getAgent().getWorld().getTime() + 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+}
@@ -41,16 +41,28 @@ import es.csic.iiia.planes.messaging.AbstractMessage;
 /**
  * Skeletal implementation of a message exchanged by the max-sum algorithm in
  * this application domain.
+ * <p/>
+ * These messages are recycled through a
+ * {@link es.csic.iiia.planes.messaging.MessagePool}, so their
+ * contents must be copied out when handling them.
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class MSMessage extends AbstractMessage {
+    private static final long serialVersionUID = 1L;
 
-    public final FactorID senderFactor;
-    public final FactorID recipientFactor;
-    public final double value;
+    public FactorID senderFactor;
+    public FactorID recipientFactor;
+    public double value;
 
     public MSMessage(FactorID sender, FactorID recipient, double value) {
+        set(sender, recipient, value);
+    }
+
+    /**
+     * Set the contents of this message, when reusing it.
+     */
+    final void set(FactorID sender, FactorID recipient, double value) {
         this.senderFactor = sender;
         this.recipientFactor = recipient;
         this.value = value;
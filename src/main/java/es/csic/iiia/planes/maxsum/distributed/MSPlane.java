@@ -59,6 +59,8 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class MSPlane extends AbstractPlane {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(MSPlane.class.getName());
 
     private static final MaxOperator operator = new Minimize();
@@ -40,6 +40,7 @@ import es.csic.iiia.bms.factors.SelectorFactor;
 import es.csic.iiia.planes.Task;
 import es.csic.iiia.planes.behaviors.AbstractBehavior;
 import es.csic.iiia.planes.Plane;
+import es.csic.iiia.planes.messaging.Message;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -53,6 +54,8 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class MSTasksDecideBehavior extends AbstractBehavior<MSPlane> {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(MSTasksDecideBehavior.class.getName());
 
     public MSTasksDecideBehavior(MSPlane agent) {
@@ -126,4 +129,23 @@ public class MSTasksDecideBehavior extends AbstractBehavior<MSPlane> {
         getAgent().send(msg);
     }
 
-}
\ No newline at end of file
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Inactive planes take no decisions until the next cycle starts, and
+     * that is triggered by the {@link MSUpdateGraphBehavior}.
+     */
+    @Override
+    public long getNextEventTime(List<Message> pending) {
+        if (!getAgent().isInactive()) {
+            return getAgent().getWorld().getTime() + 1;
+        }
+        for (int i=0, len=pending.size(); i<len; i++) {
+            if (pending.get(i) instanceof HandTaskMessage) {
+                return getAgent().getWorld().getTime() + 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+}
@@ -43,6 +43,7 @@ import es.csic.iiia.planes.behaviors.AbstractBehavior;
 import es.csic.iiia.planes.behaviors.neighbors.NeighborTracking;
 import es.csic.iiia.planes.cli.Configuration;
 import es.csic.iiia.planes.maxsum.centralized.CostFactor;
+import es.csic.iiia.planes.messaging.Message;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -54,6 +55,8 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class MSUpdateGraphBehavior extends AbstractBehavior<MSPlane> {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(MSUpdateGraphBehavior.class.getName());
 
     private NeighborTracking tracker;
@@ -150,4 +153,14 @@ public class MSUpdateGraphBehavior extends AbstractBehavior<MSPlane> {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The graph is only rebuilt at the beginning of each max-sum cycle.
+     */
+    @Override
+    public long getNextEventTime(List<Message> pending) {
+        return getNextCadenceTime(getConfiguration().getMsStartEvery(), 1);
+    }
+
+}
@@ -44,6 +44,7 @@ import es.csic.iiia.planes.MessagingAgent;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public abstract class AbstractMessage implements Message {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Get the message's sender.
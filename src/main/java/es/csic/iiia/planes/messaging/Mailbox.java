@@ -0,0 +1,146 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.messaging;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Preallocated buffer of the messages received by an agent.
+ * <p/>
+ * Mailboxes are filled during a step and then emptied all at once, so they
+ * keep their storage across steps instead of allocating it each time.
+ * However, they shrink back when a burst of messages has passed and they have
+ * been holding much fewer of them for a while.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class Mailbox extends AbstractList<Message> implements RandomAccess, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Initial (and minimum) capacity of the mailbox.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Number of times that the mailbox is emptied between checks of whether
+     * it should shrink.
+     */
+    private static final int SHRINK_PERIOD = 64;
+
+    private Message[] messages = new Message[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Largest number of messages held since the last shrinking check.
+     */
+    private int peak;
+
+    /**
+     * Number of times that the mailbox has been emptied since the last
+     * shrinking check.
+     */
+    private int clears;
+
+    /**
+     * Read-only view of this mailbox, built on first use.
+     */
+    private transient List<Message> view;
+
+    /**
+     * Get a read-only view of this mailbox.
+     *
+     * @return read-only view of the messages in this mailbox.
+     */
+    public List<Message> getView() {
+        if (view == null) {
+            view = Collections.unmodifiableList(this);
+        }
+        return view;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Message get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        return messages[i];
+    }
+
+    @Override
+    public boolean add(Message m) {
+        if (size == messages.length) {
+            final Message[] tmp = new Message[size * 2];
+            System.arraycopy(messages, 0, tmp, 0, size);
+            messages = tmp;
+        }
+        messages[size++] = m;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (int i=0; i<size; i++) {
+            messages[i] = null;
+        }
+        peak = Math.max(peak, size);
+        size = 0;
+
+        if (++clears == SHRINK_PERIOD) {
+            if (peak * 4 < messages.length && messages.length > INITIAL_CAPACITY) {
+                messages = new Message[Math.max(INITIAL_CAPACITY, peak * 2)];
+            }
+            peak = 0;
+            clears = 0;
+        }
+    }
+
+}
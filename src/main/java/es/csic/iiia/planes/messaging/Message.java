@@ -37,13 +37,14 @@
 package es.csic.iiia.planes.messaging;
 
 import es.csic.iiia.planes.MessagingAgent;
+import java.io.Serializable;
 
 /**
  * Base type for any messages exchanged by {@link MessagingAgent}s.
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public interface Message {
+public interface Message extends Serializable {
 
     /**
      * Get the sender of this message.
@@ -0,0 +1,121 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.messaging;
+
+import java.util.ArrayList;
+
+/**
+ * Pool of reusable messages, to avoid allocating new ones each tick.
+ * <p/>
+ * A message taken from the pool is valid until the end of the step that
+ * follows the tick when it was taken. That is the latest that it can be
+ * handled, even when its recipient is sleeping and the message is held for
+ * it. Afterwards, it is recycled for a later {@link #acquire(long)}. Hence,
+ * messages taken from a pool must never be kept by the agents that handle
+ * them, nor sent repeatedly across ticks. For instance, the beacons of
+ * sleeping agents are acquired again at each tick when they are sent, even
+ * if the agent has not changed since the last one.
+ * <p/>
+ * Pools are not thread safe, so each sender must use its own pool.
+ *
+ * @param <T> type of the pooled messages.
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public abstract class MessagePool<T extends Message> {
+
+    /**
+     * Messages ready to be reused.
+     */
+    private final ArrayList<T> free = new ArrayList<T>();
+
+    /**
+     * Messages taken at the last tick when the pool was used before the
+     * current one.
+     */
+    private ArrayList<T> previous = new ArrayList<T>();
+
+    /**
+     * Messages taken at the current tick.
+     */
+    private ArrayList<T> current = new ArrayList<T>();
+
+    /**
+     * Tick when the messages in {@link #current} were taken.
+     */
+    private long currentTime = Long.MIN_VALUE;
+
+    /**
+     * Get a message from the pool, building a new one if none can be reused.
+     * <p/>
+     * The returned message still holds the contents that it had when it was
+     * last used, so the caller must set all of them.
+     *
+     * @param time current simulation time.
+     * @return message to send.
+     */
+    public T acquire(long time) {
+        if (time != currentTime) {
+            // Messages taken before the previous tick that used the pool are
+            // stale by now
+            for (int i=0, len=previous.size(); i<len; i++) {
+                free.add(previous.get(i));
+            }
+            previous.clear();
+            ArrayList<T> tmp = previous;
+            previous = current;
+            current = tmp;
+            currentTime = time;
+        }
+
+        final T message;
+        if (free.isEmpty()) {
+            message = create();
+        } else {
+            message = free.remove(free.size() - 1);
+        }
+        current.add(message);
+        return message;
+    }
+
+    /**
+     * Build a new message for the pool.
+     *
+     * @return new message.
+     */
+    protected abstract T create();
+
+}
@@ -48,6 +48,7 @@ import java.util.TreeMap;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public abstract class AbstractAllocationStrategy implements AllocationStrategy {
+    private static final long serialVersionUID = 1L;
 
     protected Task getNearest(OmniscientPlane p, ArrayList<Task> candidates) {
         double mind = Double.MAX_VALUE;
@@ -40,6 +40,7 @@ import es.csic.iiia.planes.Location;
 import es.csic.iiia.planes.MessagingAgent;
 import es.csic.iiia.planes.Task;
 import es.csic.iiia.planes.World;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -55,6 +56,8 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public abstract class AbstractSSIAllocation extends AbstractAllocationStrategy {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(SSIAllocation.class.getName());
     Map<OmniscientPlane, PathCost> assignments = new TreeMap<OmniscientPlane, PathCost>();
 
@@ -145,7 +148,9 @@ public abstract class AbstractSSIAllocation extends AbstractAllocationStrategy {
     /**
      * Holds a plane's plan (sequence of tasks to service) and its associated cost
      */
-    protected class PathCost {
+    protected class PathCost implements Serializable {
+        private static final long serialVersionUID = 1L;
+
         public final List<Task> path;
         public final double cost;
         public PathCost(List<Task> path, double cost) {
@@ -157,7 +162,9 @@ public abstract class AbstractSSIAllocation extends AbstractAllocationStrategy {
     /**
      * Indicates the best position where to insert a task into a plan.
      */
-    protected class BestPosition {
+    protected class BestPosition implements Serializable {
+        private static final long serialVersionUID = 1L;
+
         public final int index;
         public final Double additionalCost;
         public final Double totalCost;
@@ -173,7 +180,9 @@ public abstract class AbstractSSIAllocation extends AbstractAllocationStrategy {
         }
     }
 
-    private class Bid implements Comparable<Bid> {
+    private class Bid implements Comparable<Bid>, Serializable {
+        private static final long serialVersionUID = 1L;
+
         public final Task task;
         public final BestPosition bp;
         public final OmniscientPlane plane;
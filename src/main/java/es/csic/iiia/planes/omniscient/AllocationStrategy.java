@@ -40,6 +40,7 @@ import es.csic.iiia.planes.Location;
 import es.csic.iiia.planes.Task;
 import es.csic.iiia.planes.World;
 import es.csic.iiia.planes.MessagingAgent;
+import java.io.Serializable;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeMap;
@@ -50,7 +51,7 @@ import java.util.TreeMap;
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-public interface AllocationStrategy {
+public interface AllocationStrategy extends Serializable {
 
     /**
      * Compute an allocation of planes to requests.
@@ -39,6 +39,7 @@ package es.csic.iiia.planes.omniscient;
 import es.csic.iiia.planes.Task;
 import es.csic.iiia.planes.World;
 import es.csic.iiia.planes.MessagingAgent;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -51,6 +52,8 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class HungarianMethodAllocation extends AbstractAllocationStrategy {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(HungarianMethodAllocation.class.getName());
 
     @Override
@@ -71,8 +74,8 @@ public class HungarianMethodAllocation extends AbstractAllocationStrategy {
         TreeMap<OmniscientPlane, Task> assignmentMap,
         TreeMap<Task, OmniscientPlane> reverseMap)
     {
-        List<Task> tasks = world.getTasks();
-        final double maxWeight = world.getSpace().getDimension().height + world.getSpace().getDimension().width;
+        List<Task> tasks = new ArrayList<Task>(world.getTasks());
+        final double maxWeight = world.getSpace().getHeight() + world.getSpace().getWidth();
 
         // Remove tasks that can not be seen by any plane
         Iterator<Task> it = tasks.iterator();
@@ -51,6 +51,8 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class IncrementalSSIAllocation extends AbstractSSIAllocation {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(IncrementalSSIAllocation.class.getName());
 
     @Override
@@ -57,6 +57,8 @@ import java.util.logging.Logger;
  */
 @SuppressWarnings("unchecked")
 public class MaxSumAllocation extends AbstractAllocationStrategy {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(MaxSumAllocation.class.getName());
 
     private final static MaxOperator msOperator = new Minimize();
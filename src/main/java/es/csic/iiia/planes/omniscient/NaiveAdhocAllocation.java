@@ -48,6 +48,7 @@ import java.util.TreeMap;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class NaiveAdhocAllocation extends AbstractAllocationStrategy {
+    private static final long serialVersionUID = 1L;
 
     @Override
     public String getName() {
@@ -57,6 +57,8 @@ import java.util.logging.Logger;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class NofirstSSIAllocation extends AbstractSSIAllocation {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(NofirstSSIAllocation.class.getName());
 
     @Override
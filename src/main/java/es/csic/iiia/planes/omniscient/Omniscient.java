@@ -36,45 +36,62 @@
  */
 package es.csic.iiia.planes.omniscient;
 
-import es.csic.iiia.planes.Location;
 import es.csic.iiia.planes.Operator;
-import es.csic.iiia.planes.Plane;
 import es.csic.iiia.planes.Task;
 import es.csic.iiia.planes.World;
 import es.csic.iiia.planes.operator_behavior.OperatorStrategy;
-import java.util.List;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
+ * Operator strategy that submits tasks to the omniscient god, who then
+ * commands the omniscient planes.
+ * <p/>
+ * There is a single god for each simulated world, so the same strategy can be
+ * shared by many simultaneous simulations.
  *
  * @author Marc Pujol <mpujol at iiia.csic.es>
  */
 public class Omniscient implements OperatorStrategy {
+    private static final long serialVersionUID = 1L;
 
-    private static OmniscientGod god = new OmniscientGod();
+    private transient Map<World, OmniscientGod> gods = new WeakHashMap<World, OmniscientGod>();
 
-    static Task getNextTask(OmniscientPlane plane) {
-        return god.getNextTask(plane);
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(new HashMap<World, OmniscientGod>(gods));
     }
 
-    static void taskCompleted(Task t) {
-        god.taskCompleted(t);
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        gods = new WeakHashMap<World, OmniscientGod>();
+        gods.putAll((Map<World, OmniscientGod>)in.readObject());
     }
 
-    static void iter(long time) {
-        god.iter(time);
-    }
-
-    static void initialize(World w) {
-        god.initialize(w);
-    }
-
-    static List<Location> getPlannedLocations(OmniscientPlane plane) {
-        return god.getPlannedLocations(plane);
+    /**
+     * Get the god of the given world, creating it if necessary.
+     *
+     * @param w world whose god to retrieve.
+     * @return god of the given world.
+     */
+    synchronized OmniscientGod getGod(World w) {
+        OmniscientGod god = gods.get(w);
+        if (god == null) {
+            god = new OmniscientGod();
+            god.initialize(w);
+            gods.put(w, god);
+        }
+        return god;
     }
 
     @Override
     public boolean submitTask(World w, Operator o, Task t) {
-        return god.addTask(o, t);
+        return getGod(w).addTask(o, t);
     }
 
 }
@@ -39,10 +39,12 @@ package es.csic.iiia.planes.omniscient;
 import es.csic.iiia.planes.Location;
 import es.csic.iiia.planes.Operator;
 import es.csic.iiia.planes.Plane;
+import es.csic.iiia.planes.PlaneStates;
 import es.csic.iiia.planes.Task;
 import es.csic.iiia.planes.World;
 import es.csic.iiia.planes.cli.Configuration;
 import es.csic.iiia.planes.MessagingAgent;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -57,7 +59,9 @@ import java.util.logging.Logger;
  *
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
-class OmniscientGod {
+class OmniscientGod implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private static final Logger LOG = Logger.getLogger(OmniscientGod.class.getName());
 
     private World world = null;
@@ -66,6 +70,8 @@ class OmniscientGod {
     private TreeMap<OmniscientPlane, Task> assignmentMap = new TreeMap<OmniscientPlane, Task>();
     private TreeMap<Task, OmniscientPlane> reverseMap = new TreeMap<Task, OmniscientPlane>();
     private boolean[][] planeVisibility;
+    private MessagingAgent[] agents;
+    private double[] xs, ys;
     private boolean changes = true;
     private AllocationStrategy strategy;
 
@@ -93,30 +99,40 @@ class OmniscientGod {
     }
 
     private boolean checkPlaneVisibility() {
+        // Gather the positions first, reading those of the planes from the
+        // world's plane states
+        final PlaneStates states = world.getPlaneStates();
+        final int n = agents.length;
+        for (int i=0; i<n; i++) {
+            if (agents[i] instanceof Plane) {
+                final int idx = PlaneStates.indexOf((Plane)agents[i]);
+                xs[i] = states.getX(idx);
+                ys[i] = states.getY(idx);
+            } else {
+                xs[i] = agents[i].getLocation().getX();
+                ys[i] = agents[i].getLocation().getY();
+            }
+        }
+
         boolean changed = false;
-        int i=0;
-        for (MessagingAgent p1 : visibilityMap.keySet()) {
-            double r = p1.getCommunicationRange();
-            int j=0;
-            for (MessagingAgent p2 : visibilityMap.keySet()) {
-                double d = p1.getLocation().distance(p2.getLocation());
-                boolean expected = false;
-                if (d <= r) {
-                    expected = true;
-                }
-                if (planeVisibility[i][j] != expected) {
+        for (int i=0; i<n; i++) {
+            final double r = agents[i].getCommunicationRange();
+            final boolean[] visibility = planeVisibility[i];
+            for (int j=0; j<n; j++) {
+                final double dx = xs[i] - xs[j];
+                final double dy = ys[i] - ys[j];
+                final boolean expected = Math.sqrt(dx*dx + dy*dy) <= r;
+                if (visibility[j] != expected) {
                     changed = true;
                 }
-                planeVisibility[i][j] = expected;
-                j++;
+                visibility[j] = expected;
             }
-            i++;
         }
         return changed;
     }
 
     private long lastIter = -1;
-    public void iter(long i) {
+    public synchronized void iter(long i) {
         if (lastIter == i) return;
         if (lastIter == -1) {
             planes = world.getPlanes().toArray(new OmniscientPlane[0]);
@@ -129,6 +145,9 @@ class OmniscientGod {
                 visibilityMap.put(o, new TreeSet<Task>());
             }
             planeVisibility = new boolean[nagents][nagents];
+            agents = visibilityMap.keySet().toArray(new MessagingAgent[0]);
+            xs = new double[nagents];
+            ys = new double[nagents];
         }
 
         if (checkPlaneVisibility() || changes) {
@@ -46,6 +46,12 @@ import java.util.List;
  * @author Marc Pujol <mpujol at iiia.csic.es>
  */
 public class OmniscientPlane extends AbstractPlane {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * God that commands this plane.
+     */
+    private OmniscientGod god;
 
     public OmniscientPlane(Location location) {
         super(location);
@@ -54,26 +60,39 @@ public class OmniscientPlane extends AbstractPlane {
     @Override
     public void initialize() {
         super.initialize();
-        Omniscient.initialize(getWorld());
+        final Omniscient strategy = (Omniscient)getWorld().getFactory()
+                .getConfiguration().getOperatorStrategy();
+        god = strategy.getGod(getWorld());
     }
 
     @Override
     public void preStep() {
-        Omniscient.iter(getWorld().getTime());
+        god.iter(getWorld().getTime());
     }
 
     @Override
     public void step() {
-        Task nextTask = Omniscient.getNextTask(this);
+        Task nextTask = god.getNextTask(this);
         if (nextTask != getNextTask()) {
             setNextTask(nextTask);
         }
         super.step();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Omniscient planes follow the orders of the omniscient god, who may
+     * reassign tasks at any time. Hence, they can never be skipped.
+     */
+    @Override
+    public long getNextEventTime() {
+        return getWorld().getTime() + 1;
+    }
+
     @Override
     protected void taskCompleted(Task t) {
-        Omniscient.taskCompleted(t);
+        god.taskCompleted(t);
     }
 
     @Override
@@ -84,7 +103,7 @@ public class OmniscientPlane extends AbstractPlane {
 
     @Override
     public List<Location> getPlannedLocations() {
-        return Omniscient.getPlannedLocations(this);
+        return god.getPlannedLocations(this);
     }
 
 
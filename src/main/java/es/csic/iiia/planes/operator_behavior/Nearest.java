@@ -36,12 +36,9 @@
  */
 package es.csic.iiia.planes.operator_behavior;
 
-import es.csic.iiia.planes.Location;
 import es.csic.iiia.planes.Operator;
-import es.csic.iiia.planes.Plane;
 import es.csic.iiia.planes.Task;
 import es.csic.iiia.planes.World;
-import java.util.List;
 
 /**
  * An OperatorStrategy that submits the tasks to the plane that is currently
@@ -50,22 +47,12 @@ import java.util.List;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class Nearest implements OperatorStrategy {
+    private static final long serialVersionUID = 1L;
 
     @Override
     public boolean submitTask(World w, Operator o, Task t) {
-        final List<Plane> planes = w.getPlanes();
-        Location l = t.getLocation();
-
-        double mind = Double.MAX_VALUE;
-        Plane nearest = null;
-        for (Plane p : planes) {
-            final double d = p.getLocation().getDistance(l);
-            if (d < mind) {
-                mind = d;
-                nearest = p;
-            }
-        }
-        nearest.addTask(t);
+        final int nearest = w.getPlaneStates().getNearest(t.getLocation());
+        w.getPlanes().get(nearest).addTask(t);
         return true;
     }
 
@@ -36,12 +36,9 @@
  */
 package es.csic.iiia.planes.operator_behavior;
 
-import es.csic.iiia.planes.Location;
 import es.csic.iiia.planes.Operator;
-import es.csic.iiia.planes.Plane;
 import es.csic.iiia.planes.Task;
 import es.csic.iiia.planes.World;
-import java.util.List;
 
 /**
  * An OperatorStrategy that submits the tasks to the plane that is currently
@@ -50,34 +47,19 @@ import java.util.List;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class NearestInRange implements OperatorStrategy {
+    private static final long serialVersionUID = 1L;
 
     @Override
     public boolean submitTask(World w, Operator o, Task t) {
-        final List<Plane> planes = w.getPlanes();
-        final Location tl = t.getLocation();
-        final Location ol = o.getLocation();
-        final double or = o.getCommunicationRange();
+        final int nearest = w.getPlaneStates().getNearest(t.getLocation(),
+                o.getLocation(), o.getCommunicationRange());
 
-        double mind = Double.MAX_VALUE;
-        Plane nearest = null;
-        for (Plane p : planes) {
-            if (ol.distance(p.getLocation()) > or) {
-                continue;
-            }
-
-            final double d = p.getLocation().getDistance(tl);
-            if (d < mind) {
-                mind = d;
-                nearest = p;
-            }
-        }
-
-        if (nearest == null) {
+        if (nearest < 0) {
             // No plane where to submit the task!
             return false;
         }
 
-        nearest.addTask(t);
+        w.getPlanes().get(nearest).addTask(t);
         return true;
     }
 
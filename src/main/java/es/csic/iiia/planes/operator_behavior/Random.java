@@ -48,13 +48,12 @@ import java.util.List;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class Random implements OperatorStrategy {
-
-    private java.util.Random r = new java.util.Random(0);
+    private static final long serialVersionUID = 1L;
 
     @Override
     public boolean submitTask(World w, Operator o, Task t) {
         final List<Plane> planes = w.getPlanes();
-        int pnum = r.nextInt(planes.size());
+        int pnum = o.getRandom().nextInt(planes.size());
         planes.get(pnum).addTask(t);
         return true;
     }
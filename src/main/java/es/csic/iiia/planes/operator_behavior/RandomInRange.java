@@ -37,11 +37,9 @@
 package es.csic.iiia.planes.operator_behavior;
 
 import es.csic.iiia.planes.Operator;
-import es.csic.iiia.planes.Plane;
+import es.csic.iiia.planes.PlaneStates;
 import es.csic.iiia.planes.Task;
 import es.csic.iiia.planes.World;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * An OperatorStrategy that submits the tasks to a random plane.
@@ -49,23 +47,18 @@ import java.util.List;
  * @author Marc Pujol <mpujol@iiia.csic.es>
  */
 public class RandomInRange implements OperatorStrategy {
-
-    private java.util.Random r = new java.util.Random(0);
+    private static final long serialVersionUID = 1L;
 
     @Override
     public boolean submitTask(World w, Operator o, Task t) {
-        final List<Plane> planes = w.getPlanes();
-        final double orange = o.getCommunicationRange();
-
-        final List<Plane> planesInRange = new ArrayList<Plane>();
-        for (Plane p : planes) {
-            if (o.getLocation().distance(p.getLocation()) <= orange) {
-                planesInRange.add(p);
-            }
-        }
+        // Strategies are shared by all the operators (and forked worlds), so
+        // they must not keep any state of their own.
+        final PlaneStates states = w.getPlaneStates();
+        final int[] inRange = new int[states.size()];
+        final int n = states.collectInRange(o.getLocation(), o.getCommunicationRange(), inRange);
 
-        int pnum = r.nextInt(planesInRange.size());
-        planesInRange.get(pnum).addTask(t);
+        int pnum = o.getRandom().nextInt(n);
+        w.getPlanes().get(inRange[pnum]).addTask(t);
         return true;
     }
 
@@ -0,0 +1,265 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectInputValidation;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Insertion-ordered set with constant time insertion, removal and lookup.
+ * <p/>
+ * Elements are kept in a dense array, along with a map from each element to
+ * its slot. Removed elements leave an empty slot behind, and the array is
+ * compacted (preserving the insertion order) once there are more empty slots
+ * than elements, so all operations run in amortized constant time.
+ * <p/>
+ * The set can also be accessed through a read-only {@link List} view.
+ *
+ * @param <T> type of the stored elements.
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class IndexedSet<T> implements Iterable<T>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Object[] elements = new Object[16];
+
+    /**
+     * Number of slots in use (including the empty ones).
+     */
+    private int end = 0;
+
+    /**
+     * Number of elements in the set.
+     */
+    private int size = 0;
+
+    /**
+     * Slot where each element is stored.
+     */
+    private transient Map<T, Integer> index = new HashMap<T, Integer>();
+
+    private final List<T> view = new ListView();
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        // The elements may not be completely restored yet, so they can not be
+        // hashed until the whole object graph has been read.
+        index = new HashMap<T, Integer>();
+        in.registerValidation(new ObjectInputValidation() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void validateObject() {
+                for (int i=0; i<end; i++) {
+                    if (elements[i] != null) {
+                        index.put((T)elements[i], i);
+                    }
+                }
+            }
+        }, 0);
+    }
+
+    /**
+     * Add an element to the end of this set.
+     *
+     * @param e element to add.
+     * @return true if the element has been added, or false if it was already
+     *         in the set.
+     */
+    public boolean add(T e) {
+        if (index.containsKey(e)) {
+            return false;
+        }
+        if (end == elements.length) {
+            elements = Arrays.copyOf(elements, end * 2);
+        }
+        elements[end] = e;
+        index.put(e, end++);
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove an element from this set.
+     *
+     * @param e element to remove.
+     * @return true if the element has been removed, or false if it was not in
+     *         the set.
+     */
+    public boolean remove(T e) {
+        final Integer slot = index.remove(e);
+        if (slot == null) {
+            return false;
+        }
+        elements[slot] = null;
+        size--;
+        if (end - size > size) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Check if this set contains the given element.
+     *
+     * @param e element to check.
+     * @return true if the element is in the set, or false otherwise.
+     */
+    public boolean contains(T e) {
+        return index.containsKey(e);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get a read-only list view of this set, in insertion order.
+     *
+     * @return read-only view of this set.
+     */
+    public List<T> asList() {
+        return view;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int next = advance(0);
+
+            private int advance(int i) {
+                while (i < end && elements[i] == null) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                final T e = (T)elements[next];
+                next = advance(next + 1);
+                return e;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Read-only iterator.");
+            }
+        };
+    }
+
+    /**
+     * Move all elements to the beginning of the array, removing the empty
+     * slots between them.
+     */
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        int j = 0;
+        for (int i=0; i<end; i++) {
+            final Object e = elements[i];
+            if (e != null) {
+                elements[j] = e;
+                index.put((T)e, j++);
+            }
+        }
+        Arrays.fill(elements, j, end, null);
+        end = j;
+    }
+
+    @Override
+    public String toString() {
+        return view.toString();
+    }
+
+    /**
+     * Read-only list view of the set.
+     */
+    private class ListView extends AbstractList<T> implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int i) {
+            if (end != size) {
+                compact();
+            }
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+            }
+            return (T)elements[i];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return IndexedSet.this.iterator();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return index.containsKey(o);
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.util;
+
+/**
+ * Morton (Z-order) codes of points in a bounded two-dimensional area.
+ * <p/>
+ * The code of a point interleaves the bits of its (quantized) coordinates.
+ * Hence, sorting points by their codes lays them along a Z-shaped curve that
+ * keeps most points close to those that are near them in space.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public final class MortonCode {
+
+    /**
+     * Number of bits of each quantized coordinate.
+     */
+    public static final int BITS = 16;
+
+    private static final int MAX = (1 << BITS) - 1;
+
+    private MortonCode() {}
+
+    /**
+     * Get the code of the given cell.
+     *
+     * @param x column of the cell, between 0 and 2^{@link #BITS}-1.
+     * @param y row of the cell, between 0 and 2^{@link #BITS}-1.
+     * @return Morton code of the cell, as a non-negative number.
+     */
+    public static long encode(int x, int y) {
+        return spread(x) | ((long)spread(y) << 1);
+    }
+
+    /**
+     * Get the code of the given point of the area (0,0)-(width,height).
+     * Points outside that area get the code of the nearest border cell.
+     *
+     * @param x horizontal coordinate of the point.
+     * @param y vertical coordinate of the point.
+     * @param width width of the area.
+     * @param height height of the area.
+     * @return Morton code of the point, as a non-negative number.
+     */
+    public static long encode(double x, double y, double width, double height) {
+        return encode(quantize(x, width), quantize(y, height));
+    }
+
+    private static int quantize(double coordinate, double length) {
+        if (!(coordinate > 0) || length <= 0) {
+            return 0;
+        }
+        return (int)Math.min(MAX, coordinate / length * (MAX + 1));
+    }
+
+    /**
+     * Spreads the lowest {@link #BITS} bits of the given value, so that
+     * there is an empty bit between each two of them.
+     */
+    private static int spread(int v) {
+        v &= MAX;
+        v = (v | (v << 8)) & 0x00FF00FF;
+        v = (v | (v << 4)) & 0x0F0F0F0F;
+        v = (v | (v << 2)) & 0x33333333;
+        v = (v | (v << 1)) & 0x55555555;
+        return v;
+    }
+
+}
@@ -26,6 +26,7 @@
 package es.csic.iiia.planes.util;
 
 import es.csic.iiia.planes.Positioned;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -34,7 +35,8 @@ import java.util.List;
 /**
  * Holds a path plan (sequence of tasks to service) and its associated cost.
  */
-public final class PathPlan {
+public final class PathPlan implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     private final Positioned start;
     private final List<Positioned> path;
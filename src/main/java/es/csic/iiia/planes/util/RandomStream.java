@@ -0,0 +1,119 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.util;
+
+import java.util.Random;
+
+/**
+ * Seeded random number generator that can be split into independent
+ * sub-streams.
+ * <p/>
+ * Splitting a stream with some key always gives the same sub-stream,
+ * regardless of how many numbers have been drawn from the parent stream or
+ * from any of its other sub-streams. Hence, a tree of streams (such as
+ * world, agents and behaviors) drawn by different elements is reproducible
+ * regardless of the order in which they are built or run, and each element
+ * can draw from its own stream without contending with the others.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class RandomStream extends Random {
+    private static final long serialVersionUID = 1L;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Seed of this stream, from which all of its sub-streams are derived.
+     */
+    private final long root;
+
+    /**
+     * Builds a new stream from the given seed.
+     *
+     * @param seed seed of the stream.
+     */
+    public RandomStream(long seed) {
+        super(mix(seed));
+        root = seed;
+    }
+
+    /**
+     * Get the seed of this stream.
+     *
+     * @return seed of this stream.
+     */
+    public long getRoot() {
+        return root;
+    }
+
+    /**
+     * Get the sub-stream of this stream identified by the given key.
+     *
+     * @param key key of the sub-stream.
+     * @return new sub-stream, seeded from this stream's seed and the key.
+     */
+    public RandomStream split(long key) {
+        return new RandomStream(mix(root * GOLDEN_GAMMA + mix(key + GOLDEN_GAMMA)));
+    }
+
+    /**
+     * Get the sub-stream of this stream identified by the given key.
+     *
+     * @param key key of the sub-stream.
+     * @return new sub-stream, seeded from this stream's seed and the key.
+     */
+    public RandomStream split(String key) {
+        long h = key.length();
+        for (int i=0; i<key.length(); i++) {
+            h = h * 31 + key.charAt(i);
+        }
+        return split(h);
+    }
+
+    /**
+     * Scrambles the bits of the given value (the finalizer of SplitMix64).
+     *
+     * @param z value to scramble.
+     * @return scrambled value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
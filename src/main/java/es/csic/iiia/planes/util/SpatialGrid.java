@@ -0,0 +1,314 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.util;
+
+import es.csic.iiia.planes.Location;
+import es.csic.iiia.planes.Positioned;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectInputValidation;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Uniform grid spatial index of positioned elements.
+ * <p/>
+ * The space is divided in square cells of a fixed size, and each element is
+ * kept in the bucket of the cell where it is currently located. Elements
+ * outside the indexed area are clamped to the nearest border cell, so lookups
+ * remain correct (albeit slower) for them.
+ * <p/>
+ * Because elements may move, the index must be notified of any location change
+ * through {@link #update(Positioned)}.
+ *
+ * @param <T> type of the indexed elements.
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class SpatialGrid<T extends Positioned> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final ArrayList<T>[] cells;
+
+    /**
+     * Cell where each of the indexed elements is currently stored.
+     */
+    private transient Map<T, Integer> index = new HashMap<T, Integer>();
+
+    /**
+     * Builds a new grid covering the area (0,0)-(width,height).
+     *
+     * @param width width of the indexed area.
+     * @param height height of the indexed area.
+     * @param cellSize size of each (square) cell.
+     */
+    public SpatialGrid(double width, double height, double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("The cell size must be positive.");
+        }
+
+        this.cellSize = cellSize;
+        columns = Math.max(1, (int)Math.ceil(width / cellSize));
+        rows = Math.max(1, (int)Math.ceil(height / cellSize));
+        cells = newCells(columns * rows);
+        for (int i=0; i<cells.length; i++) {
+            cells[i] = new ArrayList<T>();
+        }
+    }
+
+    /**
+     * Allocates the array of cells.
+     * <p/>
+     * Java can not create arrays of a generic type, so a raw array is created
+     * instead. This is safe because the array never leaves this grid, and it
+     * only ever holds lists of <em>T</em>.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> ArrayList<T>[] newCells(int count) {
+        return new ArrayList[count];
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        // The elements may not be completely restored yet, so they can not be
+        // hashed until the whole object graph has been read.
+        index = new HashMap<T, Integer>();
+        in.registerValidation(new ObjectInputValidation() {
+            @Override
+            public void validateObject() {
+                for (int i=0; i<cells.length; i++) {
+                    for (T element : cells[i]) {
+                        index.put(element, i);
+                    }
+                }
+            }
+        }, 0);
+    }
+
+    /**
+     * Get the size of the cells of this grid.
+     *
+     * @return size of the cells.
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Get the number of columns of this grid. Cells are numbered row by row,
+     * so the row of a cell is its index divided by this number.
+     *
+     * @return number of columns of this grid.
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Get the cell that contains the given location.
+     *
+     * @param l location to look for.
+     * @return index of the cell containing that location.
+     */
+    public int getCell(Location l) {
+        return clamp(l.getY(), rows) * columns + clamp(l.getX(), columns);
+    }
+
+    /**
+     * Get the number of cells (in each direction) that must be explored to
+     * find all the elements within the given range of a cell.
+     *
+     * @param range distance to cover.
+     * @return number of neighboring cells to explore in each direction.
+     */
+    public int getSpan(double range) {
+        return (int)Math.ceil(range / cellSize);
+    }
+
+    /**
+     * Get the number of steps that an element can take from the given
+     * location without leaving its cell, when moving by a constant offset
+     * at each step.
+     * <p/>
+     * This is a lower bound, with a safety margin against rounding errors.
+     * Elements clamped to a border cell never leave it when moving outwards.
+     *
+     * @param x x coordinate of the element.
+     * @param y y coordinate of the element.
+     * @param dx offset of each step along the x axis.
+     * @param dy offset of each step along the y axis.
+     * @return number of steps guaranteed to end within the cell, or
+     *         {@link Long#MAX_VALUE} if the element never leaves it.
+     */
+    public long getStepsInCell(double x, double y, double dx, double dy) {
+        return Math.min(getStepsInCell(x, dx, columns), getStepsInCell(y, dy, rows));
+    }
+
+    private long getStepsInCell(double coordinate, double d, int n) {
+        final int c = clamp(coordinate, n);
+        final double bound;
+        if (d > 0 && c < n-1) {
+            bound = (c + 1) * cellSize - coordinate;
+        } else if (d < 0 && c > 0) {
+            bound = coordinate - c * cellSize;
+        } else {
+            return Long.MAX_VALUE;
+        }
+
+        final double steps = Math.floor(bound / Math.abs(d)) - 1;
+        if (!(steps > 0)) {
+            return 0;
+        }
+        return steps >= Long.MAX_VALUE / 2 ? Long.MAX_VALUE : (long)steps;
+    }
+
+    private int clamp(double coordinate, int n) {
+        final double c = Math.floor(coordinate / cellSize);
+        if (c < 0) {
+            return 0;
+        }
+        if (c >= n) {
+            return n-1;
+        }
+        return (int)c;
+    }
+
+    /**
+     * Adds a new element to the grid.
+     *
+     * @param element to add.
+     */
+    public void add(T element) {
+        add(element, element.getLocation());
+    }
+
+    /**
+     * Adds a new element to the grid, placing it at the given location
+     * instead of asking for its current one.
+     *
+     * @param element to add.
+     * @param location where the element is.
+     */
+    public void add(T element, Location location) {
+        final int cell = getCell(location);
+        if (index.put(element, cell) != null) {
+            throw new IllegalArgumentException(element + " is already indexed.");
+        }
+        cells[cell].add(element);
+    }
+
+    /**
+     * Removes an element from the grid.
+     *
+     * @param element to remove.
+     * @return True if the element was indexed, or False otherwise.
+     */
+    public boolean remove(T element) {
+        final Integer cell = index.remove(element);
+        if (cell == null) {
+            return false;
+        }
+        cells[cell].remove(element);
+        return true;
+    }
+
+    /**
+     * Moves the given element to the cell of its current location, if it
+     * has changed since the last update.
+     *
+     * @param element that may have moved.
+     */
+    public void update(T element) {
+        final Integer previous = index.get(element);
+        if (previous == null) {
+            return;
+        }
+
+        final int cell = getCell(element.getLocation());
+        if (cell != previous) {
+            cells[previous].remove(element);
+            cells[cell].add(element);
+            index.put(element, cell);
+        }
+    }
+
+    /**
+     * Collects all the elements stored within <em>span</em> cells of the
+     * given one.
+     *
+     * @param cell central cell.
+     * @param span number of neighboring cells to explore in each direction.
+     * @param out collection where to add the found elements.
+     */
+    public void collect(int cell, int span, Collection<? super T> out) {
+        final int row = cell / columns;
+        final int col = cell % columns;
+        final int r0 = Math.max(0, row - span), r1 = Math.min(rows-1, row + span);
+        final int c0 = Math.max(0, col - span), c1 = Math.min(columns-1, col + span);
+
+        for (int r=r0; r<=r1; r++) {
+            for (int c=c0; c<=c1; c++) {
+                final ArrayList<T> elements = cells[r*columns + c];
+                for (int i=0, len=elements.size(); i<len; i++) {
+                    out.add(elements.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects all the elements that may be within <em>range</em> of the
+     * given location.
+     * <p/>
+     * This is a superset of the elements that are actually in range, so the
+     * caller is responsible for checking the actual distances.
+     *
+     * @param center location from where to look.
+     * @param range maximum distance to cover.
+     * @param out collection where to add the found elements.
+     */
+    public void collect(Location center, double range, Collection<? super T> out) {
+        collect(getCell(center), getSpan(range), out);
+    }
+
+}
@@ -0,0 +1,304 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Timing wheel that schedules integer handles to fire at given ticks.
+ * <p/>
+ * The wheel has a fixed number of slots, each one holding the handles
+ * scheduled for a single tick within the window that follows the current
+ * time. Handles scheduled further away are kept in an overflow list, and
+ * moved into the slots whenever the wheel completes a turn. Handles
+ * scheduled at {@link Long#MAX_VALUE} never fire by themselves, and are only
+ * kept until they are cancelled or rescheduled.
+ * <p/>
+ * Scheduling and cancelling run in constant time, and advancing the wheel
+ * costs a constant amount per elapsed tick (or per slot, when no handle is
+ * scheduled within the window).
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class TimingWheel implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int NONE = -1;
+    private static final int OVERFLOW = -2;
+    private static final int PARKED = -3;
+
+    private final int mask;
+
+    /**
+     * First handle of each slot.
+     */
+    private final int[] slots;
+
+    /**
+     * Doubly-linked lists of handles, and the list where each one is.
+     */
+    private int[] next = new int[0];
+    private int[] prev = new int[0];
+    private int[] where = new int[0];
+    private long[] times = new long[0];
+
+    /**
+     * First handle of the overflow list.
+     */
+    private int overflow = NONE;
+
+    /**
+     * Number of handles stored in the slots.
+     */
+    private int inSlots = 0;
+
+    /**
+     * Current time of the wheel. Every handle scheduled within
+     * (now, now + slots] is in its slot.
+     */
+    private long now;
+
+    /**
+     * Builds a new timing wheel.
+     *
+     * @param nSlots minimum number of slots (rounded up to a power of two).
+     * @param time initial time of the wheel.
+     */
+    public TimingWheel(int nSlots, long time) {
+        final int n = Integer.highestOneBit(Math.max(1, nSlots - 1)) << 1;
+        mask = n - 1;
+        slots = new int[n];
+        Arrays.fill(slots, NONE);
+        now = time;
+    }
+
+    /**
+     * Get the current time of this wheel.
+     *
+     * @return current time of the wheel.
+     */
+    public long getTime() {
+        return now;
+    }
+
+    /**
+     * Schedule the given handle to fire at the given tick, replacing any
+     * previous schedule of the same handle.
+     *
+     * @param handle handle to schedule (non-negative).
+     * @param tick tick when the handle must fire, after the current time.
+     */
+    public void schedule(int handle, long tick) {
+        if (tick <= now) {
+            throw new IllegalArgumentException("Tick " + tick
+                    + " is not after the current time (" + now + ")");
+        }
+        if (handle >= where.length) {
+            grow(handle);
+        }
+
+        cancel(handle);
+        times[handle] = tick;
+        if (tick == Long.MAX_VALUE) {
+            where[handle] = PARKED;
+        } else if (tick - now <= slots.length) {
+            link(handle, (int)(tick & mask));
+        } else {
+            link(handle, OVERFLOW);
+        }
+    }
+
+    /**
+     * Cancel the schedule of the given handle.
+     *
+     * @param handle handle to cancel.
+     * @return true if the handle was scheduled, false otherwise.
+     */
+    public boolean cancel(int handle) {
+        if (handle >= where.length || where[handle] == NONE) {
+            return false;
+        }
+        if (where[handle] != PARKED) {
+            unlink(handle);
+        }
+        where[handle] = NONE;
+        return true;
+    }
+
+    /**
+     * Check whether the given handle is scheduled.
+     *
+     * @param handle handle to check.
+     * @return true if the handle is scheduled, false otherwise.
+     */
+    public boolean isScheduled(int handle) {
+        return handle < where.length && where[handle] != NONE;
+    }
+
+    /**
+     * Get the tick at which the given handle is scheduled.
+     *
+     * @param handle handle to check.
+     * @return tick at which the handle will fire, or {@link Long#MAX_VALUE}
+     *         if it is not scheduled.
+     */
+    public long getTime(int handle) {
+        return isScheduled(handle) ? times[handle] : Long.MAX_VALUE;
+    }
+
+    /**
+     * Get the earliest tick at which some handle is scheduled to fire.
+     *
+     * @return earliest scheduled tick, or {@link Long#MAX_VALUE} if no handle
+     *         will ever fire.
+     */
+    public long getNextTime() {
+        // Overflowed handles may fall within the window until the next turn,
+        // so they must always be checked.
+        long min = Long.MAX_VALUE;
+        for (int h=overflow; h!=NONE; h=next[h]) {
+            min = Math.min(min, times[h]);
+        }
+
+        if (inSlots > 0) {
+            for (long t=now+1; t<min; t++) {
+                if (slots[(int)(t & mask)] != NONE) {
+                    return t;
+                }
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Fire the next handle scheduled at or before the given tick, advancing
+     * the wheel's time as needed.
+     * <p/>
+     * Handles are fired by increasing tick, and the wheel's time is left at
+     * the given tick once no more handles are due.
+     *
+     * @param tick tick up to which the wheel must advance.
+     * @return the fired handle (which is no longer scheduled), or a negative
+     *         value if no more handles are due.
+     */
+    public int poll(long tick) {
+        while (true) {
+            if (now + 1 <= tick) {
+                final int h = slots[(int)((now + 1) & mask)];
+                if (h != NONE) {
+                    cancel(h);
+                    return h;
+                }
+            }
+            if (now >= tick) {
+                return NONE;
+            }
+
+            if (inSlots == 0) {
+                // Nothing to fire within the window, so jump as far as the
+                // overflow list allows.
+                now = Math.min(tick, getNextTime() - 1);
+                refill();
+            } else {
+                now++;
+                if ((now & mask) == 0) {
+                    refill();
+                }
+            }
+        }
+    }
+
+    /**
+     * Move the overflowed handles that fall within the window to their slots.
+     */
+    private void refill() {
+        int h = overflow;
+        while (h != NONE) {
+            final int n = next[h];
+            if (times[h] - now <= slots.length) {
+                unlink(h);
+                link(h, (int)(times[h] & mask));
+            }
+            h = n;
+        }
+    }
+
+    private void link(int handle, int list) {
+        final int head = list == OVERFLOW ? overflow : slots[list];
+        next[handle] = head;
+        prev[handle] = NONE;
+        if (head != NONE) {
+            prev[head] = handle;
+        }
+        if (list == OVERFLOW) {
+            overflow = handle;
+        } else {
+            slots[list] = handle;
+            inSlots++;
+        }
+        where[handle] = list;
+    }
+
+    private void unlink(int handle) {
+        final int list = where[handle];
+        if (prev[handle] != NONE) {
+            next[prev[handle]] = next[handle];
+        } else if (list == OVERFLOW) {
+            overflow = next[handle];
+        } else {
+            slots[list] = next[handle];
+        }
+        if (next[handle] != NONE) {
+            prev[next[handle]] = prev[handle];
+        }
+        if (list != OVERFLOW) {
+            inSlots--;
+        }
+    }
+
+    private void grow(int handle) {
+        final int n = Math.max(handle + 1, where.length * 2);
+        final int old = where.length;
+        next = Arrays.copyOf(next, n);
+        prev = Arrays.copyOf(prev, n);
+        times = Arrays.copyOf(times, n);
+        where = Arrays.copyOf(where, n);
+        Arrays.fill(where, old, n, NONE);
+    }
+
+}
@@ -30,8 +30,8 @@ import es.csic.iiia.planes.Plane;
 import es.csic.iiia.planes.Task;
 import es.csic.iiia.planes.behaviors.AbstractBehavior;
 import es.csic.iiia.planes.behaviors.neighbors.NeighborTracking;
+import es.csic.iiia.planes.messaging.Message;
 import java.util.List;
-import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,6 +41,7 @@ import java.util.logging.Logger;
  * @author Andrea Jeradi, Francesco Donato
  */
 public class DSABehavior extends AbstractBehavior<DSAPlane> {
+    private static final long serialVersionUID = 1L;
     
     private static final Logger LOG = Logger.getLogger(DSABehavior.class.getName());
 
@@ -73,8 +74,6 @@ public class DSABehavior extends AbstractBehavior<DSAPlane> {
     
     private DSAStep toDo;
     
-    private Random rnd;
-    
     /**
      * Builds a DSA Behavior for the agent passed as parameter.
      * 
@@ -85,8 +84,6 @@ public class DSABehavior extends AbstractBehavior<DSAPlane> {
         toDo = DSAStep.Nothing;
         dsaGraph = new DSATaskGraph();
         
-        rnd = new Random(agent.getId());
-        
         //load the settings
         nDsaIterations = getConfiguration().getDsaIterations();
         dsaEvery = getConfiguration().getDsaEvery();
@@ -232,6 +229,26 @@ public class DSABehavior extends AbstractBehavior<DSAPlane> {
     }
     
     
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * A new DSA execution only starts every <em>dsa-every</em> ticks. Ongoing
+     * executions need to run at every tick.
+     */
+    @Override
+    public long getNextEventTime(List<Message> pending) {
+        if (toDo != DSAStep.Nothing) {
+            return getAgent().getWorld().getTime() + 1;
+        }
+        for (Message m : pending) {
+            if (m instanceof PresentationMessage || m instanceof TaskMessage
+                    || m instanceof ReallocatedTaskMessage) {
+                return getAgent().getWorld().getTime() + 1;
+            }
+        }
+        return getNextCadenceTime(dsaEvery, 0);
+    }
+
     private void initializeNewDSAExec(){
         dsaGraph.clear();
         currentDsaIteration = 0;
@@ -291,13 +308,9 @@ public class DSABehavior extends AbstractBehavior<DSAPlane> {
 
         for(MyPlaneTaskNode tNode : dsaGraph.getMyPlaneTasksNode()){
             domain = tNode.getDomain();
-            rnd_index = rnd.nextInt(domain.size());
+            rnd_index = getRandom().nextInt(domain.size());
             tNode.setValue(domain.get(rnd_index));
-            for(Plane p: domain){
-                if(p != agent){
-                    agent.send(new TaskMessage(tNode.getTask(),tNode.getValue(),p)); 
-                }
-            }
+            agent.send(new TaskMessage(tNode.getTask(),tNode.getValue()), domain);
         }
 
         if (LOG.isLoggable(Level.FINER)){
@@ -317,15 +330,11 @@ public class DSABehavior extends AbstractBehavior<DSAPlane> {
         Plane tmp;
         
         for(MyPlaneTaskNode tNode : dsaGraph.getMyPlaneTasksNode()){
-            if(rnd.nextDouble() < this.dsaP){
+            if(getRandom().nextDouble() < this.dsaP){
                 tmp = tNode.getValue();
                 tNode.makeDecision();
                   if(tmp != tNode.getValue()){
-                    for(Plane p: tNode.getDomain()){
-                        if(p != agent){
-                            agent.send(new TaskMessage(tNode.getTask(),tNode.getValue(),p)); 
-                        }
-                    }
+                    agent.send(new TaskMessage(tNode.getTask(),tNode.getValue()), tNode.getDomain());
                     
                     if (LOG.isLoggable(Level.FINER)){
                         LOG.log(Level.FINER, "t={0} task:{1} changed its value. new value:{2}", 
@@ -32,6 +32,7 @@ package it.univr.ia.planes.dsa;
  * @author Andrea Jeradi, Francesco Donato
  */
 public class DSAPathCost implements EvaluationFunction{
+    private static final long serialVersionUID = 1L;
 
     @Override
     public String getName() {
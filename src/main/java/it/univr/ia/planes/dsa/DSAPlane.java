@@ -38,6 +38,7 @@ import java.util.List;
  * @author Andrea Jeradi, Francesco Donato
  */
 public class DSAPlane extends AbstractPlane {
+    private static final long serialVersionUID = 1L;
 
     private ArrayList<Task> localTasks = new ArrayList<Task>();
 
@@ -26,6 +26,7 @@
 package it.univr.ia.planes.dsa;
 
 import es.csic.iiia.planes.Task;
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -38,7 +39,9 @@ import java.util.Map;
  * 
  * @author Andrea Jeradi, Francesco Donato
  */
-public class DSATaskGraph {
+public class DSATaskGraph implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     /**
      * Map that represents the link between a myTask and a Node of the Graph.
      */
@@ -31,6 +31,8 @@ package it.univr.ia.planes.dsa;
  * @author Andrea Jeradi, Francesco Donato
  */
 public class DSAWorkload implements EvaluationFunction{
+    private static final long serialVersionUID = 1L;
+
     /**
      * K value used for the workload function.
      */
@@ -41,6 +41,8 @@ import java.util.logging.Logger;
  * @author Andrea Jeradi, Francesco Donato
  */
 public class MyPlaneTaskNode extends AbstractTaskNode {
+    private static final long serialVersionUID = 1L;
+
     /**
      * List of the neighbors of this Task.
      */
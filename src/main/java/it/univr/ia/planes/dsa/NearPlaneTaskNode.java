@@ -33,6 +33,7 @@ import es.csic.iiia.planes.Task;
  * @author Andrea Jeradi, Francesco Donato
  */
 public class NearPlaneTaskNode extends AbstractTaskNode {
+    private static final long serialVersionUID = 1L;
 
     /**
      * Builds a NearPlaneTaskNode
@@ -39,6 +39,8 @@ import java.util.List;
  * @author Andrea Jeradi, Francesco Donato
  */
 public class PresentationMessage extends AbstractMessage{
+    private static final long serialVersionUID = 1L;
+
     /**
      * Tasks list that the sender plane know.
      */    
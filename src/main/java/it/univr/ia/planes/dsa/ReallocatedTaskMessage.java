@@ -38,6 +38,8 @@ import es.csic.iiia.planes.Task;
  * @author Andrea Jeradi, Francesco Donato
  */
 public class ReallocatedTaskMessage extends AbstractMessage{
+    private static final long serialVersionUID = 1L;
+
     /**
      * Task to do.
      */
@@ -37,6 +37,8 @@ import es.csic.iiia.planes.Task;
  * @author Andrea Jeradi, Francesco Donato
  */
 public class TaskMessage extends AbstractMessage{
+    private static final long serialVersionUID = 1L;
+
     /**
      * Task sender of the message.
      */
@@ -60,6 +62,17 @@ public class TaskMessage extends AbstractMessage{
         
     }
     
+    /**
+     * Builds a new TaskMessage to be sent to all the planes of the task's domain.
+     * 
+     * @param task The task that has changed its value.
+     * @param value The new value of the task to comunicate to the message's recipients.
+     */
+    public TaskMessage(Task task, Plane value){
+        this.task = task;
+        this.value = value;
+    }
+    
     /**
      * Get the task that this message refers to. 
      * 
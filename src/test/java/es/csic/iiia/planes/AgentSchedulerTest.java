@@ -0,0 +1,157 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import es.csic.iiia.planes.cli.Configuration;
+import es.csic.iiia.planes.util.SpatialGrid;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class AgentSchedulerTest {
+
+    /**
+     * Factory of worlds that step every agent at every tick.
+     */
+    private static class SteppingFactory extends DefaultFactory {
+        public SteppingFactory(Configuration config) {
+            super(config);
+        }
+
+        @Override
+        public World buildWorld() {
+            world = new DefaultWorld(this) {
+                @Override
+                protected boolean isFastForwardEnabled() {
+                    return false;
+                }
+            };
+            return world;
+        }
+    }
+
+    /**
+     * Factory of worlds that check, after every step, that each plane is in
+     * the cell of the spatial index where it is actually located.
+     */
+    private static class CheckingFactory extends DefaultFactory {
+        public CheckingFactory(Configuration config) {
+            super(config);
+        }
+
+        @Override
+        public World buildWorld() {
+            world = new DefaultWorld(this) {
+                private final ArrayList<Plane> found = new ArrayList<Plane>();
+
+                @Override
+                public void displayStep() {
+                    final SpatialGrid<Plane> grid = getPlaneGrid();
+                    final PlaneStates states = getPlaneStates();
+                    for (Plane p : getPlanes()) {
+                        final int i = PlaneStates.indexOf(p);
+                        final Location l = new Location(states.getX(i), states.getY(i));
+                        found.clear();
+                        grid.collect(grid.getCell(l), 0, found);
+                        assertTrue(p + " is not indexed at " + l + " at tick " + getTime(),
+                                found.contains(p));
+                    }
+                }
+            };
+            return world;
+        }
+    }
+
+    private static World run(Factory factory) {
+        World world = factory.buildWorld();
+        world.init(factory.getConfiguration().getProblemDefinition());
+        world.run();
+        return world;
+    }
+
+    /**
+     * Test that planes moved only when needed while sleeping end up exactly
+     * as if they were stepped at every tick, tick after tick.
+     */
+    @Test
+    public void testLazyMotion() throws IOException {
+        System.out.println("testLazyMotion");
+
+        String[][] cases = {
+            {"planes", "none"},
+            {"planes", "auction"},
+            {"planes", "auction", "neighbor-tracking", "oracle"},
+            {"planes", "auction", "beacon-max-interval", "50"},
+        };
+        for (double range : new double[]{1500, 300}) {
+            for (String[] settings : cases) {
+                File lazy = File.createTempFile("digests", ".bin");
+                File stepped = File.createTempFile("digests", ".bin");
+                try {
+                    String[] overrides = Arrays.copyOf(settings, settings.length + 4);
+                    overrides[settings.length] = "digest-every";
+                    overrides[settings.length + 1] = "1";
+                    overrides[settings.length + 2] = "digest-file";
+
+                    overrides[settings.length + 3] = lazy.getPath();
+                    Configuration config = TestWorlds.buildConfiguration(
+                            TestWorlds.buildProblem(range), overrides);
+                    World a = run(new CheckingFactory(config));
+
+                    overrides[settings.length + 3] = stepped.getPath();
+                    config = TestWorlds.buildConfiguration(
+                            TestWorlds.buildProblem(range), overrides);
+                    World b = run(new SteppingFactory(config));
+
+                    assertEquals(TestWorlds.getResults(b), TestWorlds.getResults(a));
+                    assertNull(DigestLog.compare(stepped.getPath(), lazy.getPath()));
+                } finally {
+                    lazy.delete();
+                    stepped.delete();
+                }
+            }
+        }
+    }
+
+}
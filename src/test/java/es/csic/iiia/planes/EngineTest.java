@@ -0,0 +1,160 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import es.csic.iiia.planes.cli.Configuration;
+import es.csic.iiia.planes.definition.DProblem;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class EngineTest {
+
+    /**
+     * Runs a simulation with the given settings, logging the digest of its
+     * state at every tick.
+     *
+     * @param settings pairs of setting names and values.
+     * @param digests file where to log the digests.
+     * @return results of the simulation.
+     */
+    private static Map<String, Number> run(String[] settings, File digests) throws IOException {
+        return run(TestWorlds.buildProblem(), settings, digests, 0);
+    }
+
+    /**
+     * Runs a simulation of the given problem with the given settings,
+     * logging the digest of its state at every tick.
+     *
+     * @param problem problem to simulate.
+     * @param settings pairs of setting names and values.
+     * @param digests file where to log the digests.
+     * @param minShardBroadcasts minimum number of broadcasts handled by each
+     *                           shard, or 0 to keep the world's default.
+     * @return results of the simulation.
+     */
+    private static Map<String, Number> run(DProblem problem, String[] settings,
+            File digests, int minShardBroadcasts) throws IOException {
+        String[] overrides = Arrays.copyOf(settings, settings.length + 4);
+        overrides[settings.length] = "digest-every";
+        overrides[settings.length + 1] = "1";
+        overrides[settings.length + 2] = "digest-file";
+        overrides[settings.length + 3] = digests.getPath();
+
+        Configuration config = TestWorlds.buildConfiguration(problem, overrides);
+        World world = new DefaultFactory(config).buildWorld();
+        if (minShardBroadcasts > 0) {
+            ((AbstractWorld)world).setMinShardBroadcasts(minShardBroadcasts);
+        }
+        world.init(config.getProblemDefinition());
+        world.run();
+        return TestWorlds.getResults(world);
+    }
+
+    /**
+     * Test that the parallel and actors engines, with several worker
+     * threads, go through exactly the same states as the sequential one.
+     */
+    @Test
+    public void testEnginesMatch() throws IOException {
+        System.out.println("testEnginesMatch");
+
+        String[][] cases = {
+            {"planes", "auction"},
+            {"planes", "auction", "spatial-sort-every", "100"},
+            {"planes", "auction", "neighbor-tracking", "oracle"},
+        };
+        for (String[] settings : cases) {
+            File expected = File.createTempFile("digests", ".bin");
+            File actual = File.createTempFile("digests", ".bin");
+            try {
+                Map<String, Number> results = run(settings, expected);
+                for (String engine : new String[]{"parallel", "actors"}) {
+                    String[] overrides = Arrays.copyOf(settings, settings.length + 4);
+                    overrides[settings.length] = "engine";
+                    overrides[settings.length + 1] = engine;
+                    overrides[settings.length + 2] = "engine-threads";
+                    overrides[settings.length + 3] = "3";
+
+                    assertEquals(results, run(overrides, actual));
+                    assertNull(engine + " engine diverges",
+                            DigestLog.compare(expected.getPath(), actual.getPath()));
+                }
+            } finally {
+                expected.delete();
+                actual.delete();
+            }
+        }
+    }
+
+    /**
+     * Test that the broadcasts routed by several shards at once reach the
+     * same planes as when routed sequentially. The test worlds are too small
+     * to be sharded by default, so every shard is allowed to handle a single
+     * broadcast.
+     */
+    @Test
+    public void testShardsMatch() throws IOException {
+        System.out.println("testShardsMatch");
+
+        String[] settings = {"planes", "auction", "engine", "parallel",
+            "engine-threads", "3"};
+        for (double range : new double[]{1500, 300}) {
+            DProblem problem = TestWorlds.buildProblem(range);
+            File expected = File.createTempFile("digests", ".bin");
+            File actual = File.createTempFile("digests", ".bin");
+            try {
+                Map<String, Number> results = run(problem,
+                        new String[]{"planes", "auction"}, expected, 0);
+                assertEquals(results, run(problem, settings, actual, 1));
+                assertNull("sharded routing diverges",
+                        DigestLog.compare(expected.getPath(), actual.getPath()));
+            } finally {
+                expected.delete();
+                actual.delete();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class LocationTest {
+
+    private static final Location[] DESTINATIONS = {
+        new Location(1000, 1000), new Location(0, 0), new Location(12.3, 1999.9),
+        new Location(1733.25, 0.5), new Location(500, 1500),
+    };
+
+    /**
+     * Test that advancing several steps at once along a plan ends up exactly
+     * where advancing them one by one does.
+     */
+    @Test
+    public void testMoveSteps() {
+        System.out.println("testMoveSteps");
+
+        for (Location destination : DESTINATIONS) {
+            for (int n : new int[]{1, 2, 7, 100, 1000}) {
+                Location single = new Location(321.7, 654.3);
+                Location.MoveStep singleStep = single.buildMoveStep(destination, 1.39);
+                Location multi = new Location(single);
+                Location.MoveStep multiStep = multi.buildMoveStep(destination, 1.39);
+
+                boolean reached = false;
+                while (!reached) {
+                    final double x = multiStep.getXAfter(n);
+                    final double y = multiStep.getYAfter(n);
+                    boolean singleReached = false;
+                    for (int k=0; k<n && !singleReached; k++) {
+                        singleReached = single.move(singleStep);
+                    }
+                    reached = multi.move(multiStep, n);
+
+                    assertEquals(singleReached, reached);
+                    assertEquals(single, multi);
+                    assertEquals(x, multi.getX(), 0);
+                    assertEquals(y, multi.getY(), 0);
+                }
+                assertEquals(destination, multi);
+            }
+        }
+    }
+
+    /**
+     * Test that a plan advanced in a single jump up to its arrival ends up
+     * exactly where stepping it at every tick does.
+     */
+    @Test
+    public void testMoveToArrival() {
+        System.out.println("testMoveToArrival");
+
+        for (Location destination : DESTINATIONS) {
+            Location stepped = new Location(1.5, 1999);
+            Location.MoveStep plan = stepped.buildMoveStep(destination, 0.7);
+            Location lazy = new Location(stepped);
+            Location.MoveStep lazyPlan = lazy.buildMoveStep(destination, 0.7);
+
+            final int steps = plan.steps;
+            for (int k=1; k<steps; k++) {
+                assertFalse(stepped.move(plan));
+            }
+            assertFalse(lazy.move(lazyPlan, steps - 1));
+            assertEquals(stepped, lazy);
+
+            assertTrue(stepped.move(plan));
+            assertTrue(lazy.move(lazyPlan, 1));
+            assertEquals(destination, lazy);
+        }
+    }
+
+}
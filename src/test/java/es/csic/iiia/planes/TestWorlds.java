@@ -0,0 +1,164 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import es.csic.iiia.planes.cli.Cli;
+import es.csic.iiia.planes.cli.Configuration;
+import es.csic.iiia.planes.definition.DOperator;
+import es.csic.iiia.planes.definition.DPlane;
+import es.csic.iiia.planes.definition.DProblem;
+import es.csic.iiia.planes.definition.DStation;
+import es.csic.iiia.planes.definition.DTask;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Small simulations shared by the tests of whole worlds.
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+final class TestWorlds {
+
+    private TestWorlds() {}
+
+    /**
+     * Get the results of a finished simulation, except for the running time
+     * (that is not deterministic).
+     *
+     * @param world finished simulation.
+     * @return deterministic results of the simulation.
+     */
+    public static Map<String, Number> getResults(World world) {
+        Map<String, Number> results = new TreeMap<String, Number>(world.getResults());
+        results.remove("time");
+        return results;
+    }
+
+    /**
+     * Builds a configuration to simulate the problem of
+     * {@link #buildProblem()}, using the default settings except for the
+     * given ones.
+     *
+     * @param overrides pairs of setting names and values.
+     * @return configuration of the simulation.
+     */
+    public static Configuration buildConfiguration(String... overrides) {
+        return buildConfiguration(buildProblem(), overrides);
+    }
+
+    /**
+     * Builds a configuration to simulate the given problem, using the
+     * default settings except for the given ones.
+     *
+     * @param problem problem to simulate.
+     * @param overrides pairs of setting names and values.
+     * @return configuration of the simulation.
+     */
+    public static Configuration buildConfiguration(DProblem problem, String... overrides) {
+        Properties settings = Cli.loadDefaultSettings();
+        settings.setProperty("gui", "false");
+        settings.setProperty("quiet", "true");
+        for (int i = 0; i < overrides.length; i += 2) {
+            settings.setProperty(overrides[i], overrides[i+1]);
+        }
+        return new Configuration(settings, problem);
+    }
+
+    /**
+     * Builds a problem with four planes that are in range of each other, and
+     * a single operator submitting tasks all around them.
+     */
+    public static DProblem buildProblem() {
+        return buildProblem(1500);
+    }
+
+    /**
+     * Builds the problem of {@link #buildProblem()}, but with the given
+     * communication range for the planes.
+     *
+     * @param range communication range of the planes.
+     */
+    public static DProblem buildProblem(double range) {
+        DProblem problem = new DProblem();
+        problem.setWidth(2000);
+        problem.setHeight(2000);
+        problem.setDuration(3000);
+
+        ArrayList<DPlane> planes = new ArrayList<DPlane>();
+        for (int i = 0; i < 4; i++) {
+            DPlane plane = new DPlane();
+            plane.setX(500 + 1000 * (i % 2));
+            plane.setY(500 + 1000 * (i / 2));
+            plane.setSpeed(1.39);
+            plane.setBatteryCapacity(864000);
+            plane.setInitialBattery(864000);
+            plane.setCommunicationRange(range);
+            plane.setColor(new int[]{0, 0, 0});
+            planes.add(plane);
+        }
+        problem.setPlanes(planes);
+
+        ArrayList<DTask> tasks = new ArrayList<DTask>();
+        for (int i = 0; i < 30; i++) {
+            DTask t = new DTask();
+            t.setX((i * 677) % 2000);
+            t.setY((i * 1231) % 2000);
+            t.setTime(20 * i);
+            tasks.add(t);
+        }
+        DOperator operator = new DOperator();
+        operator.setX(1000);
+        operator.setY(1000);
+        operator.setCommunicationRange(3000);
+        operator.setTasks(tasks);
+        ArrayList<DOperator> operators = new ArrayList<DOperator>();
+        operators.add(operator);
+        problem.setOperators(operators);
+
+        DStation station = new DStation();
+        station.setX(1000);
+        station.setY(1000);
+        ArrayList<DStation> stations = new ArrayList<DStation>();
+        stations.add(station);
+        problem.setStations(stations);
+
+        return problem;
+    }
+
+}
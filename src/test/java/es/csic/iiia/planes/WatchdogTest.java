@@ -0,0 +1,101 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class WatchdogTest {
+
+    /**
+     * Test that runs are aborted once no task is completed during the whole
+     * stall window.
+     */
+    @Test
+    public void testStallWindow() {
+        System.out.println("testStallWindow");
+
+        Watchdog w = new Watchdog(0, 100, 1000, 0, 0);
+        assertNull(w.check(50, 1));
+        w.taskCompleted(50);
+        assertEquals(150, w.getDeadline(1));
+        assertNull(w.check(149, 1));
+        assertEquals(Watchdog.Reason.STALLED, w.check(150, 1));
+
+        // Without pending tasks the run is never stalled
+        w = new Watchdog(0, 100, 1000, 0, 0);
+        assertNull(w.check(99, 0));
+        assertNull(w.check(150, 0));
+        assertNull(w.check(249, 1));
+        assertEquals(Watchdog.Reason.STALLED, w.check(250, 1));
+    }
+
+    /**
+     * Test that runs are aborted when they go on for more than ten times
+     * their duration, even if their stall window is longer or disabled.
+     */
+    @Test
+    public void testHorizon() {
+        System.out.println("testHorizon");
+
+        for (long stall : new long[]{0, 100000}) {
+            Watchdog w = new Watchdog(0, stall, 1000, 0, 0);
+            assertEquals(10001, w.getDeadline(1));
+            w.taskCompleted(9990);
+            assertNull(w.check(10000, 1));
+            assertEquals(Watchdog.Reason.STALLED, w.check(10001, 1));
+        }
+    }
+
+    /**
+     * Test that the tick budget takes precedence over the other limits.
+     */
+    @Test
+    public void testTickBudget() {
+        System.out.println("testTickBudget");
+
+        Watchdog w = new Watchdog(0, 100, 1000, 50, 0);
+        assertEquals(49, w.getDeadline(1));
+        assertNull(w.check(48, 1));
+        assertEquals(Watchdog.Reason.TICK_BUDGET, w.check(49, 1));
+    }
+
+}
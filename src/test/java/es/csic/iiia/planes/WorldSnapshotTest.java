@@ -0,0 +1,85 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes;
+
+import es.csic.iiia.planes.cli.Configuration;
+import java.io.IOException;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class WorldSnapshotTest {
+
+    /**
+     * Test that forks of the same snapshot evolve independently of each
+     * other and of the original world.
+     */
+    @Test
+    public void testForksDiverge() throws IOException {
+        System.out.println("testForksDiverge");
+
+        Configuration config = TestWorlds.buildConfiguration("planes", "auction");
+        World original = new DefaultFactory(config).buildWorld();
+        original.init(config.getProblemDefinition());
+        original.run();
+        final Map<String, Number> expected = TestWorlds.getResults(original);
+
+        World world = new DefaultFactory(config).buildWorld();
+        world.init(config.getProblemDefinition());
+        assertTrue(world.runUntil(100));
+        WorldSnapshot snapshot = new WorldSnapshot(world);
+
+        // Run a fork with different settings to the end before the others
+        Configuration other = TestWorlds.buildConfiguration("planes", "auction",
+                "auction-every", "500");
+        World diverging = snapshot.fork(other);
+        World fork = snapshot.fork();
+        assertNotSame(fork.getPlanes().get(0), diverging.getPlanes().get(0));
+        diverging.resume();
+        assertFalse(expected.equals(TestWorlds.getResults(diverging)));
+
+        fork.resume();
+        assertEquals(expected, TestWorlds.getResults(fork));
+        world.resume();
+        assertEquals(expected, TestWorlds.getResults(world));
+    }
+
+}
@@ -87,4 +87,42 @@ public class NeighborsCollectionTest {
         assertEquals(true, instance.hasNeighbors(10));
     }
 
+    /**
+     * Test of age method, of class NeighborsCollection.
+     */
+    @Test
+    public void testAge() {
+        System.out.println("age");
+        NeighborsCollection instance = new NeighborsCollection();
+        DefaultPlane a = new DefaultPlane(null);
+        DefaultPlane b = new DefaultPlane(null);
+        DefaultPlane c = new DefaultPlane(null);
+        a.setId(1);
+        b.setId(2);
+        c.setId(3);
+
+        instance.add(a, Integer.MAX_VALUE);
+        instance.add(b, 3);
+        instance.add(c, 5);
+        assertEquals(3, instance.getMinIterations());
+
+        instance.age(2);
+        assertEquals(1, instance.getMinIterations());
+        assertEquals(true, instance.contains(b, 1));
+        assertEquals(false, instance.contains(b, 2));
+        assertEquals(true, instance.contains(c, 3));
+        assertEquals(true, instance.hasNeighbors(3));
+
+        instance.age(1);
+        assertEquals(false, instance.contains(b, 1));
+        assertEquals(2, instance.getMinIterations());
+        instance.add(b, 4);
+        assertEquals(true, instance.contains(b, 4));
+
+        instance.age(10);
+        assertEquals(Integer.MAX_VALUE, instance.getMinIterations());
+        assertEquals(true, instance.contains(a, Integer.MAX_VALUE));
+        assertEquals(1, instance.size());
+    }
+
 }
@@ -0,0 +1,201 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.cli;
+
+import es.csic.iiia.planes.DefaultFactory;
+import es.csic.iiia.planes.Plane;
+import es.csic.iiia.planes.World;
+import es.csic.iiia.planes.definition.DOperator;
+import es.csic.iiia.planes.definition.DPlane;
+import es.csic.iiia.planes.definition.DProblem;
+import es.csic.iiia.planes.definition.DStation;
+import es.csic.iiia.planes.definition.DTask;
+import java.util.ArrayList;
+import java.util.Properties;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class ConfigurationTest {
+
+    /**
+     * Test that coordination cycles leave room for all their iterations when
+     * ticks are longer than a tenth of second.
+     */
+    @Test
+    public void testCoordinationCyclesWithLongTicks() {
+        System.out.println("testCoordinationCyclesWithLongTicks");
+
+        for (int length : new int[]{1, 2, 10, 100}) {
+            Properties settings = buildSettings();
+            settings.setProperty("tick-length", String.valueOf(length));
+            settings.setProperty("planes", "maxsum");
+            Configuration config = new Configuration(settings, buildProblem());
+            assertTrue(config.getMsStartEvery() > config.getMsIterations());
+
+            settings.setProperty("planes", "dsa");
+            config = new Configuration(settings, buildProblem());
+            assertTrue(config.getDsaEvery() > config.getDsaIterations());
+        }
+    }
+
+    /**
+     * Test that cycles too short for their iterations are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testShortCycleRejected() {
+        System.out.println("testShortCycleRejected");
+
+        Properties settings = buildSettings();
+        settings.setProperty("planes", "maxsum");
+        settings.setProperty("maxsum-start-every", "9");
+        new Configuration(settings, buildProblem());
+    }
+
+    /**
+     * Test that max-sum planes still reallocate their tasks when ticks are
+     * longer than a tenth of second.
+     * <p/>
+     * The operator only reaches the first plane, so it hands every task to
+     * it. However, the tasks appear right below the second plane, which can
+     * only complete them if max-sum moves them there.
+     */
+    @Test
+    public void testMaxSumWithLongTicks() {
+        System.out.println("testMaxSumWithLongTicks");
+
+        Properties settings = buildSettings();
+        settings.setProperty("tick-length", "10");
+        settings.setProperty("planes", "maxsum");
+        settings.setProperty("idle-strategy", "do-nothing");
+        Configuration config = new Configuration(settings, buildProblem());
+
+        World world = new DefaultFactory(config).buildWorld();
+        world.init(config.getProblemDefinition());
+        world.run();
+
+        assertNull(world.getAbortReason());
+        Plane second = world.getPlanes().get(1);
+        assertFalse(second.getCompletedLocations().isEmpty());
+    }
+
+    /**
+     * Test that the default stall detection window is the duration of the
+     * problem, in ticks.
+     */
+    @Test
+    public void testAutoStallTimeout() {
+        System.out.println("testAutoStallTimeout");
+
+        Properties settings = buildSettings();
+        assertEquals(2000, new Configuration(settings, buildProblem()).getStallTimeout());
+
+        settings.setProperty("tick-length", "10");
+        assertEquals(200, new Configuration(settings, buildProblem()).getStallTimeout());
+
+        settings.setProperty("stall-timeout", "500");
+        assertEquals(50, new Configuration(settings, buildProblem()).getStallTimeout());
+    }
+
+    /**
+     * Builds the default settings of a batch (non-graphical, quiet) run.
+     */
+    private static Properties buildSettings() {
+        Properties settings = Cli.loadDefaultSettings();
+        settings.setProperty("gui", "false");
+        settings.setProperty("quiet", "true");
+        return settings;
+    }
+
+    /**
+     * Builds a problem with two planes, one operator that only reaches the
+     * first plane, and some tasks right below the second one.
+     */
+    private static DProblem buildProblem() {
+        DProblem problem = new DProblem();
+        problem.setWidth(2000);
+        problem.setHeight(2000);
+        problem.setDuration(2000);
+
+        ArrayList<DPlane> planes = new ArrayList<DPlane>();
+        planes.add(buildPlane(100, 100));
+        planes.add(buildPlane(1900, 1900));
+        problem.setPlanes(planes);
+
+        ArrayList<DTask> tasks = new ArrayList<DTask>();
+        for (int i = 0; i < 5; i++) {
+            DTask t = new DTask();
+            t.setX(1900);
+            t.setY(1900 - 10 * i);
+            t.setTime(100 + 200 * i);
+            tasks.add(t);
+        }
+        DOperator operator = new DOperator();
+        operator.setX(100);
+        operator.setY(100);
+        operator.setCommunicationRange(1000);
+        operator.setTasks(tasks);
+        ArrayList<DOperator> operators = new ArrayList<DOperator>();
+        operators.add(operator);
+        problem.setOperators(operators);
+
+        DStation station = new DStation();
+        station.setX(1000);
+        station.setY(1000);
+        ArrayList<DStation> stations = new ArrayList<DStation>();
+        stations.add(station);
+        problem.setStations(stations);
+
+        return problem;
+    }
+
+    private static DPlane buildPlane(int x, int y) {
+        DPlane plane = new DPlane();
+        plane.setX(x);
+        plane.setY(y);
+        plane.setSpeed(1.39);
+        plane.setBatteryCapacity(864000);
+        plane.setInitialBattery(864000);
+        plane.setCommunicationRange(5000);
+        plane.setColor(new int[]{0, 0, 0});
+        return plane;
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.messaging;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the MessagePool class.
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class MessagePoolTest {
+
+    private static class TestMessage extends AbstractMessage {}
+
+    private final MessagePool<TestMessage> pool = new MessagePool<TestMessage>() {
+        @Override
+        protected TestMessage create() {
+            return new TestMessage();
+        }
+    };
+
+    /**
+     * Test that messages are never handed out again before the end of the
+     * tick that follows the one when they were taken, even when the pool is
+     * not used at every tick.
+     */
+    @Test
+    public void testLifetime() {
+        Random r = new Random(0);
+        Map<TestMessage, Long> taken = new IdentityHashMap<TestMessage, Long>();
+
+        long time = 0;
+        for (int i=0; i<1000; i++) {
+            time += 1 + (r.nextInt(4) == 0 ? r.nextInt(5) : 0);
+            for (int j=r.nextInt(10); j>0; j--) {
+                final TestMessage m = pool.acquire(time);
+                final Long previous = taken.put(m, time);
+                if (previous != null) {
+                    assertTrue(previous < time - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that the messages are reused once they expire.
+     */
+    @Test
+    public void testReuse() {
+        List<TestMessage> first = new ArrayList<TestMessage>();
+        for (int i=0; i<5; i++) {
+            first.add(pool.acquire(0));
+        }
+        for (int i=0; i<5; i++) {
+            assertFalse(first.contains(pool.acquire(1)));
+        }
+        for (int i=0; i<5; i++) {
+            assertTrue(first.contains(pool.acquire(2)));
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the IndexedSet class.
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class IndexedSetTest {
+
+    /**
+     * Test that the set behaves like an insertion-ordered list without
+     * duplicates, across many random insertions and removals.
+     */
+    @Test
+    public void testOrder() {
+        Random r = new Random(0);
+        IndexedSet<Integer> set = new IndexedSet<Integer>();
+        List<Integer> expected = new ArrayList<Integer>();
+
+        for (int i=0; i<5000; i++) {
+            Integer e = r.nextInt(200);
+            if (r.nextBoolean()) {
+                assertEquals(!expected.contains(e), set.add(e));
+                if (!expected.contains(e)) {
+                    expected.add(e);
+                }
+            } else {
+                assertEquals(expected.remove(e), set.remove(e));
+            }
+
+            assertEquals(expected.size(), set.size());
+            assertEquals(expected.contains(e), set.contains(e));
+            if (i % 100 == 0) {
+                assertEquals(expected, set.asList());
+                assertEquals(expected, new ArrayList<Integer>(set.asList()));
+            }
+        }
+    }
+
+    /**
+     * Test that the list view can not be modified.
+     */
+    @Test(expected=UnsupportedOperationException.class)
+    public void testReadOnlyView() {
+        IndexedSet<Integer> set = new IndexedSet<Integer>();
+        set.add(1);
+        set.asList().remove(0);
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.util;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the MortonCode class.
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class MortonCodeTest {
+
+    /**
+     * Test that the bits of both coordinates are interleaved.
+     */
+    @Test
+    public void testEncodeInterleavesBits() {
+        assertEquals(0L, MortonCode.encode(0, 0));
+        assertEquals(1L, MortonCode.encode(1, 0));
+        assertEquals(2L, MortonCode.encode(0, 1));
+        assertEquals(3L, MortonCode.encode(1, 1));
+        assertEquals(0x15L, MortonCode.encode(7, 0));
+        assertEquals(0x2AL, MortonCode.encode(0, 7));
+        assertEquals(0x55555555L, MortonCode.encode(0xFFFF, 0));
+        assertEquals(0xFFFFFFFFL, MortonCode.encode(0xFFFF, 0xFFFF));
+    }
+
+    /**
+     * Test that points are quantized to the area, clamping those outside it.
+     */
+    @Test
+    public void testEncodePoints() {
+        assertEquals(0L, MortonCode.encode(0., 0., 100., 100.));
+        assertEquals(0L, MortonCode.encode(-5., -1e9, 100., 100.));
+        assertEquals(MortonCode.encode(0xFFFF, 0xFFFF),
+                MortonCode.encode(100., 250., 100., 100.));
+        assertEquals(MortonCode.encode(0x8000, 0x4000),
+                MortonCode.encode(50., 25., 100., 100.));
+    }
+
+    /**
+     * Test that codes follow the Z-shaped curve across quadrants.
+     */
+    @Test
+    public void testQuadrantOrder() {
+        final long bottomLeft = MortonCode.encode(10., 10., 100., 100.);
+        final long bottomRight = MortonCode.encode(60., 10., 100., 100.);
+        final long topLeft = MortonCode.encode(10., 60., 100., 100.);
+        final long topRight = MortonCode.encode(60., 60., 100., 100.);
+        assertTrue(bottomLeft < bottomRight);
+        assertTrue(bottomRight < topLeft);
+        assertTrue(topLeft < topRight);
+    }
+
+}
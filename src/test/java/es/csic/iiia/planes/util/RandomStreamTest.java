@@ -0,0 +1,95 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.util;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the RandomStream class.
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class RandomStreamTest {
+
+    /**
+     * Test that sub-streams do not depend on the numbers drawn from their
+     * parent or from their siblings.
+     */
+    @Test
+    public void testSplitIsIndependentOfDraws() {
+        RandomStream a = new RandomStream(42);
+        RandomStream b = new RandomStream(42);
+
+        RandomStream a1 = a.split(1);
+        for (int i=0; i<100; i++) {
+            a.nextInt();
+            a1.nextDouble();
+        }
+        RandomStream a2 = a.split("behavior").split(2);
+
+        RandomStream b2 = b.split("behavior").split(2);
+        RandomStream b1 = b.split(1);
+        for (int i=0; i<100; i++) {
+            b1.nextDouble();
+        }
+
+        for (int i=0; i<100; i++) {
+            assertEquals(b2.nextLong(), a2.nextLong());
+        }
+        assertEquals(b1.nextLong(), a1.nextLong());
+        assertEquals(b.nextLong(), new RandomStream(42).nextLong());
+    }
+
+    /**
+     * Test that different keys and seeds give different streams.
+     */
+    @Test
+    public void testDistinctStreams() {
+        Set<Long> firsts = new HashSet<Long>();
+        for (long seed=0; seed<10; seed++) {
+            RandomStream s = new RandomStream(seed);
+            assertTrue(firsts.add(s.nextLong()));
+            for (int key=0; key<100; key++) {
+                assertTrue(firsts.add(s.split(key).nextLong()));
+                assertTrue(firsts.add(s.split("k" + key).nextLong()));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.util;
+
+import es.csic.iiia.planes.AbstractPositionedElement;
+import es.csic.iiia.planes.Location;
+import es.csic.iiia.planes.Positioned;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the SpatialGrid class.
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class SpatialGridTest {
+
+    /**
+     * Test that the grid finds every element in range, including those
+     * located outside the indexed area.
+     */
+    @Test
+    public void testCollect() {
+        Random r = new Random(0);
+        SpatialGrid<Positioned> grid = new SpatialGrid<Positioned>(1000, 1000, 150);
+        List<Positioned> elements = new ArrayList<Positioned>();
+        for (int i=0; i<500; i++) {
+            Positioned p = new PositionedMock(new Location(
+                    r.nextDouble()*1200 - 100, r.nextDouble()*1200 - 100));
+            elements.add(p);
+            grid.add(p);
+        }
+
+        for (int i=0; i<100; i++) {
+            Location center = new Location(r.nextDouble()*1000, r.nextDouble()*1000);
+            double range = r.nextDouble()*300;
+            Set<Positioned> found = new HashSet<Positioned>();
+            grid.collect(center, range, found);
+
+            for (Positioned p : elements) {
+                if (center.distance(p.getLocation()) <= range) {
+                    assertTrue(found.contains(p));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that moved elements are found at their new location.
+     */
+    @Test
+    public void testUpdate() {
+        SpatialGrid<Positioned> grid = new SpatialGrid<Positioned>(1000, 1000, 100);
+        Positioned p = new PositionedMock(new Location(50, 50));
+        grid.add(p);
+
+        List<Positioned> found = new ArrayList<Positioned>();
+        grid.collect(new Location(950, 950), 100, found);
+        assertTrue(found.isEmpty());
+
+        p.getLocation().setLocation(900, 900);
+        grid.update(p);
+        grid.collect(new Location(950, 950), 100, found);
+        assertEquals(1, found.size());
+
+        found.clear();
+        grid.collect(new Location(50, 50), 100, found);
+        assertTrue(found.isEmpty());
+
+        assertTrue(grid.remove(p));
+        assertFalse(grid.remove(p));
+    }
+
+    /**
+     * Test that elements moving at a constant pace never leave their cell
+     * before the number of steps announced by the grid.
+     */
+    @Test
+    public void testStepsInCell() {
+        Random r = new Random(0);
+        SpatialGrid<Positioned> grid = new SpatialGrid<Positioned>(1000, 1000, 150);
+        for (int i=0; i<500; i++) {
+            final double x = r.nextDouble()*1200 - 100, y = r.nextDouble()*1200 - 100;
+            final double alpha = r.nextDouble() * 2 * Math.PI;
+            final double dx = 1.39 * Math.cos(alpha), dy = 1.39 * Math.sin(alpha);
+
+            final long steps = grid.getStepsInCell(x, y, dx, dy);
+            final int cell = grid.getCell(new Location(x, y));
+            final long checked = Math.min(steps, 1000);
+            for (long k=1; k<=checked; k++) {
+                assertEquals(cell, grid.getCell(new Location(x + k*dx, y + k*dy)));
+            }
+        }
+
+        // Elements clamped to a border cell never leave it moving outwards
+        assertEquals(Long.MAX_VALUE, grid.getStepsInCell(-50, 500, -1, 0));
+        assertEquals(Long.MAX_VALUE, grid.getStepsInCell(500, 500, 0, 0));
+        assertEquals(0, grid.getStepsInCell(149.5, 500, 1, 0));
+    }
+
+    /**
+     * Helper mock object implementing the Positioned interface.
+     */
+    private class PositionedMock extends AbstractPositionedElement {
+
+        public PositionedMock(Location location) {
+            super(location);
+        }
+
+        @Override
+        public void initialize() {}
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Software License Agreement (BSD License)
+ *
+ * Copyright 2015 Marc Pujol <mpujol@iiia.csic.es>.
+ *
+ * Redistribution and use of this software in source and binary forms, with or
+ * without modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *   Redistributions of source code must retain the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer.
+ *
+ *   Redistributions in binary form must reproduce the above
+ *   copyright notice, this list of conditions and the
+ *   following disclaimer in the documentation and/or other
+ *   materials provided with the distribution.
+ *
+ *   Neither the name of IIIA-CSIC, Artificial Intelligence Research Institute
+ *   nor the names of its contributors may be used to
+ *   endorse or promote products derived from this
+ *   software without specific prior written permission of
+ *   IIIA-CSIC, Artificial Intelligence Research Institute
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package es.csic.iiia.planes.util;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the TimingWheel class.
+ * @author Marc Pujol <mpujol@iiia.csic.es>
+ */
+public class TimingWheelTest {
+
+    private static final int HANDLES = 100;
+
+    /**
+     * Test that handles fire at their scheduled ticks, across many random
+     * schedules (near, far and never), cancellations and time jumps.
+     */
+    @Test
+    public void testRandomSchedules() {
+        Random r = new Random(0);
+        TimingWheel wheel = new TimingWheel(16, 0);
+        long[] expected = new long[HANDLES];
+        Arrays.fill(expected, -1);
+
+        long time = 0;
+        for (int i=0; i<20000; i++) {
+            final int h = r.nextInt(HANDLES);
+            switch (r.nextInt(4)) {
+                case 0:
+                    expected[h] = time + 1 + r.nextInt(10);
+                    wheel.schedule(h, expected[h]);
+                    break;
+                case 1:
+                    expected[h] = r.nextInt(10) == 0 ? Long.MAX_VALUE
+                            : time + 1 + r.nextInt(200);
+                    wheel.schedule(h, expected[h]);
+                    break;
+                case 2:
+                    assertEquals(expected[h] >= 0, wheel.cancel(h));
+                    expected[h] = -1;
+                    break;
+                default:
+                    final long to = time + (r.nextInt(10) == 0 ? r.nextInt(500) : r.nextInt(3));
+                    assertEquals(min(expected), wheel.getNextTime());
+
+                    long last = time;
+                    for (int f = wheel.poll(to); f >= 0; f = wheel.poll(to)) {
+                        assertTrue(expected[f] >= last && expected[f] <= to);
+                        last = expected[f];
+                        expected[f] = -1;
+                        assertFalse(wheel.isScheduled(f));
+                    }
+                    for (int j=0; j<HANDLES; j++) {
+                        assertFalse(expected[j] >= 0 && expected[j] <= to);
+                    }
+                    time = to;
+                    assertEquals(time, wheel.getTime());
+            }
+
+            assertEquals(expected[h] >= 0, wheel.isScheduled(h));
+            assertEquals(expected[h] >= 0 ? expected[h] : Long.MAX_VALUE, wheel.getTime(h));
+        }
+    }
+
+    /**
+     * Test that scheduling a handle in the past is not allowed.
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testSchedulePast() {
+        TimingWheel wheel = new TimingWheel(16, 10);
+        wheel.schedule(0, 10);
+    }
+
+    private static long min(long[] times) {
+        long min = Long.MAX_VALUE;
+        for (long t : times) {
+            if (t >= 0) {
+                min = Math.min(min, t);
+            }
+        }
+        return min;
+    }
+
+}